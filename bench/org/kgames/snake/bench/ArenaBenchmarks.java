@@ -0,0 +1,36 @@
+package org.kgames.snake.bench;
+
+import org.kgames.snake.arena.ArenaEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// One step of a crowded multi-snake arena
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class ArenaBenchmarks {
+    private static final int ARENA_SIZE = 1024;
+
+    @Param({"100", "500"})
+    public int snakes;
+
+    private ArenaEngine arena;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        arena = new ArenaEngine(ARENA_SIZE, ARENA_SIZE, snakes, 0, snakes * 2, 42);
+    }
+
+    @Benchmark
+    public int arenaEngineStep() {
+        // Start over once the match is decided, so every sample steps a busy arena
+        if (arena.isOver()) {
+            arena.reset(arena.getTick());
+        }
+        return arena.step();
+    }
+}
@@ -0,0 +1,50 @@
+package org.kgames.snake.bench;
+
+import org.kgames.snake.game.Direction;
+import org.kgames.snake.game.Snake;
+import org.kgames.snake.util.Vector2;
+
+// Steers a snake along a Hamiltonian cycle of the board, so snakes of any length up to
+// boardSize * boardSize - 1 can move forever without colliding. Needs an even board size with the
+// snake's starting row even, which holds for every multiple of four.
+public final class CycleDriver {
+    private CycleDriver() {
+    }
+
+    public static Direction next(int x, int y, int boardSize) {
+        if (y == 0) {
+            return x < boardSize - 1 ? Direction.RIGHT : Direction.DOWN;
+        }
+        if (x == 0) {
+            return Direction.UP;
+        }
+        if ((y & 1) == 1) {
+            // Odd rows run left, dropping down at column 1 except on the last row
+            if (x > 1 || y == boardSize - 1) {
+                return Direction.LEFT;
+            }
+            return Direction.DOWN;
+        }
+        return x < boardSize - 1 ? Direction.RIGHT : Direction.DOWN;
+    }
+
+    public static void step(Snake snake) {
+        Vector2 head = snake.getHead();
+        Direction direction = next(head.x, head.y, snake.getBoardWidth());
+        snake.setDirection(direction.dx, direction.dy);
+        snake.move();
+    }
+
+    // Returns a snake of exactly the given length, already moving along the cycle
+    public static Snake snakeOfLength(int boardSize, int length) {
+        if (boardSize % 4 != 0 || length >= boardSize * boardSize) {
+            throw new IllegalArgumentException("Cannot fit length " + length + " on board " + boardSize);
+        }
+        Snake snake = new Snake(boardSize);
+        while (snake.getLength() < length) {
+            snake.grow();
+            step(snake);
+        }
+        return snake;
+    }
+}
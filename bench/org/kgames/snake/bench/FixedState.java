@@ -0,0 +1,59 @@
+package org.kgames.snake.bench;
+
+import org.kgames.snake.game.Apple;
+import org.kgames.snake.game.GameState;
+import org.kgames.snake.game.Snake;
+
+import java.util.Random;
+
+// Freezes a snake and apple as a GameState to capture a frame from
+final class FixedState implements GameState {
+    private final Snake snake;
+    private final Apple apple;
+
+    FixedState(Snake snake) {
+        this.snake = snake;
+        this.apple = new Apple(snake.getBoardWidth(), snake.getBoardHeight(), new Random(42));
+        this.apple.place(snake);
+    }
+
+    @Override
+    public int score() {
+        return snake.getLength() - 3;
+    }
+
+    @Override
+    public boolean isOver() {
+        return false;
+    }
+
+    @Override
+    public long getTick() {
+        return 0;
+    }
+
+    @Override
+    public int getDifficulty() {
+        return 1;
+    }
+
+    @Override
+    public int getBoardWidth() {
+        return snake.getBoardWidth();
+    }
+
+    @Override
+    public int getBoardHeight() {
+        return snake.getBoardHeight();
+    }
+
+    @Override
+    public Snake getSnake() {
+        return snake;
+    }
+
+    @Override
+    public Apple getApple() {
+        return apple;
+    }
+}
@@ -0,0 +1,51 @@
+package org.kgames.snake.bench;
+
+import org.kgames.snake.game.Leaderboard;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Adding a score to and loading a leaderboard saved in a temporary directory
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class LeaderboardBenchmarks {
+    private File savesDir;
+    private Leaderboard leaderboard;
+    private final Random random = new Random(42);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        savesDir = Files.createTempDirectory("snake-bench").toFile();
+        leaderboard = new Leaderboard(1, savesDir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(savesDir.toPath())) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public int leaderboardAddScore() {
+        leaderboard.addScore("player", random.nextInt(1000));
+        return leaderboard.getHighestScore();
+    }
+
+    @Benchmark
+    public int leaderboardLoadScores() {
+        leaderboard.loadScores();
+        return leaderboard.getHighestScore();
+    }
+}
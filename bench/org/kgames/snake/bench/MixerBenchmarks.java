@@ -0,0 +1,45 @@
+package org.kgames.snake.bench;
+
+import org.kgames.snake.game.AudioMixer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Mixing one output buffer with a number of voices playing; needs no audio device
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class MixerBenchmarks {
+    private static final int BUFFER_FRAMES = 512;
+
+    @Param({"1", "8", "32"})
+    public int voices;
+
+    private AudioMixer mixer;
+    private byte[] output;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // One second of noise, looped so the voices never run out
+        Random random = new Random(42);
+        short[] samples = new short[(int) AudioMixer.SAMPLE_RATE];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (random.nextInt(1 << 14) - (1 << 13));
+        }
+        mixer = new AudioMixer(BUFFER_FRAMES);
+        for (int v = 0; v < voices; v++) {
+            mixer.play(samples, 0.5f, true);
+        }
+        output = new byte[BUFFER_FRAMES * AudioMixer.LINE_FORMAT.getFrameSize()];
+    }
+
+    @Benchmark
+    public byte audioMixerMix() {
+        mixer.mix(output);
+        return output[0];
+    }
+}
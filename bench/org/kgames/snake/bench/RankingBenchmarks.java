@@ -0,0 +1,47 @@
+package org.kgames.snake.bench;
+
+import org.kgames.snake.game.ScoreRanking;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Rank queries and inserts on a ScoreRanking holding a given number of scores
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class RankingBenchmarks {
+    @Param({"1000", "1000000"})
+    public int entries;
+
+    private ScoreRanking ranking;
+    private Random random;
+
+    // Per iteration, so inserts measure a ranking of the stated size rather than one that kept growing
+    @Setup(Level.Iteration)
+    public void setUp() {
+        random = new Random(42);
+        ranking = new ScoreRanking();
+        for (int i = 0; i < entries; i++) {
+            ranking.insert("player", random.nextInt(100_000));
+        }
+    }
+
+    @Benchmark
+    public int scoreRankingRankOf() {
+        return ranking.rankOf(random.nextInt(100_000));
+    }
+
+    @Benchmark
+    public int scoreRankingTop10() {
+        return ranking.top(10)[0];
+    }
+
+    @Benchmark
+    public int scoreRankingInsert() {
+        return ranking.insert("player", random.nextInt(100_000));
+    }
+}
@@ -0,0 +1,67 @@
+package org.kgames.snake.bench;
+
+import org.kgames.snake.game.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+// Drawing one frame of the board into an offscreen image, across board sizes and snake lengths.
+// Needs the textures, so resources/ must be on the classpath, as it is for gradle jmh.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmarks {
+    // Keep the offscreen frame around this many pixels wide regardless of board size
+    private static final int FRAME_WIDTH = 1000;
+
+    // BOARDxLENGTH, as in SnakeBenchmarks
+    @Param({"20x16",
+            "100x16", "100x256", "100x4096",
+            "500x16", "500x256", "500x4096", "500x65536",
+            "10000x16", "10000x256", "10000x4096", "10000x65536"})
+    public String shape;
+
+    private BufferedImage image;
+    private Graphics2D g;
+    private BoardRenderer renderer;
+    private FrameSnapshot frame;
+    private int elementSize;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TextureManager textureManager = new TextureManager();
+        if (!textureManager.init()) {
+            throw new IllegalStateException("Textures not found; add resources to the classpath to benchmark drawing");
+        }
+        int boardSize = SnakeBenchmarks.boardSize(shape);
+        // Large boards are drawn through a camera, as the game does
+        int columns = Math.min(boardSize, SnakeGame.MAX_VIEW_COLUMNS);
+        int rows = Math.min(boardSize, SnakeGame.MAX_VIEW_ROWS);
+        elementSize = Math.max(2, FRAME_WIDTH / columns);
+        image = new BufferedImage(columns * elementSize, rows * elementSize + SnakeGame.DRAW_OFFSET,
+                BufferedImage.TYPE_INT_ARGB);
+        g = image.createGraphics();
+        renderer = new BoardRenderer(textureManager);
+        frame = new FrameSnapshot();
+        Snake snake = CycleDriver.snakeOfLength(boardSize, SnakeBenchmarks.snakeLength(shape));
+        Camera camera = new Camera(columns, rows);
+        camera.follow(snake.getHead().x, snake.getHead().y, boardSize, boardSize);
+        frame.capture(new FixedState(snake), camera);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public int boardRendererDraw() {
+        renderer.draw(g, frame, elementSize, SnakeGame.DRAW_OFFSET);
+        return image.getRGB(0, SnakeGame.DRAW_OFFSET);
+    }
+}
@@ -0,0 +1,65 @@
+package org.kgames.snake.bench;
+
+import org.kgames.snake.game.Apple;
+import org.kgames.snake.game.Snake;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// JMH benchmarks for the per-tick hot paths across snake lengths and board sizes.
+// Run from the project root with:
+//   gradle jmh                                  every benchmark in bench/
+//   gradle jmh -Pjmh.include=SnakeBenchmarks    only the ones matching a regex
+// The other benchmark classes in this package cover drawing, the arena, persistence, ranking and audio.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class SnakeBenchmarks {
+    // BOARDxLENGTH; a snake covering more than half the board is not a realistic steady state,
+    // so those combinations are left out
+    @Param({"20x16",
+            "100x16", "100x256", "100x4096",
+            "500x16", "500x256", "500x4096", "500x65536",
+            "10000x16", "10000x256", "10000x4096", "10000x65536"})
+    public String shape;
+
+    private Snake snake;
+    private Apple apple;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int boardSize = boardSize(shape);
+        snake = CycleDriver.snakeOfLength(boardSize, snakeLength(shape));
+        apple = new Apple(boardSize, new Random(42));
+    }
+
+    static int boardSize(String shape) {
+        return Integer.parseInt(shape.substring(0, shape.indexOf('x')));
+    }
+
+    static int snakeLength(String shape) {
+        return Integer.parseInt(shape.substring(shape.indexOf('x') + 1));
+    }
+
+    @Benchmark
+    public int snakeMove() {
+        CycleDriver.step(snake);
+        return snake.getHead().x;
+    }
+
+    @Benchmark
+    public boolean snakeCheckCollision() {
+        CycleDriver.step(snake);
+        return snake.checkCollision();
+    }
+
+    @Benchmark
+    public int applePlace() {
+        apple.place(snake);
+        return apple.getPosition().x;
+    }
+}
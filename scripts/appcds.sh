@@ -0,0 +1,20 @@
+#!/bin/sh
+# Builds build/cds/snake.jar and a class-data-sharing archive for it, build/cds/snake.jsa.
+# The archive holds the game's classes pre-parsed and verified, which cuts JVM startup.
+# Training starts the game with --cdsTraining: it exits on its own once the first menu frame
+# is painted and the assets are loaded, so it needs a display but no input.
+# Then start the game with:
+#   java -XX:SharedArchiveFile=build/cds/snake.jsa -jar build/cds/snake.jar
+# The archive only fits the JDK that made it and this exact jar; rebuild it after either changes.
+set -e
+cd "$(dirname "$0")/.."
+
+BUILD=build/cds
+rm -rf "$BUILD/classes"
+mkdir -p "$BUILD/classes"
+javac -d "$BUILD/classes" $(find src -name '*.java')
+cp -R resources/. "$BUILD/classes/"
+jar --create --file "$BUILD/snake.jar" --main-class org.kgames.snake.game.SnakeGame -C "$BUILD/classes" .
+
+java -XX:ArchiveClassesAtExit="$BUILD/snake.jsa" -jar "$BUILD/snake.jar" --cdsTraining
+echo "Start with: java -XX:SharedArchiveFile=$BUILD/snake.jsa -jar $BUILD/snake.jar"
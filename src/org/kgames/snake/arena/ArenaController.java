@@ -0,0 +1,11 @@
+package org.kgames.snake.arena;
+
+import org.kgames.snake.game.Direction;
+
+// Chooses the next direction of an AI snake.
+// Called from several threads at once during the decision phase, so implementations must only
+// read the arena and may only change the snake they are deciding for.
+public interface ArenaController {
+    // Returns the direction to take, or null to keep going straight
+    Direction decide(ArenaEngine arena, ArenaSnake snake);
+}
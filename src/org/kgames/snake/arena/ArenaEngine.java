@@ -0,0 +1,411 @@
+package org.kgames.snake.arena;
+
+import org.kgames.snake.game.Direction;
+import org.kgames.snake.game.OccupancyGrid;
+import org.kgames.snake.game.SnakeBody;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Battle arena where many snakes, human or AI, compete for many apples on one board.
+// All bodies share a single chunked occupancy grid that records the owning snake per cell,
+// so every collision check is one grid lookup no matter how many snakes there are.
+//
+// A tick runs in two phases. Deciding where each snake turns is the expensive part and runs
+// across a ForkJoin pool; it only reads the board and writes each snake's own fields. Moving,
+// collisions and apples are then resolved on the calling thread in snake id order, so the
+// same seed and inputs always produce the same match regardless of thread scheduling.
+//
+// Collision rules: a head leaving the board or entering any body dies, heads meeting in the
+// same cell all die, and a cell vacated by a tail this tick is free to enter.
+public class ArenaEngine {
+    private static final int INITIAL_LENGTH = 3;
+    private static final int MAX_SPAWN_ATTEMPTS = 64;
+    private static final int MAX_APPLE_ATTEMPTS = 64;
+    // Snakes per fork/join leaf task in the decision phase
+    private static final int MIN_SNAKES_PER_TASK = 8;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int width;
+    private final int height;
+    private final ForkJoinPool pool;
+    private final Random random = new Random();
+
+    // Owner snake id per occupied cell
+    private final OccupancyGrid bodies;
+    // Apple index per cell holding an apple
+    private final OccupancyGrid appleCells;
+    private final int[] appleX;
+    private final int[] appleY;
+    // Bumped whenever an apple moves, so AI targets can tell a respawned apple from the old one
+    private final int[] appleGeneration;
+
+    private final ArenaSnake[] snakes;
+    private ArenaController controller = new GreedyController();
+
+    // Resolution scratch, indexed by snake id
+    private final int[] nextX;
+    private final int[] nextY;
+    private final boolean[] dying;
+    private final long[] headOrder;
+
+    private long tick = 0;
+    private int aliveCount = 0;
+
+    public ArenaEngine(int width, int height, int snakeCount, int humanCount, int appleCount, long seed) {
+        this(width, height, snakeCount, humanCount, appleCount, seed, ForkJoinPool.commonPool());
+    }
+
+    public ArenaEngine(int width, int height, int snakeCount, int humanCount, int appleCount, long seed, ForkJoinPool pool) {
+        if (width < 8 || height < 8) {
+            throw new IllegalArgumentException("Arena must be at least 8x8");
+        }
+        if (humanCount > snakeCount) {
+            throw new IllegalArgumentException("More humans than snakes: " + humanCount + " > " + snakeCount);
+        }
+        this.width = width;
+        this.height = height;
+        this.pool = pool;
+        this.bodies = new OccupancyGrid(width, height);
+        this.appleCells = new OccupancyGrid(width, height);
+        this.appleX = new int[appleCount];
+        this.appleY = new int[appleCount];
+        this.appleGeneration = new int[appleCount];
+
+        // Humans take the lowest ids
+        snakes = new ArenaSnake[snakeCount];
+        for (int i = 0; i < snakeCount; i++) {
+            snakes[i] = new ArenaSnake(i, i < humanCount, width, height);
+        }
+        nextX = new int[snakeCount];
+        nextY = new int[snakeCount];
+        dying = new boolean[snakeCount];
+        headOrder = new long[snakeCount];
+        reset(seed);
+    }
+
+    // Starts a new match; the same seed and inputs replay the same match
+    public void reset(long seed) {
+        random.setSeed(seed);
+        bodies.clearAll();
+        appleCells.clearAll();
+        tick = 0;
+        aliveCount = 0;
+
+        for (ArenaSnake snake : snakes) {
+            snake.reset(seed);
+            spawn(snake);
+        }
+        for (int i = 0; i < appleX.length; i++) {
+            appleGeneration[i] = 0;
+            appleX[i] = -1;
+            placeApple(i);
+        }
+    }
+
+    private void spawn(ArenaSnake snake) {
+        for (int attempt = 0; attempt < MAX_SPAWN_ATTEMPTS; attempt++) {
+            Direction direction = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+            // Leave room for the body behind the head and one free cell in front of it
+            int margin = INITIAL_LENGTH;
+            int headX = margin + random.nextInt(width - 2 * margin);
+            int headY = margin + random.nextInt(height - 2 * margin);
+            if (!spawnAreaFree(headX, headY, direction)) {
+                continue;
+            }
+            SnakeBody body = snake.getBody();
+            for (int i = INITIAL_LENGTH - 1; i >= 0; i--) {
+                int x = headX - direction.dx * i;
+                int y = headY - direction.dy * i;
+                body.addHead(x, y);
+                bodies.set(x, y, snake.getId());
+            }
+            snake.velX = direction.dx;
+            snake.velY = direction.dy;
+            snake.alive = true;
+            aliveCount++;
+            return;
+        }
+        // The board is too crowded; the snake sits this match out
+    }
+
+    private boolean spawnAreaFree(int headX, int headY, Direction direction) {
+        for (int i = -1; i < INITIAL_LENGTH; i++) {
+            int x = headX - direction.dx * i;
+            int y = headY - direction.dy * i;
+            if (bodies.isOccupied(x, y) || appleCells.isOccupied(x, y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Moves apple i to a random empty cell, or deactivates it if none was found
+    private void placeApple(int apple) {
+        if (appleX[apple] >= 0) {
+            appleCells.clear(appleX[apple], appleY[apple]);
+        }
+        appleGeneration[apple]++;
+        for (int attempt = 0; attempt < MAX_APPLE_ATTEMPTS; attempt++) {
+            int x = random.nextInt(width);
+            int y = random.nextInt(height);
+            if (!bodies.isOccupied(x, y) && !appleCells.isOccupied(x, y)) {
+                appleX[apple] = x;
+                appleY[apple] = y;
+                appleCells.set(x, y, apple);
+                return;
+            }
+        }
+        appleX[apple] = -1;
+        appleY[apple] = -1;
+    }
+
+    // Queues a turn for a human snake; call on the thread that runs step(), between ticks
+    public void setDirection(int snakeId, Direction direction) {
+        snakes[snakeId].queuedDirection = direction;
+    }
+
+    public void setController(ArenaController controller) {
+        this.controller = controller;
+    }
+
+    // Advances the match by one tick; returns the number of snakes that died in it
+    public int step() {
+        if (snakes.length <= MIN_SNAKES_PER_TASK) {
+            decideRange(0, snakes.length);
+        } else {
+            pool.invoke(new DecideTask(0, snakes.length));
+        }
+        int deaths = resolve();
+        tick++;
+        return deaths;
+    }
+
+    private void decideRange(int from, int to) {
+        for (int i = from; i < to; i++) {
+            ArenaSnake snake = snakes[i];
+            if (!snake.alive) {
+                continue;
+            }
+            Direction direction;
+            if (snake.isHuman()) {
+                direction = snake.queuedDirection;
+                snake.queuedDirection = null;
+            } else {
+                direction = controller.decide(this, snake);
+            }
+            if (direction != null) {
+                snake.turn(direction);
+            }
+        }
+    }
+
+    private int resolve() {
+        int heads = 0;
+        for (int i = 0; i < snakes.length; i++) {
+            ArenaSnake snake = snakes[i];
+            dying[i] = false;
+            if (!snake.alive) {
+                continue;
+            }
+            int x = snake.getHeadX() + snake.velX;
+            int y = snake.getHeadY() + snake.velY;
+            nextX[i] = x;
+            nextY[i] = y;
+            if (x < 0 || y < 0 || x >= width || y >= height) {
+                dying[i] = true;
+            } else {
+                headOrder[heads++] = ((long) (y * width + x) << 32) | i;
+            }
+        }
+
+        // Tails move first, so following another snake's tail closely is allowed
+        for (ArenaSnake snake : snakes) {
+            if (!snake.alive) {
+                continue;
+            }
+            if (snake.pendingGrowth > 0) {
+                snake.pendingGrowth--;
+            } else {
+                SnakeBody body = snake.getBody();
+                int tail = body.size() - 1;
+                bodies.clear(body.getX(tail), body.getY(tail));
+                body.removeTail();
+            }
+        }
+
+        // Heads sharing a cell: sorting by cell puts them next to each other
+        Arrays.sort(headOrder, 0, heads);
+        for (int k = 1; k < heads; k++) {
+            if ((headOrder[k] >>> 32) == (headOrder[k - 1] >>> 32)) {
+                dying[(int) headOrder[k]] = true;
+                dying[(int) headOrder[k - 1]] = true;
+            }
+        }
+
+        // Heads entering a body, including bodies of snakes that die this same tick
+        for (int i = 0; i < snakes.length; i++) {
+            if (snakes[i].alive && !dying[i] && bodies.isOccupied(nextX[i], nextY[i])) {
+                dying[i] = true;
+            }
+        }
+
+        int deaths = 0;
+        for (int i = 0; i < snakes.length; i++) {
+            ArenaSnake snake = snakes[i];
+            if (!snake.alive) {
+                continue;
+            }
+            if (dying[i]) {
+                kill(snake);
+                deaths++;
+                continue;
+            }
+            int x = nextX[i];
+            int y = nextY[i];
+            snake.getBody().addHead(x, y);
+            bodies.set(x, y, i);
+            if (appleCells.isOccupied(x, y)) {
+                snake.score++;
+                snake.pendingGrowth++;
+                placeApple(appleCells.getSerial(x, y));
+            }
+        }
+        return deaths;
+    }
+
+    private void kill(ArenaSnake snake) {
+        SnakeBody body = snake.getBody();
+        for (int i = 0; i < body.size(); i++) {
+            int x = body.getX(i);
+            int y = body.getY(i);
+            // A head-to-head partner may already have taken the cell
+            if (bodies.isOccupied(x, y) && bodies.getSerial(x, y) == snake.getId()) {
+                bodies.clear(x, y);
+            }
+        }
+        snake.alive = false;
+        aliveCount--;
+    }
+
+    // Test setup: lays snake id out on the given x, y pairs, head first, moving in direction.
+    // Whatever body the snake had is removed first.
+    void placeSnake(int id, Direction direction, int... cells) {
+        ArenaSnake snake = snakes[id];
+        if (snake.alive) {
+            kill(snake);
+        }
+        SnakeBody body = snake.getBody();
+        body.clear();
+        for (int i = cells.length - 2; i >= 0; i -= 2) {
+            body.addHead(cells[i], cells[i + 1]);
+            bodies.set(cells[i], cells[i + 1], id);
+        }
+        snake.velX = direction.dx;
+        snake.velY = direction.dy;
+        snake.pendingGrowth = 0;
+        snake.alive = true;
+        aliveCount++;
+    }
+
+    public boolean isCellFree(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height && !bodies.isOccupied(x, y);
+    }
+
+    // True if a head other than the given snake's is next to (x, y) and could move there too
+    public boolean isNextToOtherHead(int x, int y, int snakeId) {
+        for (Direction direction : DIRECTIONS) {
+            int nx = x + direction.dx;
+            int ny = y + direction.dy;
+            int owner = getOwner(nx, ny);
+            if (owner >= 0 && owner != snakeId
+                    && snakes[owner].getHeadX() == nx && snakes[owner].getHeadY() == ny) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Snake id on an occupied cell, or -1 for a free cell or one outside the board
+    public int getOwner(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height || !bodies.isOccupied(x, y)) {
+            return -1;
+        }
+        return bodies.getSerial(x, y);
+    }
+
+    public boolean isAppleAt(int x, int y) {
+        return appleCells.isOccupied(x, y);
+    }
+
+    public boolean isAppleActive(int apple) {
+        return appleX[apple] >= 0;
+    }
+
+    public int getAppleX(int apple) {
+        return appleX[apple];
+    }
+
+    public int getAppleY(int apple) {
+        return appleY[apple];
+    }
+
+    public int getAppleGeneration(int apple) {
+        return appleGeneration[apple];
+    }
+
+    public int getAppleCount() {
+        return appleX.length;
+    }
+
+    public ArenaSnake getSnake(int id) {
+        return snakes[id];
+    }
+
+    public int getSnakeCount() {
+        return snakes.length;
+    }
+
+    public int getAliveCount() {
+        return aliveCount;
+    }
+
+    // A match ends when at most one snake is left
+    public boolean isOver() {
+        return aliveCount <= 1;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    private class DecideTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        DecideTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= MIN_SNAKES_PER_TASK) {
+                decideRange(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new DecideTask(from, mid), new DecideTask(mid, to));
+        }
+    }
+}
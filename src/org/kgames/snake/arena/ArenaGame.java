@@ -0,0 +1,208 @@
+package org.kgames.snake.arena;
+
+import org.kgames.snake.game.ActiveRenderCanvas;
+import org.kgames.snake.game.Camera;
+import org.kgames.snake.game.Direction;
+import org.kgames.snake.game.GameLoop;
+import org.kgames.snake.game.InputRing;
+import org.kgames.snake.metrics.GameMetrics;
+import org.kgames.snake.metrics.MetricsOverlay;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+
+// Window for arena matches: the player steers snake 0 with the arrow keys or WASD among the
+// AI snakes, and ENTER starts a new match once one is over. The loop thread owns the engine
+// and also draws it through an ActiveRenderCanvas, so no frame copies are needed.
+// Sizes come from -Dsnake.boardWidth/-Dsnake.boardHeight, -Dsnake.arenaSnakes,
+// -Dsnake.arenaApples and -Dsnake.arenaTickRate. F3 shows the loop metrics, which are also
+// published over JMX as org.kgames.snake:type=GameMetrics,name=arena.
+public class ArenaGame implements KeyListener {
+    private static final int DEFAULT_BOARD_SIZE = 256;
+    private static final int DEFAULT_SNAKES = 200;
+    private static final int DEFAULT_APPLES = 400;
+    private static final int DEFAULT_TICK_RATE = 10;
+    private static final int RENDER_FPS = 60;
+    private static final int VIEW_COLUMNS = 80;
+    private static final int VIEW_ROWS = 60;
+    private static final int MIN_CELL_SIZE = 2;
+    private static final int PLAYER_ID = 0;
+    private static final int HUD_HEIGHT = 24;
+    private static final int INPUT_DEPTH = 8;
+    private static final int OVERLAY_MARGIN = 5;
+    private static final Font HUD_FONT = new Font("TimesRoman", Font.PLAIN, 16);
+
+    private final ArenaEngine engine;
+    private final Camera camera = new Camera(VIEW_COLUMNS, VIEW_ROWS);
+    private final Color[] snakeColors;
+    private final long tickIntervalNanos;
+    private final ActiveRenderCanvas canvas = new ActiveRenderCanvas(2);
+    private final GameLoop gameLoop = new GameLoop("snake-arena-loop", RENDER_FPS);
+    private final GameMetrics metrics = new GameMetrics();
+    private final MetricsOverlay metricsOverlay = new MetricsOverlay(metrics);
+
+    // Key presses from the EDT, taken by the loop thread one turn per tick
+    private final InputRing inputRing = new InputRing(INPUT_DEPTH);
+    // Written by the loop thread
+    private volatile boolean matchOver = false;
+    private volatile double lastStepMillis = 0;
+    // Toggled on the EDT
+    private volatile boolean showMetrics = false;
+
+    private final GameLoop.Callbacks callbacks = new GameLoop.Callbacks() {
+        @Override
+        public void begin() {
+            engine.reset(System.nanoTime());
+            inputRing.clear();
+            matchOver = false;
+        }
+
+        @Override
+        public long tickIntervalNanos() {
+            return tickIntervalNanos;
+        }
+
+        @Override
+        public boolean tick() {
+            ArenaSnake player = engine.getSnake(PLAYER_ID);
+            Direction direction = inputRing.pollTurn(player.getVelX(), player.getVelY());
+            if (direction != null) {
+                engine.setDirection(PLAYER_ID, direction);
+            }
+            if (!engine.isOver()) {
+                long start = System.nanoTime();
+                engine.step();
+                lastStepMillis = (System.nanoTime() - start) / 1_000_000.0;
+                if (direction != null) {
+                    metrics.inputApplied(inputRing.getLastTimestamp());
+                }
+            }
+            // Keep drawing the final board until a new match is started
+            matchOver = engine.isOver();
+            return true;
+        }
+
+        @Override
+        public void render(double alpha) {
+            long start = metrics.renderStarted();
+            if (canvas.render(ArenaGame.this::paint)) {
+                metrics.renderFinished(start);
+            }
+        }
+    };
+
+    public ArenaGame() {
+        int width = Integer.getInteger("snake.boardWidth", DEFAULT_BOARD_SIZE);
+        int height = Integer.getInteger("snake.boardHeight", DEFAULT_BOARD_SIZE);
+        int snakeCount = Integer.getInteger("snake.arenaSnakes", DEFAULT_SNAKES);
+        int appleCount = Integer.getInteger("snake.arenaApples", DEFAULT_APPLES);
+        tickIntervalNanos = 1_000_000_000L / Math.max(1, Integer.getInteger("snake.arenaTickRate", DEFAULT_TICK_RATE));
+        engine = new ArenaEngine(width, height, snakeCount, 1, appleCount, System.nanoTime());
+
+        snakeColors = new Color[snakeCount];
+        for (int i = 0; i < snakeCount; i++) {
+            // Golden-ratio hue steps keep neighbouring ids visually apart
+            snakeColors[i] = Color.getHSBColor((i * 0.618034f) % 1f, 0.6f, 0.8f);
+        }
+        snakeColors[PLAYER_ID] = Color.GREEN;
+
+        JFrame frame = new JFrame("Snake Arena");
+        canvas.setPreferredSize(new Dimension(VIEW_COLUMNS * 10, VIEW_ROWS * 10 + HUD_HEIGHT));
+        canvas.addKeyListener(this);
+        frame.add(canvas);
+        frame.pack();
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+        canvas.requestFocusInWindow();
+
+        gameLoop.setMetrics(metrics);
+        metrics.register("arena");
+        gameLoop.start(callbacks);
+    }
+
+    public static void start() {
+        SwingUtilities.invokeLater(ArenaGame::new);
+    }
+
+    // Loop thread: draws the part of the arena around the player, or around the leader once
+    // the player is out
+    private void paint(Graphics2D g, int width, int height) {
+        ArenaSnake followed = engine.getSnake(PLAYER_ID);
+        if (!followed.isAlive()) {
+            followed = leader();
+        }
+        if (followed != null && followed.getLength() > 0) {
+            camera.follow(followed.getHeadX(), followed.getHeadY(), engine.getWidth(), engine.getHeight());
+        }
+        int cellSize = Math.max(MIN_CELL_SIZE, Math.min(width / camera.getColumns(), (height - HUD_HEIGHT) / camera.getRows()));
+
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, width, height);
+        for (int row = 0; row < camera.getRows(); row++) {
+            int y = camera.getY() + row;
+            for (int column = 0; column < camera.getColumns(); column++) {
+                int x = camera.getX() + column;
+                int owner = engine.getOwner(x, y);
+                if (owner >= 0) {
+                    ArenaSnake snake = engine.getSnake(owner);
+                    boolean head = snake.getHeadX() == x && snake.getHeadY() == y;
+                    g.setColor(head ? Color.WHITE : snakeColors[owner]);
+                } else if (engine.isAppleAt(x, y)) {
+                    g.setColor(Color.RED);
+                } else {
+                    continue;
+                }
+                g.fillRect(column * cellSize, HUD_HEIGHT + row * cellSize, cellSize - 1, cellSize - 1);
+            }
+        }
+
+        ArenaSnake player = engine.getSnake(PLAYER_ID);
+        g.setColor(Color.WHITE);
+        g.setFont(HUD_FONT);
+        String status = matchOver ? "Match over - press ENTER" : (player.isAlive() ? "Score: " + player.getScore() : "Spectating");
+        g.drawString(String.format("%s   Alive: %d/%d   Tick: %.2f ms", status,
+                engine.getAliveCount(), engine.getSnakeCount(), lastStepMillis), 5, HUD_HEIGHT - 6);
+        if (showMetrics) {
+            metricsOverlay.draw(g, OVERLAY_MARGIN, HUD_HEIGHT + OVERLAY_MARGIN);
+        }
+    }
+
+    private ArenaSnake leader() {
+        ArenaSnake best = null;
+        for (int i = 0; i < engine.getSnakeCount(); i++) {
+            ArenaSnake snake = engine.getSnake(i);
+            if (snake.isAlive() && (best == null || snake.getLength() > best.getLength())) {
+                best = snake;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_W, KeyEvent.VK_UP -> inputRing.offer(Direction.UP, System.nanoTime());
+            case KeyEvent.VK_A, KeyEvent.VK_LEFT -> inputRing.offer(Direction.LEFT, System.nanoTime());
+            case KeyEvent.VK_S, KeyEvent.VK_DOWN -> inputRing.offer(Direction.DOWN, System.nanoTime());
+            case KeyEvent.VK_D, KeyEvent.VK_RIGHT -> inputRing.offer(Direction.RIGHT, System.nanoTime());
+            case KeyEvent.VK_ENTER -> {
+                if (matchOver) {
+                    gameLoop.start(callbacks);
+                }
+            }
+            case KeyEvent.VK_F3 -> showMetrics = !showMetrics;
+            case KeyEvent.VK_ESCAPE -> System.exit(0);
+        }
+    }
+
+    @Override
+    public void keyTyped(KeyEvent e) {
+    }
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+    }
+}
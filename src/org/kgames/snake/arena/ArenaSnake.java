@@ -0,0 +1,106 @@
+package org.kgames.snake.arena;
+
+import org.kgames.snake.game.Direction;
+import org.kgames.snake.game.SnakeBody;
+
+// One competitor in the arena. The decision phase of a tick only writes this snake's own
+// fields, which is what lets the arena decide for all snakes in parallel.
+public class ArenaSnake {
+    private final int id;
+    private final boolean human;
+    private final SnakeBody body;
+
+    boolean alive;
+    int velX;
+    int velY;
+    int score;
+    int pendingGrowth;
+    // Human input waiting for the next tick; written on the loop thread between ticks
+    Direction queuedDirection;
+
+    // Private random stream, so AI choices do not depend on which thread ran them
+    private long rngState;
+
+    // Apple the AI is heading for, and the generation it had when chosen
+    int targetApple = -1;
+    int targetGeneration = -1;
+
+    ArenaSnake(int id, boolean human, int boardWidth, int boardHeight) {
+        this.id = id;
+        this.human = human;
+        this.body = new SnakeBody(boardWidth, boardHeight);
+    }
+
+    void reset(long seed) {
+        body.clear();
+        alive = false;
+        velX = 0;
+        velY = 0;
+        score = 0;
+        pendingGrowth = 0;
+        queuedDirection = null;
+        targetApple = -1;
+        targetGeneration = -1;
+        // xorshift must not start at zero
+        rngState = (seed ^ (0x9E3779B97F4A7C15L * (id + 1))) | 1L;
+    }
+
+    // Turns unless the new direction would reverse into the body
+    void turn(Direction direction) {
+        if ((velX != 0 && direction.dx == -velX) || (velY != 0 && direction.dy == -velY)) {
+            return;
+        }
+        velX = direction.dx;
+        velY = direction.dy;
+    }
+
+    // Next value of the snake's own xorshift stream in [0, bound)
+    public int nextRandom(int bound) {
+        long x = rngState;
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        rngState = x;
+        return (int) ((x >>> 33) % bound);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public boolean isHuman() {
+        return human;
+    }
+
+    public boolean isAlive() {
+        return alive;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLength() {
+        return body.size();
+    }
+
+    public int getHeadX() {
+        return body.getX(0);
+    }
+
+    public int getHeadY() {
+        return body.getY(0);
+    }
+
+    public int getVelX() {
+        return velX;
+    }
+
+    public int getVelY() {
+        return velY;
+    }
+
+    public SnakeBody getBody() {
+        return body;
+    }
+}
@@ -0,0 +1,82 @@
+package org.kgames.snake.arena;
+
+import org.kgames.snake.game.Direction;
+
+// Heads for the nearest apple, never steps into a wall or body when it has a choice, and
+// stays away from cells another head could also reach this tick.
+public class GreedyController implements ArenaController {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    // Penalty weights; distance to the target dominates, the rest only break ties
+    private static final int DISTANCE_WEIGHT = 4;
+    private static final int CONTESTED_PENALTY = 64;
+
+    @Override
+    public Direction decide(ArenaEngine arena, ArenaSnake snake) {
+        int headX = snake.getHeadX();
+        int headY = snake.getHeadY();
+        int target = chooseTarget(arena, snake, headX, headY);
+
+        Direction best = null;
+        int bestCost = Integer.MAX_VALUE;
+        for (Direction direction : DIRECTIONS) {
+            // Reversing is ignored by the arena, so do not consider it
+            if ((snake.velX != 0 && direction.dx == -snake.velX) || (snake.velY != 0 && direction.dy == -snake.velY)) {
+                continue;
+            }
+            int x = headX + direction.dx;
+            int y = headY + direction.dy;
+            if (!arena.isCellFree(x, y)) {
+                continue;
+            }
+
+            int cost = 0;
+            if (target >= 0) {
+                cost += DISTANCE_WEIGHT * (Math.abs(arena.getAppleX(target) - x) + Math.abs(arena.getAppleY(target) - y));
+            }
+            if (arena.isNextToOtherHead(x, y, snake.getId())) {
+                cost += CONTESTED_PENALTY;
+            }
+            // Prefer open space, with a little noise so snakes do not move in lockstep
+            cost -= freeNeighbours(arena, x, y);
+            cost += snake.nextRandom(2);
+
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = direction;
+            }
+        }
+        return best;
+    }
+
+    private int chooseTarget(ArenaEngine arena, ArenaSnake snake, int headX, int headY) {
+        int target = snake.targetApple;
+        if (target >= 0 && arena.isAppleActive(target) && arena.getAppleGeneration(target) == snake.targetGeneration) {
+            return target;
+        }
+        target = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < arena.getAppleCount(); i++) {
+            if (!arena.isAppleActive(i)) {
+                continue;
+            }
+            int distance = Math.abs(arena.getAppleX(i) - headX) + Math.abs(arena.getAppleY(i) - headY);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                target = i;
+            }
+        }
+        snake.targetApple = target;
+        snake.targetGeneration = target >= 0 ? arena.getAppleGeneration(target) : -1;
+        return target;
+    }
+
+    private static int freeNeighbours(ArenaEngine arena, int x, int y) {
+        int free = 0;
+        for (Direction direction : DIRECTIONS) {
+            if (arena.isCellFree(x + direction.dx, y + direction.dy)) {
+                free++;
+            }
+        }
+        return free;
+    }
+}
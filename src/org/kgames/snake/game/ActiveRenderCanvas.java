@@ -0,0 +1,104 @@
+package org.kgames.snake.game;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+
+// Canvas drawn directly from the game loop thread through a page-flipping BufferStrategy,
+// bypassing the Swing repaint manager. Also measures how long frames take.
+public class ActiveRenderCanvas extends Canvas {
+    // Weight of the newest sample in the moving averages
+    private static final double SMOOTHING = 0.05;
+
+    public interface FramePainter {
+        void paint(Graphics2D g, int width, int height);
+    }
+
+    private final int bufferCount;
+    private BufferStrategy strategy;
+
+    private long lastShowTime = 0;
+    private volatile double averageFrameNanos = 0;
+    private volatile double averageRenderNanos = 0;
+    private volatile long worstFrameNanos = 0;
+
+    public ActiveRenderCanvas(int bufferCount) {
+        this.bufferCount = bufferCount;
+        setIgnoreRepaint(true);
+        setBackground(Color.BLACK);
+        setFocusable(true);
+    }
+
+    // Draws and flips one frame; returns false if the canvas cannot be drawn yet
+    public boolean render(FramePainter painter) {
+        int width = getWidth();
+        int height = getHeight();
+        if (!isDisplayable() || width <= 0 || height <= 0) {
+            return false;
+        }
+        if (strategy == null) {
+            createBufferStrategy(bufferCount);
+            strategy = getBufferStrategy();
+        }
+
+        long start = System.nanoTime();
+        // Redraw until the back buffer survived both drawing and the flip
+        do {
+            do {
+                Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    painter.paint(g, width, height);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+
+        long end = System.nanoTime();
+        recordFrame(end - start, lastShowTime == 0 ? 0 : end - lastShowTime);
+        lastShowTime = end;
+        return true;
+    }
+
+    private void recordFrame(long renderNanos, long frameNanos) {
+        averageRenderNanos = averageRenderNanos == 0 ? renderNanos
+                : averageRenderNanos + (renderNanos - averageRenderNanos) * SMOOTHING;
+        if (frameNanos > 0) {
+            averageFrameNanos = averageFrameNanos == 0 ? frameNanos
+                    : averageFrameNanos + (frameNanos - averageFrameNanos) * SMOOTHING;
+            worstFrameNanos = Math.max(worstFrameNanos, frameNanos);
+        }
+    }
+
+    // Called when the canvas is shown for a new game, so stats cover only that game
+    public void resetStats() {
+        lastShowTime = 0;
+        averageFrameNanos = 0;
+        averageRenderNanos = 0;
+        worstFrameNanos = 0;
+    }
+
+    @Override
+    public void removeNotify() {
+        // The strategy belongs to the native peer being destroyed
+        strategy = null;
+        super.removeNotify();
+    }
+
+    public double getAverageFrameMillis() {
+        return averageFrameNanos / 1_000_000.0;
+    }
+
+    public double getAverageRenderMillis() {
+        return averageRenderNanos / 1_000_000.0;
+    }
+
+    public double getWorstFrameMillis() {
+        return worstFrameNanos / 1_000_000.0;
+    }
+
+    public double getFramesPerSecond() {
+        return averageFrameNanos == 0 ? 0 : 1_000_000_000.0 / averageFrameNanos;
+    }
+}
@@ -2,45 +2,93 @@ package org.kgames.snake.game;
 
 import org.kgames.snake.util.Vector2;
 
-import java.awt.*;
-import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.Random;
 
 public class Apple {
-    private Vector2 position;
-    private final TextureManager textureManager;
+    // Random probes to try before falling back to the free-cell index
+    private static final int MAX_REJECTION_ATTEMPTS = 16;
+    // While the snake covers less than this share of the board, probing almost always hits a free cell
+    private static final double SPARSE_OCCUPANCY = 0.5;
+    // Larger boards skip the free-cell index, whose two int arrays grow with the board area,
+    // and pick from the chunked occupancy grid instead
+    private static final int FREE_CELL_INDEX_MAX_CELLS = 1 << 20;
 
-    public Apple(int boardSize, TextureManager tm) {
-        this.position = new Vector2(boardSize - (boardSize / 4), boardSize / 2);
-        this.textureManager = tm;
+    private final Vector2 position = new Vector2(0, 0);
+    private final Random random;
+
+    // Built lazily the first time the board gets dense, then kept in sync by the snake until
+    // Snake.init() detaches it; later games reuse the arrays
+    private FreeCellIndex freeCells;
+
+    public Apple(int boardSize, Random random) {
+        this(boardSize, boardSize, random);
+    }
+
+    public Apple(int boardWidth, int boardHeight, Random random) {
+        this.random = random;
+        reset(boardWidth, boardHeight);
+    }
+
+    // Puts the apple back on its starting cell
+    public void reset(int boardWidth, int boardHeight) {
+        position.x = boardWidth - (boardWidth / 4);
+        position.y = boardHeight / 2;
     }
 
     public Vector2 getPosition() {
         return position;
     }
 
-    public void place(LinkedList<Vector2> snakeElements) {
-        ArrayList<Vector2> freeCells = new ArrayList<>();
-        for(int i = 0; i < SnakeGame.BOARD_SIZE; i++) {
-            for(int j = 0; j < SnakeGame.BOARD_SIZE; j++) {
-                freeCells.add(new Vector2(i, j));
+    // Moves the apple to a random free cell; returns false if the snake fills the whole board
+    public boolean place(Snake snake) {
+        int boardWidth = snake.getBoardWidth();
+        int cellCount = boardWidth * snake.getBoardHeight();
+        if (snake.getLength() >= cellCount) {
+            return false;
+        }
+
+        if (freeCells == null || snake.getCellListener() != freeCells) {
+            if (snake.getLength() < cellCount * SPARSE_OCCUPANCY) {
+                for (int attempt = 0; attempt < MAX_REJECTION_ATTEMPTS; attempt++) {
+                    int cell = random.nextInt(cellCount);
+                    if (!snake.isOccupied(cell)) {
+                        setPosition(cell, boardWidth);
+                        return true;
+                    }
+                }
             }
+            if (cellCount > FREE_CELL_INDEX_MAX_CELLS) {
+                OccupancyGrid occupancy = snake.getOccupancy();
+                long n = (long) (random.nextDouble() * occupancy.getFreeCount());
+                setPosition(occupancy.nthFreeCell(n), boardWidth);
+                return true;
+            }
+            attachFreeCellIndex(snake, cellCount);
         }
 
-        freeCells.removeAll(snakeElements);
+        setPosition(freeCells.get(random.nextInt(freeCells.size())), boardWidth);
+        return true;
+    }
 
-        Random rand = new Random();
+    private void attachFreeCellIndex(Snake snake, int cellCount) {
+        if (freeCells == null) {
+            freeCells = new FreeCellIndex(cellCount);
+        } else {
+            freeCells.boardCleared();
+        }
+        SegmentView body = snake.getBody();
+        for (int i = 0; i < body.size(); i++) {
+            freeCells.cellOccupied(body.getCell(i));
+        }
+        snake.setCellListener(freeCells);
+    }
 
-        int randomIndex = rand.nextInt(freeCells.size());
-        position = freeCells.get(randomIndex);
+    private void setPosition(int cell, int boardWidth) {
+        position.x = cell % boardWidth;
+        position.y = cell / boardWidth;
     }
 
     public boolean isEaten(Vector2 snakeHead) {
         return snakeHead.x == position.x && snakeHead.y == position.y;
     }
-
-    public void draw(Graphics g, int elementSize, int drawOffset) {
-        g.drawImage(textureManager.APPLE_IMAGE, position.x * elementSize, position.y * elementSize + drawOffset, elementSize, elementSize, null);
-    }
 }
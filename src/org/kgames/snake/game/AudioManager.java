@@ -1,12 +1,13 @@
 package org.kgames.snake.game;
 
 import javax.sound.sampled.*;
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 
+// Sounds are decoded once and played through an AudioMixer, so effects overlap instead of
+// cutting each other off. The mixer's buffer size is set with -Dsnake.audioBufferFrames.
 public class AudioManager {
     public static final String BASE_FILEPATH = "/audio/";
 
@@ -16,10 +17,16 @@ public class AudioManager {
     public static final String SNAKE_MOVE_SOUND_PATH = BASE_FILEPATH + "move.wav";
 
     public static final String BACKGROUND_MUSIC_PATH = BASE_FILEPATH + "background_music.wav";
-    
-    private Map<String, Clip> soundCache = new HashMap<>();
-    private Clip backgroundMusic;
-    
+
+    // 512 frames is about 12 ms at 44.1 kHz
+    private static final int DEFAULT_BUFFER_FRAMES = 512;
+    private static final float EFFECT_VOLUME = 1.0f;
+    private static final float MUSIC_VOLUME = 0.5f;
+
+    private final Map<String, short[]> soundCache = new HashMap<>();
+    private AudioMixer mixer;
+    private AudioMixer.Voice backgroundMusic;
+
     public boolean loadSounds() {
         try {
             // Load all sound effects
@@ -27,65 +34,60 @@ public class AudioManager {
             //loadSound(SNAKE_DEATH_SOUND_PATH);
             //loadSound(SNAKE_MOVE_SOUND_PATH);
             //loadSound(BACKGROUND_MUSIC_PATH);
+            AudioMixer newMixer = new AudioMixer(Integer.getInteger("snake.audioBufferFrames", DEFAULT_BUFFER_FRAMES));
+            newMixer.start();
+            mixer = newMixer;
             return true;
         } catch (Exception e) {
             System.err.println("Failed to load sounds: " + e.getMessage());
             return false;
         }
     }
-    
-    private void loadSound(String path) throws IOException, UnsupportedAudioFileException, LineUnavailableException {
+
+    private void loadSound(String path) throws IOException, UnsupportedAudioFileException {
         InputStream is = getClass().getResourceAsStream(path);
         if (is == null) {
             throw new IOException("Sound file not found: " + path);
         }
-        
-        BufferedInputStream bis = new BufferedInputStream(is);
-        AudioInputStream ais = AudioSystem.getAudioInputStream(bis);
-        Clip clip = AudioSystem.getClip();
-        clip.open(ais);
-        soundCache.put(path, clip);
+        soundCache.put(path, AudioMixer.decode(is));
     }
-    
-    private void playSound(String path) {
-        Clip clip = soundCache.get(path);
-        if (clip != null) {
-            if (clip.isRunning()) {
-                clip.stop();
-            }
-            clip.setFramePosition(0);
-            clip.start();
+
+    private AudioMixer.Voice playSound(String path, float volume, boolean loop) {
+        short[] samples = soundCache.get(path);
+        if (samples == null || mixer == null) {
+            return null;
         }
+        return mixer.play(samples, volume, loop);
     }
-    
+
     public void playEatSound() {
-        playSound(SNAKE_EAT_SOUND_PATH);
+        playSound(SNAKE_EAT_SOUND_PATH, EFFECT_VOLUME, false);
     }
-    
+
     public void playDeathSound() {
-        playSound(SNAKE_DEATH_SOUND_PATH);
+        playSound(SNAKE_DEATH_SOUND_PATH, EFFECT_VOLUME, false);
     }
-    
+
     public void playMoveSound() {
-        playSound(SNAKE_MOVE_SOUND_PATH);
+        playSound(SNAKE_MOVE_SOUND_PATH, EFFECT_VOLUME, false);
     }
-    
+
     public void playBackgroundMusic() {
-        Clip clip = soundCache.get(BACKGROUND_MUSIC_PATH);
-        if (clip != null) {
-            backgroundMusic = clip;
-            if (clip.isRunning()) {
-                clip.stop();
-            }
-            clip.setFramePosition(0);
-            clip.loop(Clip.LOOP_CONTINUOUSLY);
-            clip.start();
-        }
+        stopBackgroundMusic();
+        backgroundMusic = playSound(BACKGROUND_MUSIC_PATH, MUSIC_VOLUME, true);
     }
-    
+
     public void stopBackgroundMusic() {
-        if (backgroundMusic != null && backgroundMusic.isRunning()) {
+        if (backgroundMusic != null) {
             backgroundMusic.stop();
+            backgroundMusic = null;
+        }
+    }
+
+    // Stops the mixer and releases the audio device
+    public void close() {
+        if (mixer != null) {
+            mixer.close();
         }
     }
 }
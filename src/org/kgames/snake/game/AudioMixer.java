@@ -0,0 +1,217 @@
+package org.kgames.snake.game;
+
+import javax.sound.sampled.*;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Software mixer that plays up to MAX_VOICES overlapping sounds through one SourceDataLine.
+// Sounds are decoded once into 16-bit mono PCM at SAMPLE_RATE (see decode()); play() starts a
+// voice on one of them with its own volume, without touching the audio device. A dedicated
+// high-priority thread mixes all playing voices one small buffer at a time and writes the result
+// to the line, which stays open and running for the life of the mixer. A sound therefore starts
+// at most about two buffers after play(); the buffer size is set per mixer, for the game with
+// -Dsnake.audioBufferFrames. When all voices are busy, the non-looping one playing longest is
+// replaced, so background music is never cut off by effects; if every voice loops, the new
+// sound is not played.
+public class AudioMixer {
+    public static final float SAMPLE_RATE = 44_100f;
+    // What sounds are decoded to
+    public static final AudioFormat SOUND_FORMAT = new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
+    // What the line plays; the mono mix goes to both channels, which every device supports
+    public static final AudioFormat LINE_FORMAT = new AudioFormat(SAMPLE_RATE, 16, 2, true, false);
+    public static final int MAX_VOICES = 32;
+    // The line holds this many mixed buffers, so one can play while the next is written
+    private static final int LINE_BUFFERS = 2;
+    // Voice volumes are applied as fixed-point factors with this many fraction bits
+    private static final int GAIN_BITS = 12;
+
+    // A sound playing on the mixer; stop() and setVolume() may be called from any thread
+    public static class Voice {
+        private final short[] samples;
+        private final boolean loop;
+        private volatile float volume;
+        private volatile boolean stopped = false;
+        private volatile boolean finished = false;
+        // Mixer thread only
+        private int position = 0;
+        // Mixer thread only; order in which voices started, for choosing one to replace
+        private long sequence;
+
+        private Voice(short[] samples, float volume, boolean loop) {
+            this.samples = samples;
+            this.volume = volume;
+            this.loop = loop;
+        }
+
+        // 1 plays the sound as decoded, 0 silences it
+        public void setVolume(float volume) {
+            this.volume = volume;
+        }
+
+        public float getVolume() {
+            return volume;
+        }
+
+        public void stop() {
+            stopped = true;
+        }
+
+        // True once the voice has played to its end, was stopped or was replaced
+        public boolean isFinished() {
+            return finished;
+        }
+    }
+
+    private final int bufferFrames;
+    // Voices started since the last buffer; any thread adds, the mixer thread takes
+    private final Queue<Voice> started = new ConcurrentLinkedQueue<>();
+    // Mixer thread only
+    private final Voice[] voices = new Voice[MAX_VOICES];
+    private final int[] mixBuffer;
+    private long nextSequence = 0;
+
+    private SourceDataLine line;
+    private Thread thread;
+    private volatile boolean running = false;
+
+    // bufferFrames is how many sample frames are mixed and written at a time
+    public AudioMixer(int bufferFrames) {
+        if (bufferFrames <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferFrames);
+        }
+        this.bufferFrames = bufferFrames;
+        this.mixBuffer = new int[bufferFrames];
+    }
+
+    // Opens the default output line and starts the mixer thread
+    public void start() throws LineUnavailableException {
+        byte[] output = new byte[bufferFrames * LINE_FORMAT.getFrameSize()];
+        line = AudioSystem.getSourceDataLine(LINE_FORMAT);
+        line.open(LINE_FORMAT, output.length * LINE_BUFFERS);
+        line.start();
+        running = true;
+        thread = new Thread(() -> {
+            while (running) {
+                mix(output);
+                // Blocks while the line is full, which paces the loop
+                line.write(output, 0, output.length);
+            }
+        }, "audio-mixer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    // Starts playing samples from SOUND_FORMAT; loop repeats them until the voice is stopped
+    public Voice play(short[] samples, float volume, boolean loop) {
+        Voice voice = new Voice(samples, volume, loop);
+        started.add(voice);
+        return voice;
+    }
+
+    // Mixes the next bufferFrames frames into output in LINE_FORMAT. Called by the mixer thread;
+    // public so the mix can be measured without an audio device.
+    public void mix(byte[] output) {
+        for (Voice voice; (voice = started.poll()) != null; ) {
+            addVoice(voice);
+        }
+        Arrays.fill(mixBuffer, 0);
+        for (int v = 0; v < voices.length; v++) {
+            Voice voice = voices[v];
+            if (voice == null) {
+                continue;
+            }
+            if (voice.stopped || !mixVoice(voice)) {
+                voice.finished = true;
+                voices[v] = null;
+            }
+        }
+        for (int i = 0, o = 0; i < bufferFrames; i++) {
+            int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mixBuffer[i]));
+            byte low = (byte) sample;
+            byte high = (byte) (sample >> 8);
+            output[o++] = low;
+            output[o++] = high;
+            output[o++] = low;
+            output[o++] = high;
+        }
+    }
+
+    private void addVoice(Voice voice) {
+        voice.sequence = nextSequence++;
+        int oldest = -1;
+        for (int v = 0; v < voices.length; v++) {
+            if (voices[v] == null) {
+                voices[v] = voice;
+                return;
+            }
+            if (!voices[v].loop && (oldest < 0 || voices[v].sequence < voices[oldest].sequence)) {
+                oldest = v;
+            }
+        }
+        if (oldest < 0) {
+            voice.finished = true;
+            return;
+        }
+        voices[oldest].finished = true;
+        voices[oldest] = voice;
+    }
+
+    // Adds one buffer of voice to the mix; returns false once it has played to its end
+    private boolean mixVoice(Voice voice) {
+        int gain = (int) (voice.volume * (1 << GAIN_BITS));
+        short[] samples = voice.samples;
+        int position = voice.position;
+        int i = 0;
+        while (i < bufferFrames) {
+            if (position == samples.length) {
+                if (!voice.loop || samples.length == 0) {
+                    voice.position = position;
+                    return false;
+                }
+                position = 0;
+            }
+            int count = Math.min(bufferFrames - i, samples.length - position);
+            for (int end = i + count; i < end; i++) {
+                mixBuffer[i] += (samples[position++] * gain) >> GAIN_BITS;
+            }
+        }
+        voice.position = position;
+        return voice.loop || position < samples.length;
+    }
+
+    public int getBufferFrames() {
+        return bufferFrames;
+    }
+
+    // Stops the mixer thread and closes the line
+    public void close() {
+        running = false;
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            line.close();
+        }
+    }
+
+    // Decodes a sound file into SOUND_FORMAT samples, converting rate, channels and sample size
+    public static short[] decode(InputStream in) throws IOException, UnsupportedAudioFileException {
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(new BufferedInputStream(in))) {
+            AudioInputStream pcm = source.getFormat().matches(SOUND_FORMAT)
+                    ? source : AudioSystem.getAudioInputStream(SOUND_FORMAT, source);
+            byte[] bytes = pcm.readAllBytes();
+            short[] samples = new short[bytes.length / 2];
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = (short) ((bytes[2 * i] & 0xFF) | (bytes[2 * i + 1] << 8));
+            }
+            return samples;
+        }
+    }
+}
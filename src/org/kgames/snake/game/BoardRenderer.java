@@ -0,0 +1,214 @@
+package org.kgames.snake.game;
+
+import java.awt.*;
+
+// Draws the snake and apple of a frame snapshot with the loaded textures.
+// Only what lies in the snapshot's view is drawn, with the view's top-left cell at the origin.
+// All AWT code lives here so the game rules stay usable without a display.
+public class BoardRenderer {
+    private static final int EATING_ANIMATION_FRAMES = 10;
+
+    // Constants for corner type identification
+    private static final int CORNER_TOP_RIGHT = 1001;
+    private static final int CORNER_TOP_LEFT = 1002;
+    private static final int CORNER_BOTTOM_RIGHT = 1003;
+    private static final int CORNER_BOTTOM_LEFT = 1004;
+
+    private final TextureManager textureManager;
+
+    private boolean isEating = false;
+    private int eatingFramesLeft = 0;
+    private int lastScore = 0;
+
+    public BoardRenderer(TextureManager tm) {
+        this.textureManager = tm;
+    }
+
+    private int calculateBodySegmentAngle(int beforeX, int beforeY, int currentX, int currentY, int afterX, int afterY) {
+        // Determine the direction vectors
+        int beforeDirX = currentX - beforeX;
+        int beforeDirY = currentY - beforeY;
+        int afterDirX = afterX - currentX;
+        int afterDirY = afterY - currentY;
+        
+        // Determine if there's a turn (before and after have different directions)
+        boolean isTurn = (beforeDirX != afterDirX || beforeDirY != afterDirY);
+        
+        // Default angle
+        int angle = 0;
+        
+        if (isTurn) {
+            if (beforeDirX > 0) { // Moving right then...
+                if (afterDirY < 0) { // ... up = top-left corner
+                    return CORNER_TOP_LEFT;
+                } else if (afterDirY > 0) { // ... down = bottom-left corner
+                    return CORNER_BOTTOM_LEFT;
+                }
+            } else if (beforeDirX < 0) { // Moving left then...
+                if (afterDirY < 0) { // ... up = top-right corner
+                    return CORNER_TOP_RIGHT;
+                } else if (afterDirY > 0) { // ... down = bottom-right corner
+                    return CORNER_BOTTOM_RIGHT;
+                }
+            } else if (beforeDirY < 0) { // Moving up then...
+                if (afterDirX > 0) { // ... right = bottom-right corner
+                    return CORNER_BOTTOM_RIGHT;
+                } else if (afterDirX < 0) { // ... left = bottom-left corner
+                    return CORNER_BOTTOM_LEFT;
+                }
+            } else if (beforeDirY > 0) { // Moving down then...
+                if (afterDirX > 0) { // ... right = top-right corner
+                    return CORNER_TOP_RIGHT;
+                } else if (afterDirX < 0) { // ... left = top-left corner
+                    return CORNER_TOP_LEFT;
+                }
+            }
+        } else {
+            if (beforeDirX != 0 || afterDirX != 0) {
+                angle = (beforeDirX > 0 || afterDirX > 0) ? 0 : 180;  // Horizontal
+            } else if (beforeDirY != 0 || afterDirY != 0) {
+                angle = (beforeDirY > 0 || afterDirY > 0) ? 90 : 270;  // Vertical
+            }
+        }
+        
+        return angle;
+    }
+    
+    // Calculate the appropriate rotation angle for the tail
+    private int calculateTailAngle(int secondLastX, int secondLastY, int lastX, int lastY) {
+        if (secondLastX < lastX) return 90;  // Tail points left
+        if (secondLastX > lastX) return 270; // Tail points right
+        if (secondLastY < lastY) return 180; // Tail points up
+        if (secondLastY > lastY) return 0;   // Tail points down
+        
+        return 0;
+    }
+
+    public void draw(Graphics g, FrameSnapshot frame, int elementSize, int drawOffset) {
+        // Re-scales the sprite atlas only when the cell size changed since the last frame
+        textureManager.ensureAtlas(elementSize);
+        updateEating(frame);
+        drawSnake(g, frame, elementSize, drawOffset);
+        drawApple(g, frame, elementSize, drawOffset);
+    }
+
+    // Advances the eating animation by one frame; returns true if the head sprite changed
+    boolean updateEating(FrameSnapshot frame) {
+        boolean wasEating = isEating;
+
+        // A score increase means an apple was eaten since the last frame
+        if (frame.getScore() > lastScore) {
+            isEating = true;
+            eatingFramesLeft = EATING_ANIMATION_FRAMES;
+        } else if (frame.getScore() < lastScore) {
+            isEating = false;
+        } else if (isEating) {
+            eatingFramesLeft--;
+            if (eatingFramesLeft <= 0) {
+                isEating = false;
+            }
+        }
+        lastScore = frame.getScore();
+
+        return wasEating != isEating;
+    }
+
+    // Draws the captured segments that can show up in the view
+    void drawSnake(Graphics g, FrameSnapshot frame, int elementSize, int drawOffset) {
+        int boardWidth = frame.getBoardWidth();
+        for (int k = 0; k < frame.getVisibleCount(); k++) {
+            int cell = frame.getVisibleCell(k);
+            if (frame.isNearView(cell % boardWidth, cell / boardWidth)) {
+                drawSegment(g, frame, k, elementSize, drawOffset);
+            }
+        }
+    }
+
+    // Draws the k-th captured segment, positioned relative to the view; segments must be drawn
+    // head first so overlaps match a full redraw
+    void drawSegment(Graphics g, FrameSnapshot frame, int k, int elementSize, int drawOffset) {
+        int boardWidth = frame.getBoardWidth();
+        int i = frame.getVisibleIndex(k);
+        int length = frame.size();
+        int cell = frame.getVisibleCell(k);
+        int segmentX = cell % boardWidth;
+        int segmentY = cell / boardWidth;
+        int x = (segmentX - frame.getViewX()) * elementSize;
+        int y = (segmentY - frame.getViewY()) * elementSize + drawOffset;
+
+        if (i == 0) {
+            int headSprite = isEating ? TextureManager.SPRITE_HEAD_EATING : TextureManager.SPRITE_HEAD;
+            textureManager.drawSprite(g, headSprite, frame.getHeadDirection(), x, y);
+            return;
+        }
+
+        int previous = frame.getVisiblePreviousCell(k);
+        int previousX = previous % boardWidth;
+        int previousY = previous / boardWidth;
+
+        // Draw the tail segment if snake has at least 2 segments
+        if (i == length - 1) {
+            int tailAngle = calculateTailAngle(previousX, previousY, segmentX, segmentY);
+            textureManager.drawSprite(g, TextureManager.SPRITE_TAIL_0 + frame.getTailAnimationFrame(), tailAngle, x, y);
+            return;
+        }
+
+        int next = frame.getVisibleNextCell(k);
+        int bodyAngleOrCornerType = calculateBodySegmentAngle(previousX, previousY,
+                segmentX, segmentY, next % boardWidth, next / boardWidth);
+
+        // Alternate body textures per segment rather than per index, so a segment keeps its
+        // texture while the snake moves and only the cells a tick touched need redrawing
+        int straightSprite = (frame.getSegmentSerial(i) & 1) == 0 ?
+                TextureManager.SPRITE_BODY : TextureManager.SPRITE_BODY_2;
+
+        int bodySprite;
+        int rotationAngle;
+
+        // Check if this is a corner segment
+        if (bodyAngleOrCornerType >= 1000) {
+            // Use the appropriate corner texture and rotation based on the corner type
+            rotationAngle = switch (bodyAngleOrCornerType) {
+                case CORNER_TOP_LEFT -> {
+                    bodySprite = TextureManager.SPRITE_CORNER_LEFT;
+                    yield 180;
+                }
+                case CORNER_TOP_RIGHT -> {
+                    bodySprite = TextureManager.SPRITE_CORNER_RIGHT;
+                    yield 180;
+                }
+                case CORNER_BOTTOM_LEFT -> {
+                    bodySprite = TextureManager.SPRITE_CORNER_LEFT;
+                    yield 90;
+                }
+                case CORNER_BOTTOM_RIGHT -> {
+                    bodySprite = TextureManager.SPRITE_CORNER_RIGHT;
+                    yield 270;
+                }
+                default -> {
+                    bodySprite = straightSprite;
+                    yield 0;
+                }
+            };
+        } else {
+            // For straight segments, use alternating body textures
+            bodySprite = straightSprite;
+            rotationAngle = bodyAngleOrCornerType;
+        }
+
+        textureManager.drawSprite(g, bodySprite, rotationAngle, x, y);
+    }
+
+    void drawApple(Graphics g, FrameSnapshot frame, int elementSize, int drawOffset) {
+        if (!frame.isNearView(frame.getAppleX(), frame.getAppleY())) {
+            return;
+        }
+        textureManager.drawSprite(g, TextureManager.SPRITE_APPLE, 0,
+                (frame.getAppleX() - frame.getViewX()) * elementSize,
+                (frame.getAppleY() - frame.getViewY()) * elementSize + drawOffset);
+    }
+
+    TextureManager getTextureManager() {
+        return textureManager;
+    }
+}
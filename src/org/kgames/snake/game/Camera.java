@@ -0,0 +1,44 @@
+package org.kgames.snake.game;
+
+// Window of board cells shown on screen. It keeps the snake's head centred and stops at
+// the board edges, so boards larger than the window scroll with the snake.
+public class Camera {
+    private final int maxColumns;
+    private final int maxRows;
+
+    private int x = 0;
+    private int y = 0;
+    private int columns;
+    private int rows;
+
+    public Camera(int maxColumns, int maxRows) {
+        this.maxColumns = maxColumns;
+        this.maxRows = maxRows;
+        this.columns = maxColumns;
+        this.rows = maxRows;
+    }
+
+    // Moves the view so (headX, headY) is in the middle, clamped to the board
+    public void follow(int headX, int headY, int boardWidth, int boardHeight) {
+        columns = Math.min(maxColumns, boardWidth);
+        rows = Math.min(maxRows, boardHeight);
+        x = Math.max(0, Math.min(headX - columns / 2, boardWidth - columns));
+        y = Math.max(0, Math.min(headY - rows / 2, boardHeight - rows));
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+}
@@ -0,0 +1,54 @@
+package org.kgames.snake.game;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Lock-free triple buffer of frame snapshots between one writer (the game loop) and one
+// reader (the EDT). The writer always has a private buffer to fill, the reader always has a
+// private buffer to draw, and the third slot holds the latest published frame. Publishing and
+// acquiring are a single atomic swap each, so neither side ever waits or sees a torn frame.
+public class FramePublisher {
+    private static final int INDEX_MASK = 0b11;
+    // Set on the shared slot when it holds a frame the reader has not taken yet
+    private static final int FRESH = 0b100;
+
+    private final FrameSnapshot[] buffers = {new FrameSnapshot(), new FrameSnapshot(), new FrameSnapshot()};
+    private final AtomicInteger shared = new AtomicInteger(2);
+
+    // Writer-owned
+    private int back = 0;
+
+    // Reader-owned
+    private int front = 1;
+    private boolean hasFrame = false;
+
+    // Writer: returns the private buffer to fill before publish()
+    public FrameSnapshot beginWrite() {
+        return buffers[back];
+    }
+
+    // Writer: makes the buffer from beginWrite() the latest frame
+    public void publish() {
+        back = shared.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    // Writer convenience: capture the state and publish it in one go
+    public void publish(GameState state) {
+        beginWrite().capture(state);
+        publish();
+    }
+
+    // Same, capturing only what the camera shows
+    public void publish(GameState state, Camera camera) {
+        beginWrite().capture(state, camera);
+        publish();
+    }
+
+    // Reader: returns the most recent frame, or null if nothing was ever published
+    public FrameSnapshot acquire() {
+        if ((shared.get() & FRESH) != 0) {
+            front = shared.getAndSet(front) & INDEX_MASK;
+            hasFrame = true;
+        }
+        return hasFrame ? buffers[front] : null;
+    }
+}
@@ -0,0 +1,265 @@
+package org.kgames.snake.game;
+
+import org.kgames.snake.util.Vector2;
+
+import java.util.Arrays;
+
+// Everything the renderer needs for one frame, copied out of the engine into primitive buffers.
+// Instances are pooled by FramePublisher: the game thread fills one, and once published it is
+// only read until the publisher hands it back for reuse.
+// On boards larger than the view only the segments around the view are captured.
+public class FrameSnapshot implements SegmentView {
+    private int[] cells = new int[16];
+    private int length = 0;
+    private int boardWidth = 0;
+    private int boardHeight = 0;
+    private long headSerial = 0;
+
+    // Board cells covered by the view
+    private int viewX = 0;
+    private int viewY = 0;
+    private int viewColumns = 0;
+    private int viewRows = 0;
+
+    // False when only the segments near the view were captured; cells then stays empty and
+    // the visible* arrays hold each captured segment with its neighbours
+    private boolean complete = true;
+    private int visibleCount = 0;
+    private int[] visibleIndex = new int[0];
+    private int[] visibleCell = new int[0];
+    private int[] visiblePrevious = new int[0];
+    private int[] visibleNext = new int[0];
+
+    private int headDirection = 0;
+    private int tailAnimationFrame = 0;
+    private int appleX = 0;
+    private int appleY = 0;
+    private int score = 0;
+    private int difficulty = 0;
+    private long tick = 0;
+    private boolean over = false;
+
+    // Copies the current state with the whole board in view; must run on the thread that
+    // advances the engine
+    public void capture(GameState state) {
+        capture(state, 0, 0, state.getBoardWidth(), state.getBoardHeight());
+    }
+
+    // Copies the current state as seen through the camera
+    public void capture(GameState state, Camera camera) {
+        capture(state, camera.getX(), camera.getY(), camera.getColumns(), camera.getRows());
+    }
+
+    private void capture(GameState state, int viewX, int viewY, int viewColumns, int viewRows) {
+        Snake snake = state.getSnake();
+        SegmentView body = snake.getBody();
+        length = body.size();
+        boardWidth = state.getBoardWidth();
+        boardHeight = state.getBoardHeight();
+        this.viewX = viewX;
+        this.viewY = viewY;
+        this.viewColumns = viewColumns;
+        this.viewRows = viewRows;
+        headSerial = body instanceof SnakeBody snakeBody ? snakeBody.getHeadSerial() : length;
+
+        // Sprites reach one cell past the view, so segments just outside it still matter
+        long windowCells = (long) (viewColumns + 2) * (viewRows + 2);
+        complete = length <= windowCells || !(body instanceof SnakeBody);
+        if (complete) {
+            // A short snake is cheaper to copy whole than to look up cell by cell
+            captureBody(body);
+        } else {
+            captureWindow(snake.getOccupancy(), body);
+        }
+
+        headDirection = snake.getHeadDirection();
+        tailAnimationFrame = snake.getTailAnimationFrame();
+        Vector2 apple = state.getApple().getPosition();
+        appleX = apple.x;
+        appleY = apple.y;
+        score = state.score();
+        difficulty = state.getDifficulty();
+        tick = state.getTick();
+        over = state.isOver();
+    }
+
+    private void captureBody(SegmentView body) {
+        if (cells.length < length) {
+            cells = new int[Math.max(length, cells.length * 2)];
+        }
+        if (body instanceof SnakeBody snakeBody) {
+            snakeBody.copyTo(cells);
+        } else {
+            for (int i = 0; i < length; i++) {
+                cells[i] = body.getCell(i);
+            }
+        }
+        visibleCount = length;
+    }
+
+    // Finds the segments around the view through the occupancy grid, so the cost follows the
+    // view size rather than the snake length
+    private void captureWindow(OccupancyGrid occupancy, SegmentView body) {
+        int minX = Math.max(0, viewX - 1);
+        int minY = Math.max(0, viewY - 1);
+        int maxX = Math.min(boardWidth - 1, viewX + viewColumns);
+        int maxY = Math.min(boardHeight - 1, viewY + viewRows);
+        int capacity = (maxX - minX + 1) * (maxY - minY + 1);
+        if (visibleIndex.length < capacity) {
+            visibleIndex = new int[capacity];
+            visibleCell = new int[capacity];
+            visiblePrevious = new int[capacity];
+            visibleNext = new int[capacity];
+        }
+
+        int count = 0;
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                if (occupancy.isOccupied(x, y)) {
+                    visibleIndex[count++] = (int) headSerial - occupancy.getSerial(x, y);
+                }
+            }
+        }
+        // Head first, the order a full redraw uses
+        Arrays.sort(visibleIndex, 0, count);
+        for (int k = 0; k < count; k++) {
+            int index = visibleIndex[k];
+            visibleCell[k] = body.getCell(index);
+            visiblePrevious[k] = index > 0 ? body.getCell(index - 1) : -1;
+            visibleNext[k] = index < length - 1 ? body.getCell(index + 1) : -1;
+        }
+        visibleCount = count;
+    }
+
+    // Number of captured segments, in head-to-tail order
+    public int getVisibleCount() {
+        return visibleCount;
+    }
+
+    // Body index of the k-th captured segment
+    public int getVisibleIndex(int k) {
+        return complete ? k : visibleIndex[k];
+    }
+
+    public int getVisibleCell(int k) {
+        return complete ? cells[k] : visibleCell[k];
+    }
+
+    // Cell of the segment towards the head, or -1 for the head itself
+    public int getVisiblePreviousCell(int k) {
+        if (complete) {
+            return k > 0 ? cells[k - 1] : -1;
+        }
+        return visiblePrevious[k];
+    }
+
+    // Cell of the segment towards the tail, or -1 for the tail itself
+    public int getVisibleNextCell(int k) {
+        if (complete) {
+            return k < length - 1 ? cells[k + 1] : -1;
+        }
+        return visibleNext[k];
+    }
+
+    // True if every segment was captured, which the SegmentView methods require
+    public boolean isComplete() {
+        return complete;
+    }
+
+    // True if the view shows the entire board
+    public boolean coversBoard() {
+        return viewX == 0 && viewY == 0 && viewColumns == boardWidth && viewRows == boardHeight;
+    }
+
+    // True if something on the cell can show up in the view
+    public boolean isNearView(int x, int y) {
+        return x >= viewX - 1 && y >= viewY - 1 && x <= viewX + viewColumns && y <= viewY + viewRows;
+    }
+
+    @Override
+    public int size() {
+        return length;
+    }
+
+    @Override
+    public int getCell(int index) {
+        return cells[index];
+    }
+
+    @Override
+    public int getX(int index) {
+        return cells[index] % boardWidth;
+    }
+
+    @Override
+    public int getY(int index) {
+        return cells[index] / boardWidth;
+    }
+
+    @Override
+    public int getBoardWidth() {
+        return boardWidth;
+    }
+
+    @Override
+    public int getBoardHeight() {
+        return boardHeight;
+    }
+
+    public int getViewX() {
+        return viewX;
+    }
+
+    public int getViewY() {
+        return viewY;
+    }
+
+    public int getViewColumns() {
+        return viewColumns;
+    }
+
+    public int getViewRows() {
+        return viewRows;
+    }
+
+    // Stable per-segment number that does not change as the snake moves
+    public long getSegmentSerial(int index) {
+        return headSerial - index;
+    }
+
+    public long getHeadSerial() {
+        return headSerial;
+    }
+
+    public int getHeadDirection() {
+        return headDirection;
+    }
+
+    public int getTailAnimationFrame() {
+        return tailAnimationFrame;
+    }
+
+    public int getAppleX() {
+        return appleX;
+    }
+
+    public int getAppleY() {
+        return appleY;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getDifficulty() {
+        return difficulty;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public boolean isOver() {
+        return over;
+    }
+}
@@ -0,0 +1,54 @@
+package org.kgames.snake.game;
+
+// Dense list of free board cells with a reverse slot lookup.
+// Cells are removed by swapping the last entry into their slot, so occupying,
+// releasing and picking a random free cell are all O(1) and never allocate.
+public class FreeCellIndex implements Snake.CellListener {
+    private final int[] cells;
+    private final int[] slots; // cell -> slot in cells, or -1 while occupied
+    private int size;
+
+    public FreeCellIndex(int cellCount) {
+        this.cells = new int[cellCount];
+        this.slots = new int[cellCount];
+        boardCleared();
+    }
+
+    @Override
+    public void cellOccupied(int cell) {
+        int slot = slots[cell];
+        if (slot < 0) {
+            return;
+        }
+        int last = cells[--size];
+        cells[slot] = last;
+        slots[last] = slot;
+        slots[cell] = -1;
+    }
+
+    @Override
+    public void cellFreed(int cell) {
+        if (slots[cell] >= 0) {
+            return;
+        }
+        cells[size] = cell;
+        slots[cell] = size++;
+    }
+
+    @Override
+    public void boardCleared() {
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = i;
+            slots[i] = i;
+        }
+        size = cells.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(int index) {
+        return cells[index];
+    }
+}
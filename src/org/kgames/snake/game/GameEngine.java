@@ -0,0 +1,158 @@
+package org.kgames.snake.game;
+
+import java.util.Random;
+
+// Game rules without any AWT or Swing dependency.
+// Each call to step() advances the game by exactly one tick, so it can be driven
+// by the Swing loop or run headless as fast as the CPU allows.
+public class GameEngine implements GameState {
+    // Bit flags returned by step()
+    public static final int EVENT_NONE = 0;
+    public static final int EVENT_ATE = 1;
+    public static final int EVENT_DIED = 2;
+
+    private static final double[] BASE_SPEEDS = {5.0, 7.0, 9.0, 12.0}; // Easy, Medium, Hard, Impossible
+    private static final double[] MAX_SPEEDS = {9.0, 12.0, 17.0, 25.0}; // Easy, Medium, Hard, Impossible
+    public static final int DIFFICULTY_COUNT = BASE_SPEEDS.length;
+    private static final int SPEED_INCREASE_THRESHOLD = 5;
+    private static final double SPEED_INCREASE_FACTOR = 0.1;
+
+    private final int boardWidth;
+    private final int boardHeight;
+    private final Random random = new Random();
+    private final Snake snake;
+    private final Apple apple;
+
+    private int difficulty;
+    private int score = 0;
+    private long tick = 0;
+    private boolean over = false;
+
+    public GameEngine(int boardSize, int difficulty) {
+        this(boardSize, boardSize, difficulty);
+    }
+
+    public GameEngine(int boardWidth, int boardHeight, int difficulty) {
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        this.difficulty = difficulty;
+        this.snake = new Snake(boardWidth, boardHeight);
+        this.apple = new Apple(boardWidth, boardHeight, random);
+        reset(System.nanoTime());
+    }
+
+    // Starts a new game; the same seed always produces the same apple sequence
+    public void reset(long seed) {
+        random.setSeed(seed);
+        snake.init();
+        apple.reset(boardWidth, boardHeight);
+        score = 0;
+        tick = 0;
+        over = false;
+        updateSnakeSpeed();
+    }
+
+    // Applies an optional direction change and advances one tick; returns EVENT_* flags
+    public int step(Direction direction) {
+        if (over) {
+            return EVENT_NONE;
+        }
+        if (direction != null) {
+            setDirection(direction);
+        }
+
+        snake.move();
+        tick++;
+
+        if (snake.checkCollision()) {
+            over = true;
+            return EVENT_DIED;
+        }
+        if (apple.isEaten(snake.getHead())) {
+            snake.grow();
+            score++;
+
+            // Check if we need to increase speed
+            if (score % SPEED_INCREASE_THRESHOLD == 0) {
+                updateSnakeSpeed();
+            }
+
+            // No free cell left means the snake filled the board
+            if (!apple.place(snake)) {
+                over = true;
+            }
+            return EVENT_ATE;
+        }
+        return EVENT_NONE;
+    }
+
+    public void setDirection(Direction direction) {
+        snake.setDirection(direction.dx, direction.dy);
+    }
+
+    // Update the snake's speed based on the current difficulty and score
+    private void updateSnakeSpeed() {
+        double baseSpeed = BASE_SPEEDS[difficulty];
+        double maxSpeed = MAX_SPEEDS[difficulty];
+
+        double currentSpeed = baseSpeed;
+
+        if (score > 0) {
+            int speedIncrements = score / SPEED_INCREASE_THRESHOLD;
+            double speedMultiplier = 1.0 + (speedIncrements * SPEED_INCREASE_FACTOR);
+            currentSpeed = Math.min(baseSpeed * speedMultiplier, maxSpeed);
+        }
+
+        snake.setSpeedFactor(currentSpeed);
+    }
+
+    public void setDifficulty(int difficulty) {
+        this.difficulty = difficulty;
+        updateSnakeSpeed();
+    }
+
+    // Ticks per second at the current difficulty and score
+    public double getSpeedFactor() {
+        return snake.getSpeedFactor();
+    }
+
+    @Override
+    public int score() {
+        return score;
+    }
+
+    @Override
+    public boolean isOver() {
+        return over;
+    }
+
+    @Override
+    public long getTick() {
+        return tick;
+    }
+
+    @Override
+    public int getDifficulty() {
+        return difficulty;
+    }
+
+    @Override
+    public int getBoardWidth() {
+        return boardWidth;
+    }
+
+    @Override
+    public int getBoardHeight() {
+        return boardHeight;
+    }
+
+    @Override
+    public Snake getSnake() {
+        return snake;
+    }
+
+    @Override
+    public Apple getApple() {
+        return apple;
+    }
+}
@@ -0,0 +1,148 @@
+package org.kgames.snake.game;
+
+import org.kgames.snake.metrics.GameMetrics;
+
+import java.util.concurrent.locks.LockSupport;
+
+// Fixed-timestep loop running on one long-lived daemon thread.
+// Ticks are accumulated at the interval reported by the callbacks, rendering happens at its
+// own rate with the interpolation alpha between the last two ticks, and the thread parks
+// until the next deadline instead of polling. Between games the thread stays parked.
+public class GameLoop {
+    // Upper bound on catch-up ticks per wake-up, so a long stall cannot snowball
+    private static final int MAX_CATCH_UP_TICKS = 5;
+
+    public interface Callbacks {
+        // Runs on the loop thread before the first tick of a session
+        default void begin() {
+        }
+
+        // Nanoseconds between ticks; read again after every tick so speed changes apply at once
+        long tickIntervalNanos();
+
+        // Advances the game one step; returning false ends the session
+        boolean tick();
+
+        // alpha is the fraction of the next tick interval already elapsed, in [0, 1)
+        void render(double alpha);
+    }
+
+    private final Thread thread;
+    private volatile long renderIntervalNanos;
+    // Optional; records tick times, allocation and catch-up ticks
+    private volatile GameMetrics metrics;
+
+    // Guarded by this; the loop thread reads them through the volatile fields
+    private volatile Callbacks callbacks;
+    private volatile boolean running = false;
+    private volatile int session = 0;
+
+    public GameLoop(String name, int renderFps) {
+        setRenderRate(renderFps);
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void setRenderRate(int renderFps) {
+        this.renderIntervalNanos = 1_000_000_000L / Math.max(1, renderFps);
+    }
+
+    public void setMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Starts a new session, replacing any session still running
+    public synchronized void start(Callbacks callbacks) {
+        this.callbacks = callbacks;
+        session++;
+        running = true;
+        LockSupport.unpark(thread);
+    }
+
+    public synchronized void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private synchronized void finish(int finishedSession) {
+        if (session == finishedSession) {
+            running = false;
+        }
+    }
+
+    private void run() {
+        while (true) {
+            while (!running) {
+                LockSupport.park(this);
+            }
+            runSession(callbacks, session);
+        }
+    }
+
+    private void runSession(Callbacks current, int currentSession) {
+        current.begin();
+        GameMetrics sessionMetrics = metrics;
+        int ticksSinceRender = 0;
+        long previousTime = System.nanoTime();
+        long nextRenderTime = previousTime;
+        long accumulatedTime = 0;
+
+        while (running && session == currentSession) {
+            long currentTime = System.nanoTime();
+            accumulatedTime += currentTime - previousTime;
+            previousTime = currentTime;
+
+            long updateInterval = current.tickIntervalNanos();
+            int ticks = 0;
+            while (accumulatedTime >= updateInterval) {
+                boolean more;
+                if (sessionMetrics != null) {
+                    long tickStart = sessionMetrics.tickStarted();
+                    more = current.tick();
+                    sessionMetrics.tickFinished(tickStart);
+                } else {
+                    more = current.tick();
+                }
+                if (!more) {
+                    finish(currentSession);
+                    return;
+                }
+                ticksSinceRender++;
+                accumulatedTime -= updateInterval;
+                updateInterval = current.tickIntervalNanos();
+
+                if (++ticks == MAX_CATCH_UP_TICKS && accumulatedTime >= updateInterval) {
+                    // Drop the backlog rather than fast-forwarding the game
+                    accumulatedTime = 0;
+                    if (sessionMetrics != null) {
+                        sessionMetrics.backlogDropped();
+                    }
+                    break;
+                }
+            }
+
+            if (currentTime >= nextRenderTime) {
+                if (sessionMetrics != null) {
+                    sessionMetrics.recordCatchUp(ticksSinceRender);
+                }
+                ticksSinceRender = 0;
+                current.render((double) accumulatedTime / updateInterval);
+                nextRenderTime += renderIntervalNanos;
+                if (nextRenderTime <= currentTime) {
+                    nextRenderTime = currentTime + renderIntervalNanos;
+                }
+            }
+
+            long nextTickTime = currentTime + (updateInterval - accumulatedTime);
+            long waitTime = Math.min(nextTickTime, nextRenderTime) - System.nanoTime();
+            if (waitTime > 0) {
+                LockSupport.parkNanos(this, waitTime);
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.kgames.snake.game;
+
+// Read access to a running game, independent of how it is displayed
+public interface GameState {
+    int score();
+
+    boolean isOver();
+
+    long getTick();
+
+    int getDifficulty();
+
+    int getBoardWidth();
+
+    int getBoardHeight();
+
+    Snake getSnake();
+
+    Apple getApple();
+}
@@ -0,0 +1,208 @@
+package org.kgames.snake.game;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+// Keeps the board in a persistent back buffer and redraws only the cells a tick changed:
+// the new head, the old head, the tail, the vacated tail cell and the old and new apple.
+// Render cost per tick is therefore constant no matter how long the snake is. The whole
+// board is redrawn only after a resize, a new game, or when frames were skipped. When the
+// camera shows only part of a larger board the view scrolls with the head, so every frame
+// is a full redraw of the view.
+//
+// Sprites can extend one pixel past their cell, so a dirty cell is cleared together with a
+// one-pixel margin and every sprite in its 3x3 neighbourhood is redrawn in full-draw order.
+// The result is pixel-identical to BoardRenderer.draw(). Must only be used from the EDT.
+public class IncrementalBoardRenderer {
+    // Pixels a sprite may reach outside its own cell
+    private static final int SPRITE_MARGIN = 1;
+    private static final int MAX_DIRTY_CELLS = 8;
+
+    private final BoardRenderer boardRenderer;
+
+    private BufferedImage backBuffer;
+    private int elementSize = -1;
+    private int viewColumns = -1;
+    private int viewRows = -1;
+    private int boardWidth = -1;
+    private int boardHeight = -1;
+
+    // Cell -> serial of the segment last drawn there; stale entries are rejected by indexAt()
+    private int[] serialAt = new int[0];
+
+    // False until the back buffer holds a complete board and its cell map
+    private boolean valid = false;
+    private long drawnTick = -1;
+    private int drawnTailCell = -1;
+    private int drawnAppleCell = -1;
+
+    private final int[] dirtyCells = new int[MAX_DIRTY_CELLS];
+    private int dirtyCount = 0;
+    private final int[] neighbours = new int[9];
+
+    public IncrementalBoardRenderer(BoardRenderer boardRenderer) {
+        this.boardRenderer = boardRenderer;
+    }
+
+    // Brings the back buffer up to date with the frame and blits it at drawOffset.
+    // Returns true if the whole board was redrawn, so the caller can repaint all of it.
+    public boolean paint(Graphics g, FrameSnapshot frame, int elementSize, int drawOffset) {
+        boardRenderer.getTextureManager().ensureAtlas(elementSize);
+        boolean headChanged = boardRenderer.updateEating(frame);
+
+        boolean fullRedraw = false;
+        if (backBuffer == null || elementSize != this.elementSize
+                || frame.getViewColumns() != viewColumns || frame.getViewRows() != viewRows) {
+            allocate(g, frame, elementSize);
+            fullRedraw = true;
+        } else if (!valid || !frame.coversBoard()
+                || frame.getBoardWidth() != boardWidth || frame.getBoardHeight() != boardHeight) {
+            fullRedraw = true;
+        } else if (frame.getTick() == drawnTick + 1) {
+            collectTickCells(frame);
+        } else if (frame.getTick() != drawnTick) {
+            // Skipped ticks or a new game
+            fullRedraw = true;
+        }
+        if (headChanged && !fullRedraw) {
+            addDirty(frame.getCell(0));
+        }
+
+        if (fullRedraw) {
+            redrawAll(frame);
+        } else {
+            redrawDirtyCells(frame);
+        }
+        // A scrolling view leaves no cell map behind, so its successor is redrawn in full too
+        valid = frame.coversBoard();
+        drawnTick = frame.getTick();
+        drawnTailCell = frame.isComplete() ? frame.getCell(frame.size() - 1) : -1;
+        drawnAppleCell = frame.getAppleY() * boardWidth + frame.getAppleX();
+
+        g.drawImage(backBuffer, 0, drawOffset, null);
+        return fullRedraw;
+    }
+
+    // Forces a full redraw on the next paint
+    public void invalidate() {
+        valid = false;
+    }
+
+    private void allocate(Graphics g, FrameSnapshot frame, int elementSize) {
+        this.elementSize = elementSize;
+        this.viewColumns = frame.getViewColumns();
+        this.viewRows = frame.getViewRows();
+        GraphicsConfiguration gc = ((Graphics2D) g).getDeviceConfiguration();
+        backBuffer = gc.createCompatibleImage(viewColumns * elementSize, viewRows * elementSize, Transparency.OPAQUE);
+    }
+
+    private void collectTickCells(FrameSnapshot frame) {
+        serialAt[frame.getCell(0)] = (int) frame.getHeadSerial();
+
+        addDirty(drawnTailCell);
+        addDirty(drawnAppleCell);
+        addDirty(frame.getCell(0));
+        addDirty(frame.getCell(1));
+        addDirty(frame.getCell(frame.size() - 1));
+        addDirty(frame.getAppleY() * boardWidth + frame.getAppleX());
+    }
+
+    private void addDirty(int cell) {
+        for (int i = 0; i < dirtyCount; i++) {
+            if (dirtyCells[i] == cell) {
+                return;
+            }
+        }
+        dirtyCells[dirtyCount++] = cell;
+    }
+
+    private void redrawAll(FrameSnapshot frame) {
+        dirtyCount = 0;
+        boardWidth = frame.getBoardWidth();
+        boardHeight = frame.getBoardHeight();
+        Graphics2D g2d = backBuffer.createGraphics();
+        g2d.setColor(Color.BLACK);
+        g2d.fillRect(0, 0, backBuffer.getWidth(), backBuffer.getHeight());
+        boardRenderer.drawSnake(g2d, frame, elementSize, 0);
+        boardRenderer.drawApple(g2d, frame, elementSize, 0);
+        g2d.dispose();
+
+        // The cell map is only needed while the next frame can be drawn incrementally
+        if (frame.coversBoard()) {
+            if (serialAt.length != boardWidth * boardHeight) {
+                serialAt = new int[boardWidth * boardHeight];
+            }
+            for (int i = 0; i < frame.size(); i++) {
+                serialAt[frame.getCell(i)] = (int) frame.getSegmentSerial(i);
+            }
+        }
+    }
+
+    private void redrawDirtyCells(FrameSnapshot frame) {
+        if (dirtyCount == 0) {
+            return;
+        }
+        Graphics2D g2d = backBuffer.createGraphics();
+        g2d.setColor(Color.BLACK);
+        int appleCell = frame.getAppleY() * boardWidth + frame.getAppleX();
+
+        for (int d = 0; d < dirtyCount; d++) {
+            int cell = dirtyCells[d];
+            int cellX = cell % boardWidth;
+            int cellY = cell / boardWidth;
+
+            int x = cellX * elementSize - SPRITE_MARGIN;
+            int y = cellY * elementSize - SPRITE_MARGIN;
+            int size = elementSize + 2 * SPRITE_MARGIN;
+            g2d.setClip(x, y, size, size);
+            g2d.fillRect(x, y, size, size);
+
+            // Gather the segments around the cell and draw them head first, like a full redraw
+            int count = 0;
+            boolean appleNearby = false;
+            for (int ny = cellY - 1; ny <= cellY + 1; ny++) {
+                for (int nx = cellX - 1; nx <= cellX + 1; nx++) {
+                    if (nx < 0 || ny < 0 || nx >= boardWidth || ny >= boardHeight) {
+                        continue;
+                    }
+                    int neighbour = ny * boardWidth + nx;
+                    int index = indexAt(frame, neighbour);
+                    if (index >= 0) {
+                        neighbours[count++] = index;
+                    }
+                    appleNearby |= neighbour == appleCell;
+                }
+            }
+            sortAscending(neighbours, count);
+            for (int i = 0; i < count; i++) {
+                boardRenderer.drawSegment(g2d, frame, neighbours[i], elementSize, 0);
+            }
+            if (appleNearby) {
+                boardRenderer.drawApple(g2d, frame, elementSize, 0);
+            }
+        }
+        g2d.dispose();
+        dirtyCount = 0;
+    }
+
+    // Segment index covering the cell in this frame, or -1 if the cell is empty
+    private int indexAt(FrameSnapshot frame, int cell) {
+        int index = (int) frame.getHeadSerial() - serialAt[cell];
+        if (index < 0 || index >= frame.size() || frame.getCell(index) != cell) {
+            return -1;
+        }
+        return index;
+    }
+
+    private static void sortAscending(int[] values, int count) {
+        for (int i = 1; i < count; i++) {
+            int value = values[i];
+            int j = i - 1;
+            while (j >= 0 && values[j] > value) {
+                values[j + 1] = values[j];
+                j--;
+            }
+            values[j + 1] = value;
+        }
+    }
+}
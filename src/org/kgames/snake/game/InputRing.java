@@ -0,0 +1,93 @@
+package org.kgames.snake.game;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lock-free single-producer/single-consumer ring of timestamped direction inputs.
+// The EDT offers key presses and the loop thread takes at most one usable turn per tick,
+// so rapid sequences such as UP, LEFT within one tick are applied on consecutive ticks
+// instead of being dropped or overwriting each other. Each side only ever advances its own
+// index, published with release/acquire ordering, so neither side locks or waits.
+public class InputRing {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int capacity;
+    private final int mask;
+    private final byte[] directions;
+    private final long[] timestamps;
+
+    // Next slot to write; advanced only by the producer
+    private final AtomicLong tail = new AtomicLong();
+    // Next slot to read; advanced only by the consumer
+    private final AtomicLong head = new AtomicLong();
+    // Inputs rejected because the ring was full; written only by the producer
+    private volatile long droppedCount = 0;
+
+    // Consumer-owned
+    private long lastTimestamp = 0;
+
+    public InputRing(int depth) {
+        // Power of two so slots wrap with a mask
+        this.capacity = Integer.highestOneBit(Math.max(depth, 2) - 1) << 1;
+        this.mask = capacity - 1;
+        this.directions = new byte[capacity];
+        this.timestamps = new long[capacity];
+    }
+
+    // Producer: queues a direction pressed at timestampNanos; returns false if the ring is full
+    public boolean offer(Direction direction, long timestampNanos) {
+        long t = tail.get();
+        if (t - head.getAcquire() >= capacity) {
+            droppedCount++;
+            return false;
+        }
+        int slot = (int) t & mask;
+        directions[slot] = (byte) direction.ordinal();
+        timestamps[slot] = timestampNanos;
+        tail.setRelease(t + 1);
+        return true;
+    }
+
+    // Consumer: returns the oldest input that turns a snake moving at (velX, velY), or null.
+    // Inputs before it that repeat or reverse the current direction are discarded; inputs
+    // after it stay queued for the following ticks.
+    public Direction pollTurn(int velX, int velY) {
+        long h = head.get();
+        long t = tail.getAcquire();
+        Direction turn = null;
+        while (h < t && turn == null) {
+            int slot = (int) h & mask;
+            Direction direction = DIRECTIONS[directions[slot]];
+            h++;
+            boolean repeat = direction.dx == velX && direction.dy == velY;
+            boolean reverse = (velX != 0 && direction.dx == -velX) || (velY != 0 && direction.dy == -velY);
+            if (!repeat && !reverse) {
+                turn = direction;
+                lastTimestamp = timestamps[slot];
+            }
+        }
+        head.setRelease(h);
+        return turn;
+    }
+
+    // Consumer: drops everything queued, e.g. when a new game starts
+    public void clear() {
+        head.setRelease(tail.getAcquire());
+    }
+
+    // Consumer: timestamp of the input last returned by pollTurn()
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public int size() {
+        return (int) (tail.getAcquire() - head.getAcquire());
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
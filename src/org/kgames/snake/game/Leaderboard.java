@@ -7,17 +7,32 @@ import java.util.List;
 
 public class Leaderboard {
     private static final String SAVES_DIR = "saves";
-    private static final String BASE_FILEPATH = SAVES_DIR + File.separator + "leaderboard_";
-    private static final int MAX_SCORES = 10;
+    public static final int MAX_SCORES = 10;
     
     private List<Score> scores;
     private int difficulty;
+    private final LeaderboardStore store;
+    // Set for boards kept by a LeaderboardRepository, which saves them in the background
+    private final LeaderboardRepository repository;
     
     public Leaderboard(int difficulty) {
+        this(difficulty, new File(SAVES_DIR));
+    }
+
+    public Leaderboard(int difficulty, File savesDir) {
         this.difficulty = difficulty;
+        this.store = new LeaderboardStore(savesDir);
+        this.repository = null;
         this.scores = new ArrayList<>();
         loadScores();
     }
+
+    Leaderboard(int difficulty, List<Score> scores, LeaderboardStore store, LeaderboardRepository repository) {
+        this.difficulty = difficulty;
+        this.store = store;
+        this.repository = repository;
+        this.scores = scores;
+    }
     
     public boolean isHighScore(int score) {
         if (scores.size() < MAX_SCORES) {
@@ -50,41 +65,16 @@ public class Leaderboard {
     }
     
     public void loadScores() {
-        // Create saves directory if it doesn't exist
-        File savesDir = new File(SAVES_DIR);
-        if (!savesDir.exists()) {
-            savesDir.mkdir();
-        }
-
-        String filepath = BASE_FILEPATH + difficulty + ".dat";
-        File file = new File(filepath);
-        
-        if (!file.exists()) {
-            return;
-        }
-        
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-            @SuppressWarnings("unchecked")
-            List<Score> loadedScores = (List<Score>) ois.readObject();
-            scores = loadedScores;
-        } catch (IOException | ClassNotFoundException e) {
-            System.err.println("Error loading leaderboard: " + e.getMessage());
-            scores = new ArrayList<>();
-        }
+        scores = store.load(difficulty);
     }
-    
+
     private void saveScores() {
-        // Create saves directory if it doesn't exist
-        File savesDir = new File(SAVES_DIR);
-        if (!savesDir.exists()) {
-            savesDir.mkdir();
+        if (repository != null) {
+            repository.scheduleSave(difficulty, List.copyOf(scores));
+            return;
         }
-
-        String filepath = BASE_FILEPATH + difficulty + ".dat";
         try {
-            try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filepath))) {
-                oos.writeObject(scores);
-            }
+            store.save(difficulty, scores);
         } catch (IOException e) {
             System.err.println("Error saving leaderboard: " + e.getMessage());
         }
@@ -0,0 +1,172 @@
+package org.kgames.snake.game;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Keeps the leaderboard of every difficulty in memory and saves changes on a background thread.
+// Switching difficulty or opening the leaderboard screen never touches the disk, and adding a
+// score only hands a copy of the board to the writer. Saves are coalesced: while the writer is
+// busy, newer copies of a board replace older ones that have not been written yet.
+// close() writes whatever is still pending; call it on shutdown.
+// Every finished game, high score or not, is also ranked in a RankingIndex for rank and percentile
+// queries. Those games are kept in saves/games.log and ranked again from it on the next start;
+// the first start without a log seeds it with the scores on the boards.
+public class LeaderboardRepository {
+    private static final String GAMES_LOG = "games.log";
+
+    private final LeaderboardStore store;
+    private final Leaderboard[] boards;
+    private final RankingIndex ranking;
+    // Null if the log could not be opened; games are then ranked only until the game exits
+    private final ScoreLog games;
+    private final Thread writer;
+
+    // Guarded by this; newest unsaved copy of each changed board, by difficulty
+    private final Map<Integer, List<Leaderboard.Score>> pending = new HashMap<>();
+    private boolean writing = false;
+    private boolean closed = false;
+
+    public LeaderboardRepository(File savesDir, int difficultyCount) {
+        this.store = new LeaderboardStore(savesDir);
+        this.boards = new Leaderboard[difficultyCount];
+        this.ranking = new RankingIndex(difficultyCount);
+        for (int difficulty = 0; difficulty < difficultyCount; difficulty++) {
+            boards[difficulty] = new Leaderboard(difficulty, store.load(difficulty), store, this);
+        }
+        this.games = openGamesLog(savesDir.toPath().resolve(GAMES_LOG));
+        writer = new Thread(this::writeLoop, "leaderboard-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public Leaderboard get(int difficulty) {
+        return boards[difficulty];
+    }
+
+    public RankingIndex getRanking() {
+        return ranking;
+    }
+
+    private ScoreLog openGamesLog(Path file) {
+        int[] logged = {0};
+        ScoreLog log;
+        try {
+            log = new ScoreLog(file, false, (difficulty, name, score) -> {
+                if (difficulty >= 0 && difficulty < boards.length) {
+                    ranking.add(difficulty, name, score);
+                    logged[0]++;
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Error opening game log: " + e.getMessage());
+            log = null;
+        }
+        if (logged[0] == 0) {
+            // Older versions kept only the boards, so their scores are all the past games there are
+            for (int difficulty = 0; difficulty < boards.length; difficulty++) {
+                for (Leaderboard.Score score : boards[difficulty].getScores()) {
+                    ranking.add(difficulty, score.getName(), score.getScore());
+                    append(log, difficulty, score.getName(), score.getScore());
+                }
+            }
+        }
+        return log;
+    }
+
+    // Ranks a finished game, whether or not it made the board, and logs it for the next start
+    public void recordGame(int difficulty, int score) {
+        ranking.add(difficulty, "", score);
+        append(games, difficulty, "", score);
+    }
+
+    private static void append(ScoreLog log, int difficulty, String name, int score) {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.append(difficulty, name, score);
+        } catch (IOException e) {
+            System.err.println("Error logging game: " + e.getMessage());
+        }
+    }
+
+    // Called by a board after it changed; scores must be a copy the caller no longer modifies
+    synchronized void scheduleSave(int difficulty, List<Leaderboard.Score> scores) {
+        if (closed) {
+            saveNow(difficulty, scores);
+            return;
+        }
+        pending.put(difficulty, scores);
+        notifyAll();
+    }
+
+    private void writeLoop() {
+        while (true) {
+            Map<Integer, List<Leaderboard.Score>> batch;
+            synchronized (this) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = new HashMap<>(pending);
+                pending.clear();
+                writing = true;
+            }
+            batch.forEach(this::saveNow);
+            synchronized (this) {
+                writing = false;
+                notifyAll();
+            }
+        }
+    }
+
+    private void saveNow(int difficulty, List<Leaderboard.Score> scores) {
+        try {
+            store.save(difficulty, scores);
+        } catch (IOException e) {
+            System.err.println("Error saving leaderboard: " + e.getMessage());
+        }
+    }
+
+    // Blocks until every change made so far is saved
+    public synchronized void flush() {
+        while (!pending.isEmpty() || writing) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Saves what is pending and stops the writer; later changes are saved synchronously
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (games != null) {
+            try {
+                games.close();
+            } catch (IOException e) {
+                System.err.println("Error closing game log: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package org.kgames.snake.game;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Reads and writes leaderboard files, one per difficulty, in a small versioned binary format:
+//   int  magic 'SNLB'
+//   byte format version
+//   int  entry count
+//   per entry: modified UTF-8 name (length-prefixed), int score
+//   int  CRC32 of everything before it
+// A save writes a temp file and renames it over the old one, so a crash mid-write leaves either
+// the old or the new board, never a torn one. How hard saves push data to the disk is set with
+// -Dsnake.leaderboardFsync=none|file|full (default file).
+// Boards saved by older versions as serialized leaderboard_N.dat files are converted on first
+// load; the old file is kept as leaderboard_N.dat.migrated.
+public class LeaderboardStore {
+    private static final String FILE_PREFIX = "leaderboard_";
+    private static final String FILE_SUFFIX = ".lbd";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String LEGACY_SUFFIX = ".dat";
+    private static final String MIGRATED_SUFFIX = ".migrated";
+    private static final int MAGIC = 0x534E4C42;
+    private static final byte VERSION = 1;
+    // Far more than a board ever holds; guards against allocating for a corrupt count
+    private static final int MAX_ENTRIES = 10_000;
+
+    // Only the classes a legacy board contains may be deserialized. java.lang.Object stands for
+    // the Object[] inside ArrayList, since array types are matched by their element type.
+    private static final ObjectInputFilter LEGACY_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=4;maxrefs=" + (4 * MAX_ENTRIES) + ";maxarray=" + MAX_ENTRIES
+                    + ";java.util.ArrayList;java.lang.Object;" + Leaderboard.Score.class.getName()
+                    + ";java.lang.String;!*");
+
+    public enum FsyncPolicy {
+        // Leave flushing to the OS; a power cut may lose the latest save
+        NONE,
+        // Sync the temp file before the rename, so the renamed file is never empty
+        FILE,
+        // Also sync the directory, so the rename itself survives a power cut
+        FULL
+    }
+
+    private final File savesDir;
+    private final FsyncPolicy fsyncPolicy;
+
+    public LeaderboardStore(File savesDir) {
+        this(savesDir, FsyncPolicy.valueOf(System.getProperty("snake.leaderboardFsync", "file").toUpperCase()));
+    }
+
+    public LeaderboardStore(File savesDir, FsyncPolicy fsyncPolicy) {
+        this.savesDir = savesDir;
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    // Scores of one difficulty, best first as saved; empty if there are none or the file is unreadable
+    public List<Leaderboard.Score> load(int difficulty) {
+        File file = boardFile(difficulty);
+        if (!file.exists()) {
+            return migrateLegacy(difficulty);
+        }
+        try {
+            return decode(Files.readAllBytes(file.toPath()));
+        } catch (IOException e) {
+            System.err.println("Error loading leaderboard: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    public void save(int difficulty, List<Leaderboard.Score> scores) throws IOException {
+        if (!savesDir.exists()) {
+            savesDir.mkdirs();
+        }
+        Path target = boardFile(difficulty).toPath();
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        ByteBuffer bytes = ByteBuffer.wrap(encode(scores));
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            if (fsyncPolicy != FsyncPolicy.NONE) {
+                channel.force(true);
+            }
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (fsyncPolicy == FsyncPolicy.FULL) {
+            syncDirectory();
+        }
+    }
+
+    private void syncDirectory() {
+        // Not every platform can open a directory for syncing; the rename is then as durable as it gets
+        try (FileChannel directory = FileChannel.open(savesDir.toPath(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // Ignored
+        }
+    }
+
+    static byte[] encode(List<Leaderboard.Score> scores) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + scores.size() * 24);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(scores.size());
+        for (Leaderboard.Score score : scores) {
+            out.writeUTF(score.getName());
+            out.writeInt(score.getScore());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+        return bytes.toByteArray();
+    }
+
+    static List<Leaderboard.Score> decode(byte[] bytes) throws IOException {
+        if (bytes.length < Integer.BYTES * 3 + 1) {
+            throw new IOException("Leaderboard file is truncated");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - Integer.BYTES);
+        if ((int) crc.getValue() != ByteBuffer.wrap(bytes, bytes.length - Integer.BYTES, Integer.BYTES).getInt()) {
+            throw new IOException("Leaderboard file is corrupt");
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - Integer.BYTES));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a leaderboard file");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported leaderboard version " + version);
+        }
+        int count = in.readInt();
+        if (count < 0 || count > MAX_ENTRIES) {
+            throw new IOException("Bad leaderboard size " + count);
+        }
+        List<Leaderboard.Score> scores = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            scores.add(new Leaderboard.Score(name, in.readInt()));
+        }
+        return scores;
+    }
+
+    // Converts a serialized board from older versions, if there is one
+    private List<Leaderboard.Score> migrateLegacy(int difficulty) {
+        File legacy = new File(savesDir, FILE_PREFIX + difficulty + LEGACY_SUFFIX);
+        if (!legacy.exists()) {
+            return new ArrayList<>();
+        }
+        List<Leaderboard.Score> scores = new ArrayList<>();
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(legacy)))) {
+            ois.setObjectInputFilter(LEGACY_FILTER);
+            if (ois.readObject() instanceof List<?> list) {
+                for (Object entry : list) {
+                    if (entry instanceof Leaderboard.Score score) {
+                        scores.add(score);
+                    }
+                }
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("Error migrating leaderboard: " + e.getMessage());
+            return new ArrayList<>();
+        }
+        try {
+            save(difficulty, scores);
+            Files.move(legacy.toPath(), legacy.toPath().resolveSibling(legacy.getName() + MIGRATED_SUFFIX),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("Error saving migrated leaderboard: " + e.getMessage());
+        }
+        return scores;
+    }
+
+    private File boardFile(int difficulty) {
+        return new File(savesDir, FILE_PREFIX + difficulty + FILE_SUFFIX);
+    }
+}
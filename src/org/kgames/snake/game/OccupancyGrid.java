@@ -0,0 +1,177 @@
+package org.kgames.snake.game;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+// Board occupancy split into 64x64 chunks that exist only while something occupies them.
+// Each occupied cell also remembers the serial of the segment on it, so the segments inside a
+// window can be found without walking the whole body. Memory follows the occupied area rather
+// than the board area, which keeps boards of 10,000 x 10,000 cells and more affordable.
+public class OccupancyGrid {
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+    // Emptied chunks kept for reuse, so a snake crossing a chunk border does not allocate each time
+    private static final int MAX_POOLED_CHUNKS = 64;
+
+    private static final class Chunk {
+        final long[] bits = new long[CHUNK_CELLS >>> 6];
+        final int[] serials = new int[CHUNK_CELLS];
+        int population;
+    }
+
+    private final int width;
+    private final int height;
+    private final int chunksX;
+    private final int chunksY;
+    private final Chunk[] chunks;
+    private final ArrayDeque<Chunk> pool = new ArrayDeque<>();
+    private long occupiedCount = 0;
+
+    public OccupancyGrid(int width, int height) {
+        if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Unsupported board size " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.chunksX = (width + CHUNK_MASK) >>> CHUNK_SHIFT;
+        this.chunksY = (height + CHUNK_MASK) >>> CHUNK_SHIFT;
+        this.chunks = new Chunk[chunksX * chunksY];
+    }
+
+    public boolean isOccupied(int x, int y) {
+        Chunk chunk = chunks[chunkIndex(x, y)];
+        if (chunk == null) {
+            return false;
+        }
+        int local = localIndex(x, y);
+        return (chunk.bits[local >>> 6] & (1L << local)) != 0;
+    }
+
+    // Serial of the segment on an occupied cell; meaningless for a free cell
+    public int getSerial(int x, int y) {
+        Chunk chunk = chunks[chunkIndex(x, y)];
+        return chunk == null ? 0 : chunk.serials[localIndex(x, y)];
+    }
+
+    public void set(int x, int y, int serial) {
+        int index = chunkIndex(x, y);
+        Chunk chunk = chunks[index];
+        if (chunk == null) {
+            chunk = pool.isEmpty() ? new Chunk() : pool.pop();
+            chunks[index] = chunk;
+        }
+        int local = localIndex(x, y);
+        long bit = 1L << local;
+        if ((chunk.bits[local >>> 6] & bit) == 0) {
+            chunk.bits[local >>> 6] |= bit;
+            chunk.population++;
+            occupiedCount++;
+        }
+        chunk.serials[local] = serial;
+    }
+
+    public void clear(int x, int y) {
+        int index = chunkIndex(x, y);
+        Chunk chunk = chunks[index];
+        if (chunk == null) {
+            return;
+        }
+        int local = localIndex(x, y);
+        long bit = 1L << local;
+        if ((chunk.bits[local >>> 6] & bit) != 0) {
+            chunk.bits[local >>> 6] &= ~bit;
+            occupiedCount--;
+            if (--chunk.population == 0) {
+                release(index);
+            }
+        }
+    }
+
+    public void clearAll() {
+        if (occupiedCount == 0) {
+            return;
+        }
+        for (int i = 0; i < chunks.length; i++) {
+            if (chunks[i] != null) {
+                Arrays.fill(chunks[i].bits, 0L);
+                chunks[i].population = 0;
+                release(i);
+            }
+        }
+        occupiedCount = 0;
+    }
+
+    private void release(int index) {
+        if (pool.size() < MAX_POOLED_CHUNKS) {
+            pool.push(chunks[index]);
+        }
+        chunks[index] = null;
+    }
+
+    public long getFreeCount() {
+        return (long) width * height - occupiedCount;
+    }
+
+    // Packed cell (y * width + x) of the n-th free cell in chunk order, 0 <= n < getFreeCount().
+    // Whole chunks are skipped by their population, so the cost is O(chunks + chunk size)
+    // rather than O(cells).
+    public int nthFreeCell(long n) {
+        for (int cy = 0; cy < chunksY; cy++) {
+            for (int cx = 0; cx < chunksX; cx++) {
+                int chunkWidth = Math.min(CHUNK_SIZE, width - (cx << CHUNK_SHIFT));
+                int chunkHeight = Math.min(CHUNK_SIZE, height - (cy << CHUNK_SHIFT));
+                Chunk chunk = chunks[cy * chunksX + cx];
+                int free = chunkWidth * chunkHeight - (chunk == null ? 0 : chunk.population);
+                if (n >= free) {
+                    n -= free;
+                    continue;
+                }
+                for (int ly = 0; ly < chunkHeight; ly++) {
+                    for (int lx = 0; lx < chunkWidth; lx++) {
+                        int local = (ly << CHUNK_SHIFT) | lx;
+                        if (chunk != null && (chunk.bits[local >>> 6] & (1L << local)) != 0) {
+                            continue;
+                        }
+                        if (n-- == 0) {
+                            return ((cy << CHUNK_SHIFT) + ly) * width + (cx << CHUNK_SHIFT) + lx;
+                        }
+                    }
+                }
+            }
+        }
+        throw new IllegalArgumentException("No free cell " + n);
+    }
+
+    private int chunkIndex(int x, int y) {
+        return (y >>> CHUNK_SHIFT) * chunksX + (x >>> CHUNK_SHIFT);
+    }
+
+    private static int localIndex(int x, int y) {
+        return ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+    }
+
+    // Chunks currently holding occupied cells, and emptied chunks waiting for reuse; for tests
+    int allocatedChunkCount() {
+        int count = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    int pooledChunkCount() {
+        return pool.size();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,88 @@
+package org.kgames.snake.game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Every submitted score, ranked per difficulty and across all difficulties together.
+// Unlike a Leaderboard it is not limited to ten entries, so it can rank whole tournaments.
+// Safe to use from several threads: queries share a read lock, inserts take the write lock.
+public class RankingIndex {
+    // Pass as the difficulty to query the ranking across all difficulties
+    public static final int ALL_DIFFICULTIES = -1;
+
+    private final ScoreRanking[] byDifficulty;
+    private final ScoreRanking overall = new ScoreRanking();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public RankingIndex(int difficultyCount) {
+        byDifficulty = new ScoreRanking[difficultyCount];
+        for (int i = 0; i < difficultyCount; i++) {
+            byDifficulty[i] = new ScoreRanking();
+        }
+    }
+
+    public void add(int difficulty, String name, int score) {
+        lock.writeLock().lock();
+        try {
+            byDifficulty[difficulty].insert(name, score);
+            overall.insert(name, score);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 1-based rank a new entry with this score would get
+    public int rankOf(int difficulty, int score) {
+        lock.readLock().lock();
+        try {
+            return ranking(difficulty).rankOf(score);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Share of entries scoring strictly lower, from 0 to 100
+    public double percentileOf(int difficulty, int score) {
+        lock.readLock().lock();
+        try {
+            return ranking(difficulty).percentileOf(score);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The best k entries, best first
+    public List<Leaderboard.Score> top(int difficulty, int k) {
+        lock.readLock().lock();
+        try {
+            ScoreRanking ranking = ranking(difficulty);
+            int[] ids = ranking.top(k);
+            List<Leaderboard.Score> result = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                result.add(new Leaderboard.Score(ranking.getName(id), ranking.getScore(id)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size(int difficulty) {
+        lock.readLock().lock();
+        try {
+            return ranking(difficulty).size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getDifficultyCount() {
+        return byDifficulty.length;
+    }
+
+    private ScoreRanking ranking(int difficulty) {
+        return difficulty == ALL_DIFFICULTIES ? overall : byDifficulty[difficulty];
+    }
+}
@@ -0,0 +1,232 @@
+package org.kgames.snake.game;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Append-only log of scores, written behind the caller: every game a LeaderboardRepository
+// ranks, or every score a ScoreServer accepted.
+// append() only queues a record; a daemon writer gathers whatever is queued into one write, so
+// a burst of scores costs one disk write rather than one per score. Layout:
+//   int  magic 'SNSL', byte format version
+//   per record: int payload length, payload (byte difficulty, int score, modified UTF-8 name),
+//               int CRC32 of the payload
+// On open, a record torn by a crash is cut off along with anything after it.
+// With sync on, every batch is forced to the disk before flush() returns for it.
+// After a failed write nothing more is written, since it would land behind a torn record;
+// append(), flush() and close() then throw the failure.
+public class ScoreLog implements Closeable {
+    private static final int MAGIC = 0x534E534C;
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES + 1;
+    // Longest possible payload: difficulty, score and a name of up to 65535 UTF-8 bytes
+    private static final int MAX_PAYLOAD = 1 + Integer.BYTES + 2 + 0xFFFF;
+
+    public interface Visitor {
+        void accept(int difficulty, String name, int score);
+    }
+
+    private final FileChannel channel;
+    private final boolean sync;
+    private final Thread writer;
+
+    // Guarded by this
+    private List<ByteBuffer> pending = new ArrayList<>();
+    private long queued = 0;
+    private long written = 0;
+    private boolean closed = false;
+    private IOException writeFailure;
+
+    // Opens or creates the log and passes every intact record to visitor, oldest first
+    public ScoreLog(Path file, boolean sync, Visitor visitor) throws IOException {
+        this.sync = sync;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            recover(visitor);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        writer = new Thread(this::writeLoop, "score-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void recover(Visitor visitor) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).put(VERSION).flip();
+            channel.truncate(0);
+            writeFully(header, 0);
+            channel.position(HEADER_SIZE);
+            return;
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0))));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a score log");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported score log version " + version);
+        }
+        CRC32 crc = new CRC32();
+        long end = HEADER_SIZE;
+        byte[] payload = new byte[64];
+        while (size - end >= 2 * Integer.BYTES) {
+            int length = in.readInt();
+            if (length < 1 + Integer.BYTES + 2 || length > MAX_PAYLOAD || size - end < length + 2L * Integer.BYTES) {
+                break;
+            }
+            if (payload.length < length) {
+                payload = new byte[Math.max(length, payload.length * 2)];
+            }
+            in.readFully(payload, 0, length);
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != in.readInt()) {
+                break;
+            }
+            DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload, 0, length));
+            int difficulty = record.readByte();
+            int score = record.readInt();
+            visitor.accept(difficulty, record.readUTF(), score);
+            end += length + 2L * Integer.BYTES;
+        }
+        if (end < size) {
+            System.err.println("Score log: dropping " + (size - end) + " bytes after the last intact record");
+            channel.truncate(end);
+        }
+        channel.position(end);
+    }
+
+    // Queues a record; it is on disk once flush() returns
+    public void append(int difficulty, String name, int score) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(16 + name.length());
+        DataOutputStream out = new DataOutputStream(payload);
+        out.writeByte(difficulty);
+        out.writeInt(score);
+        out.writeUTF(name);
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        ByteBuffer record = ByteBuffer.allocate(bytes.length + 2 * Integer.BYTES);
+        record.putInt(bytes.length).put(bytes).putInt((int) crc.getValue()).flip();
+        synchronized (this) {
+            if (writeFailure != null) {
+                throw writeFailure;
+            }
+            if (closed) {
+                throw new IOException("Score log is closed");
+            }
+            pending.add(record);
+            queued++;
+            notifyAll();
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            List<ByteBuffer> batch;
+            synchronized (this) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+            }
+            try {
+                ByteBuffer[] buffers = batch.toArray(new ByteBuffer[0]);
+                long remaining = 0;
+                for (ByteBuffer buffer : buffers) {
+                    remaining += buffer.remaining();
+                }
+                while (remaining > 0) {
+                    remaining -= channel.write(buffers);
+                }
+                if (sync) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                System.err.println("Error writing score log: " + e.getMessage());
+                synchronized (this) {
+                    writeFailure = e;
+                    pending.clear();
+                    notifyAll();
+                }
+                return;
+            }
+            synchronized (this) {
+                written += batch.size();
+                notifyAll();
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    // Blocks until every record appended so far has been written
+    public synchronized void flush() throws IOException {
+        long target = queued;
+        while (written < target && writeFailure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while flushing score log", e);
+            }
+        }
+        if (writeFailure != null) {
+            throw writeFailure;
+        }
+    }
+
+    // Writes what is queued and closes the file
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        synchronized (this) {
+            if (writeFailure != null) {
+                throw writeFailure;
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package org.kgames.snake.game;
+
+import java.util.Arrays;
+
+// Ranked set of scores that can hold millions of entries.
+// It is an order-statistic treap: a binary search tree balanced by random priorities, where
+// every node also knows the size of its subtree. Nodes live in parallel int arrays, so an entry
+// costs a few ints plus its name and there are no node objects for the GC to trace.
+// Insert, rank, percentile and k-th entry queries are O(log n) expected; top(k) is O(log n + k).
+//
+// Order is by score, highest first. Equal scores keep insertion order, so an earlier entry
+// ranks above a later one with the same score, as on a Leaderboard.
+// Not thread-safe; RankingIndex adds locking.
+public class ScoreRanking {
+    private static final int NIL = -1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[] scores = new int[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] left = new int[INITIAL_CAPACITY];
+    private int[] right = new int[INITIAL_CAPACITY];
+    private int[] priorities = new int[INITIAL_CAPACITY];
+    private int[] sizes = new int[INITIAL_CAPACITY];
+    private int count = 0;
+    private int root = NIL;
+    private int seed = 0x2545F491;
+
+    // Adds an entry; returns its id, usable with getName() and getScore()
+    public int insert(String name, int score) {
+        if (count == scores.length) {
+            grow();
+        }
+        int node = count++;
+        scores[node] = score;
+        names[node] = name;
+        left[node] = NIL;
+        right[node] = NIL;
+        priorities[node] = nextPriority();
+        sizes[node] = 1;
+        root = insert(root, node);
+        return node;
+    }
+
+    private int insert(int t, int node) {
+        if (t == NIL) {
+            return node;
+        }
+        sizes[t]++;
+        // A new node goes after every existing one with the same score
+        if (scores[node] > scores[t]) {
+            left[t] = insert(left[t], node);
+            if (priorities[left[t]] > priorities[t]) {
+                t = rotateRight(t);
+            }
+        } else {
+            right[t] = insert(right[t], node);
+            if (priorities[right[t]] > priorities[t]) {
+                t = rotateLeft(t);
+            }
+        }
+        return t;
+    }
+
+    private int rotateRight(int t) {
+        int l = left[t];
+        left[t] = right[l];
+        right[l] = t;
+        sizes[l] = sizes[t];
+        sizes[t] = size(left[t]) + size(right[t]) + 1;
+        return l;
+    }
+
+    private int rotateLeft(int t) {
+        int r = right[t];
+        right[t] = left[r];
+        left[r] = t;
+        sizes[r] = sizes[t];
+        sizes[t] = size(left[t]) + size(right[t]) + 1;
+        return r;
+    }
+
+    private int size(int t) {
+        return t == NIL ? 0 : sizes[t];
+    }
+
+    private int nextPriority() {
+        // xorshift32
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+
+    private void grow() {
+        int capacity = scores.length * 2;
+        scores = Arrays.copyOf(scores, capacity);
+        names = Arrays.copyOf(names, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+    }
+
+    // Number of entries scoring strictly higher than score
+    public int countAbove(int score) {
+        int result = 0;
+        int t = root;
+        while (t != NIL) {
+            if (scores[t] > score) {
+                result += size(left[t]) + 1;
+                t = right[t];
+            } else {
+                t = left[t];
+            }
+        }
+        return result;
+    }
+
+    // 1-based rank a new entry with this score would get
+    public int rankOf(int score) {
+        return countAbove(score) + 1;
+    }
+
+    // Share of entries scoring strictly lower, from 0 to 100
+    public double percentileOf(int score) {
+        if (count == 0) {
+            return 100.0;
+        }
+        int atLeast = 0;
+        int t = root;
+        while (t != NIL) {
+            if (scores[t] >= score) {
+                atLeast += size(left[t]) + 1;
+                t = right[t];
+            } else {
+                t = left[t];
+            }
+        }
+        return 100.0 * (count - atLeast) / count;
+    }
+
+    // Id of the entry at 0-based position index in rank order
+    public int select(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int t = root;
+        while (true) {
+            int leftSize = size(left[t]);
+            if (index < leftSize) {
+                t = left[t];
+            } else if (index == leftSize) {
+                return t;
+            } else {
+                index -= leftSize + 1;
+                t = right[t];
+            }
+        }
+    }
+
+    // Ids of the best k entries, best first
+    public int[] top(int k) {
+        int[] result = new int[Math.min(k, count)];
+        // In-order walk with an explicit stack; the tree is O(log n) deep in expectation
+        int[] stack = new int[64];
+        int depth = 0;
+        int n = 0;
+        int t = root;
+        while (n < result.length) {
+            while (t != NIL) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = t;
+                t = left[t];
+            }
+            t = stack[--depth];
+            result[n++] = t;
+            t = right[t];
+        }
+        return result;
+    }
+
+    public String getName(int id) {
+        return names[id];
+    }
+
+    public int getScore(int id) {
+        return scores[id];
+    }
+
+    public int size() {
+        return count;
+    }
+}
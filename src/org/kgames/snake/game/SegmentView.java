@@ -0,0 +1,17 @@
+package org.kgames.snake.game;
+
+// Read-only view of the snake's segments, ordered from head (index 0) to tail.
+// Cells are packed as y * boardWidth + x.
+public interface SegmentView {
+    int size();
+
+    int getCell(int index);
+
+    int getX(int index);
+
+    int getY(int index);
+
+    int getBoardWidth();
+
+    int getBoardHeight();
+}
@@ -2,18 +2,22 @@ package org.kgames.snake.game;
 
 import org.kgames.snake.util.Vector2;
 
-import java.awt.*;
-import java.awt.geom.AffineTransform;
-import java.awt.image.BufferedImage;
-import java.util.LinkedList;
 import java.util.ArrayDeque;
 import java.util.Deque;
 
 public class Snake {
-    private LinkedList<Vector2> snakeElements = new LinkedList<>();
+    private final SnakeBody body;
+    private final Vector2 head = new Vector2(0, 0);
+    // Chunked occupancy with the serial of the segment on each covered cell
+    private final OccupancyGrid occupancy;
+    private CellListener cellListener;
+    private int pendingGrowth = 0;
+    private boolean outOfBounds = false;
+    private boolean selfCollision = false;
     private int velX = 0;
     private int velY = 0;
-    private final int boardSize;
+    private final int boardWidth;
+    private final int boardHeight;
     
     // Speed factor (1.0 = normal speed, higher values = faster)
     private double speedFactor = 1.0;
@@ -25,26 +29,27 @@ public class Snake {
     private int headDirection = 0;
     private int tailAnimationFrame = 0;
 
-    private boolean isEating = false;
-    private int eatingFramesLeft = 0;
-    private static final int EATING_ANIMATION_FRAMES = 10;
-
-    private final TextureManager textureManager;
-
-    // Constants for corner type identification
-    private static final int CORNER_TOP_RIGHT = 1001;
-    private static final int CORNER_TOP_LEFT = 1002;
-    private static final int CORNER_BOTTOM_RIGHT = 1003;
-    private static final int CORNER_BOTTOM_LEFT = 1004;
+    public Snake(int boardSize) {
+        this(boardSize, boardSize);
+    }
 
-    public Snake(int boardSize, TextureManager tm) {
-        this.boardSize = boardSize;
-        this.textureManager = tm;
+    public Snake(int boardWidth, int boardHeight) {
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        this.body = new SnakeBody(boardWidth, boardHeight);
+        this.occupancy = new OccupancyGrid(boardWidth, boardHeight);
         init();
     }
 
     public void init() {
-        snakeElements.clear();
+        body.clear();
+        occupancy.clearAll();
+        // A new game starts without a listener, so how the apple is placed depends only on
+        // this game's board and never on how dense an earlier one got
+        cellListener = null;
+        pendingGrowth = 0;
+        outOfBounds = false;
+        selfCollision = false;
         velX = 0;
         velY = 0;
         directionQueue.clear();
@@ -52,28 +57,39 @@ public class Snake {
         headDirection = 0;
         tailAnimationFrame = 0;
         speedFactor = 1.0;
-        isEating = false;
-        eatingFramesLeft = 0;
 
-        Vector2 head = new Vector2(boardSize / 4, boardSize / 2);
-        snakeElements.add(head);
-        snakeElements.add(new Vector2(head.x - 1, head.y));
-        snakeElements.add(new Vector2(head.x - 2, head.y));
+        head.x = boardWidth / 4;
+        head.y = boardHeight / 2;
+        pushHead(head.x - 2, head.y);
+        pushHead(head.x - 1, head.y);
+        pushHead(head.x, head.y);
     }
 
     public void move() {
         if(velX == 0 && velY == 0) return;
 
-        for(int i = snakeElements.size() - 1; i > 0; i--) {
-            Vector2 current = snakeElements.get(i);
-            Vector2 ahead = snakeElements.get(i-1);
-            current.x = ahead.x;
-            current.y = ahead.y;
-        }
-
-        Vector2 head = snakeElements.getFirst();
         head.x += velX;
         head.y += velY;
+
+        // A head outside the board cannot be packed into a cell, so the body is left as is
+        // and checkCollision() reports the wall hit
+        if (head.x >= boardWidth || head.x < 0 || head.y >= boardHeight || head.y < 0) {
+            outOfBounds = true;
+        } else {
+            // Only the two ends change: the tail leaves (unless growing) and the new head is pushed
+            if (pendingGrowth > 0) {
+                pendingGrowth--;
+            } else {
+                int tail = body.size() - 1;
+                clearOccupied(body.getX(tail), body.getY(tail));
+                body.removeTail();
+            }
+            // The tail has already left, so moving into its old cell is not a collision
+            if (occupancy.isOccupied(head.x, head.y)) {
+                selfCollision = true;
+            }
+            pushHead(head.x, head.y);
+        }
         
         // Update head direction based on velocity
         updateHeadDirection();
@@ -92,15 +108,6 @@ public class Snake {
 
     }
 
-    public void setEating() {
-        isEating = true;
-        eatingFramesLeft = EATING_ANIMATION_FRAMES;
-    }
-
-    public boolean isEating() {
-        return isEating;
-    }
-
     private void updateHeadDirection() {
         if (velX > 0) headDirection = 270;       // Right
         else if (velX < 0) headDirection = 90; // Left
@@ -109,24 +116,59 @@ public class Snake {
     }
 
     public boolean checkCollision() {
-        Vector2 head = snakeElements.getFirst();
+        return outOfBounds || selfCollision;
+    }
 
-        if (head.x >= boardSize || head.x < 0 || head.y >= boardSize || head.y < 0) {
-            return true;
+    private void pushHead(int x, int y) {
+        body.addHead(x, y);
+        occupancy.set(x, y, (int) body.getHeadSerial());
+        if (cellListener != null) {
+            cellListener.cellOccupied(body.getHeadCell());
         }
-        for (int i = 1; i < snakeElements.size(); i++) {
-            Vector2 segment = snakeElements.get(i);
-            if (head.x == segment.x && head.y == segment.y) {
-                return true;
-            }
+    }
+
+    private void clearOccupied(int x, int y) {
+        occupancy.clear(x, y);
+        if (cellListener != null) {
+            cellListener.cellFreed(body.pack(x, y));
         }
-        
-        return false;
     }
 
+    // Attaches a listener that mirrors occupancy changes; it must match the current occupancy
+    public void setCellListener(CellListener cellListener) {
+        this.cellListener = cellListener;
+    }
+
+    public CellListener getCellListener() {
+        return cellListener;
+    }
+
+    public boolean isOccupied(int cell) {
+        return occupancy.isOccupied(cell % boardWidth, cell / boardWidth);
+    }
+
+    public boolean isCellFree(int x, int y) {
+        if (x < 0 || y < 0 || x >= boardWidth || y >= boardHeight) {
+            return false;
+        }
+        return !occupancy.isOccupied(x, y);
+    }
+
+    public OccupancyGrid getOccupancy() {
+        return occupancy;
+    }
+
+    public int getBoardWidth() {
+        return boardWidth;
+    }
+
+    public int getBoardHeight() {
+        return boardHeight;
+    }
+
+    // The extra segment appears on the next move, when the tail stays in place
     public void grow() {
-        Vector2 tail = snakeElements.getLast();
-        snakeElements.addLast(new Vector2(tail.x, tail.y));
+        pendingGrowth++;
     }
 
     public void setDirection(int velX, int velY) {
@@ -165,176 +207,41 @@ public class Snake {
         hasMoved = false;
     }
 
-    public Vector2 getHead() {
-        return snakeElements.getFirst();
+    public int getVelX() {
+        return velX;
     }
 
-    public LinkedList<Vector2> getSnakeElements() {
-        return snakeElements;
+    public int getVelY() {
+        return velY;
     }
 
-    private int calculateBodySegmentAngle(Vector2 before, Vector2 current, Vector2 after) {
-        // Determine the direction vectors
-        int beforeDirX = current.x - before.x;
-        int beforeDirY = current.y - before.y;
-        int afterDirX = after.x - current.x;
-        int afterDirY = after.y - current.y;
-        
-        // Determine if there's a turn (before and after have different directions)
-        boolean isTurn = (beforeDirX != afterDirX || beforeDirY != afterDirY);
-        
-        // Default angle
-        int angle = 0;
-        
-        if (isTurn) {
-            if (beforeDirX > 0) { // Moving right then...
-                if (afterDirY < 0) { // ... up = top-left corner
-                    return CORNER_TOP_LEFT;
-                } else if (afterDirY > 0) { // ... down = bottom-left corner
-                    return CORNER_BOTTOM_LEFT;
-                }
-            } else if (beforeDirX < 0) { // Moving left then...
-                if (afterDirY < 0) { // ... up = top-right corner
-                    return CORNER_TOP_RIGHT;
-                } else if (afterDirY > 0) { // ... down = bottom-right corner
-                    return CORNER_BOTTOM_RIGHT;
-                }
-            } else if (beforeDirY < 0) { // Moving up then...
-                if (afterDirX > 0) { // ... right = bottom-right corner
-                    return CORNER_BOTTOM_RIGHT;
-                } else if (afterDirX < 0) { // ... left = bottom-left corner
-                    return CORNER_BOTTOM_LEFT;
-                }
-            } else if (beforeDirY > 0) { // Moving down then...
-                if (afterDirX > 0) { // ... right = top-right corner
-                    return CORNER_TOP_RIGHT;
-                } else if (afterDirX < 0) { // ... left = top-left corner
-                    return CORNER_TOP_LEFT;
-                }
-            }
-        } else {
-            if (beforeDirX != 0 || afterDirX != 0) {
-                angle = (beforeDirX > 0 || afterDirX > 0) ? 0 : 180;  // Horizontal
-            } else if (beforeDirY != 0 || afterDirY != 0) {
-                angle = (beforeDirY > 0 || afterDirY > 0) ? 90 : 270;  // Vertical
-            }
-        }
-        
-        return angle;
-    }
-    
-    // Calculate the appropriate rotation angle for the tail
-    private int calculateTailAngle(Vector2 secondLast, Vector2 last) {
-        if (secondLast.x < last.x) return 90;  // Tail points left
-        if (secondLast.x > last.x) return 270; // Tail points right
-        if (secondLast.y < last.y) return 180; // Tail points up
-        if (secondLast.y > last.y) return 0;   // Tail points down
-        
-        return 0;
+    public Vector2 getHead() {
+        return head;
     }
 
-    public void draw(Graphics g, int elementSize, int drawOffset) {
-        Graphics2D g2d = (Graphics2D) g;
-
-        Vector2 head = snakeElements.getFirst();
-        BufferedImage headImage = isEating ?
-                                  textureManager.SNAKE_HEAD_EATING_IMAGE :
-                                  textureManager.SNAKE_HEAD_IMAGE;
-
-        drawRotatedImage(g2d, headImage, head.x * elementSize,
-                         head.y * elementSize + drawOffset, elementSize, elementSize, headDirection);
-
-        if (isEating) {
-            eatingFramesLeft--;
-            if (eatingFramesLeft <= 0) {
-                isEating = false;
-            }
-        }
+    public SegmentView getBody() {
+        return body;
+    }
 
-        for (int i = 1; i < snakeElements.size() - 1; i++) {
-            Vector2 segment = snakeElements.get(i);
-            Vector2 before = snakeElements.get(i - 1);
-            Vector2 after = snakeElements.get(i + 1);
-
-            int bodyAngleOrCornerType = calculateBodySegmentAngle(before, segment, after);
-
-            BufferedImage bodyImage;
-            int rotationAngle = 0;
-
-            // Check if this is a corner segment
-            if (bodyAngleOrCornerType >= 1000) {
-                // Use the appropriate corner texture and rotation based on the corner type
-                rotationAngle = switch (bodyAngleOrCornerType) {
-                    case CORNER_TOP_LEFT -> {
-                        bodyImage = textureManager.SNAKE_BODY_CORNER_LEFT;
-                        yield 180;
-                    }
-                    case CORNER_TOP_RIGHT -> {
-                        bodyImage = textureManager.SNAKE_BODY_CORNER_RIGHT;
-                        yield 180;
-                    }
-                    case CORNER_BOTTOM_LEFT -> {
-                        bodyImage = textureManager.SNAKE_BODY_CORNER_LEFT;
-                        yield 90;
-                    }
-                    case CORNER_BOTTOM_RIGHT -> {
-                        bodyImage = textureManager.SNAKE_BODY_CORNER_RIGHT;
-                        yield 270;
-                    }
-                    default -> {
-                        bodyImage = i % 2 == 0 ?
-                                textureManager.SNAKE_BODY_IMAGE : textureManager.SNAKE_BODY_IMAGE_2;
-                        yield 0;
-                    }
-                };
-            } else {
-                // For straight segments, use alternating body textures
-                bodyImage = i % 2 == 0 ?
-                    textureManager.SNAKE_BODY_IMAGE : textureManager.SNAKE_BODY_IMAGE_2;
-                rotationAngle = bodyAngleOrCornerType;
-            }
+    public int getLength() {
+        return body.size();
+    }
 
-            drawRotatedImage(g2d, bodyImage, segment.x * elementSize,
-                          segment.y * elementSize + drawOffset, 
-                          elementSize, elementSize, rotationAngle);
-        }
-        
-        // Draw the tail segment if snake has at least 2 segments
-        if (snakeElements.size() >= 2) {
-            int lastIndex = snakeElements.size() - 1;
-            Vector2 tail = snakeElements.getLast();
-            Vector2 secondLast = snakeElements.get(lastIndex - 1);
-
-            int tailAngle = calculateTailAngle(secondLast, tail);
-
-            BufferedImage tailImage = switch (tailAnimationFrame) {
-                case 0 -> textureManager.SNAKE_TAIL_IMAGE_1;
-                case 1 -> textureManager.SNAKE_TAIL_IMAGE_2;
-                case 2 -> textureManager.SNAKE_TAIL_IMAGE_3;
-                case 3 -> textureManager.SNAKE_TAIL_IMAGE_4;
-                case 4 -> textureManager.SNAKE_TAIL_IMAGE_5;
-                default -> textureManager.SNAKE_TAIL_IMAGE_1;
-            };
-
-            drawRotatedImage(g2d, tailImage, tail.x * elementSize,
-                           tail.y * elementSize + drawOffset, 
-                           elementSize, elementSize, tailAngle);
-        }
+    public int getHeadDirection() {
+        return headDirection;
     }
 
-    private void drawRotatedImage(Graphics2D g2d, BufferedImage image, int x, int y,
-                                 int width, int height, int angleDegrees) {
-        AffineTransform oldTransform = g2d.getTransform();
+    public int getTailAnimationFrame() {
+        return tailAnimationFrame;
+    }
 
-        AffineTransform transform = new AffineTransform();
-        transform.translate(x + width/2, y + height/2);
-        transform.rotate(Math.toRadians(angleDegrees));
-        transform.translate(-width/2, -height/2);
+    // Notified as segments enter and leave board cells
+    public interface CellListener {
+        void cellOccupied(int cell);
 
-        g2d.setTransform(transform);
-        g2d.drawImage(image, 0, 0, width, height, null);
+        void cellFreed(int cell);
 
-        g2d.setTransform(oldTransform);
+        void boardCleared();
     }
 
     public double getSpeedFactor() {
@@ -0,0 +1,116 @@
+package org.kgames.snake.game;
+
+// Segment store backed by a circular int[] of packed cell indices.
+// Pushing a new head and dropping the tail are both O(1), and indexed reads never allocate.
+public class SnakeBody implements SegmentView {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final int boardWidth;
+    private final int boardHeight;
+    private int[] cells;
+    private int mask;
+    private int headSlot = 0;
+    private int size = 0;
+    // Counts every head ever pushed, so each segment keeps a stable serial number
+    private long headSerial = 0;
+
+    public SnakeBody(int boardWidth, int boardHeight) {
+        this(boardWidth, boardHeight, DEFAULT_CAPACITY);
+    }
+
+    public SnakeBody(int boardWidth, int boardHeight, int initialCapacity) {
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        // Capacity is kept at a power of two so slots wrap with a mask instead of a modulo
+        int capacity = Integer.highestOneBit(Math.max(initialCapacity, 2) - 1) << 1;
+        this.cells = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public void clear() {
+        headSlot = 0;
+        size = 0;
+        headSerial = 0;
+    }
+
+    public void addHead(int x, int y) {
+        if (size == cells.length) {
+            grow();
+        }
+        headSlot = (headSlot - 1) & mask;
+        cells[headSlot] = pack(x, y);
+        size++;
+        headSerial++;
+    }
+
+    public void removeTail() {
+        if (size == 0) {
+            throw new IllegalStateException("Snake body is empty");
+        }
+        size--;
+    }
+
+    private void grow() {
+        int[] grown = new int[cells.length << 1];
+        for (int i = 0; i < size; i++) {
+            grown[i] = cells[(headSlot + i) & mask];
+        }
+        cells = grown;
+        mask = grown.length - 1;
+        headSlot = 0;
+    }
+
+    public int pack(int x, int y) {
+        return y * boardWidth + x;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int getCell(int index) {
+        return cells[(headSlot + index) & mask];
+    }
+
+    @Override
+    public int getX(int index) {
+        return getCell(index) % boardWidth;
+    }
+
+    @Override
+    public int getY(int index) {
+        return getCell(index) / boardWidth;
+    }
+
+    @Override
+    public int getBoardWidth() {
+        return boardWidth;
+    }
+
+    @Override
+    public int getBoardHeight() {
+        return boardHeight;
+    }
+
+    // Copies the cells head first into dest, which must hold at least size() entries
+    public void copyTo(int[] dest) {
+        int firstRun = Math.min(size, cells.length - headSlot);
+        System.arraycopy(cells, headSlot, dest, 0, firstRun);
+        System.arraycopy(cells, 0, dest, firstRun, size - firstRun);
+    }
+
+    // Serial of the head segment; segment i has serial getHeadSerial() - i
+    public long getHeadSerial() {
+        return headSerial;
+    }
+
+    public int getHeadCell() {
+        return getCell(0);
+    }
+
+    public int getTailCell() {
+        return getCell(size - 1);
+    }
+}
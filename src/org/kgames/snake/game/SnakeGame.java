@@ -1,23 +1,42 @@
 package org.kgames.snake.game;
 
-import org.kgames.snake.util.Vector2;
-
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import org.kgames.snake.arena.ArenaGame;
+import org.kgames.snake.metrics.GameMetrics;
+import org.kgames.snake.metrics.MetricsOverlay;
+import org.kgames.snake.replay.Replay;
+import org.kgames.snake.replay.ReplayArchive;
+import org.kgames.snake.replay.ReplayPlayer;
+import org.kgames.snake.replay.ReplayRecorder;
+import org.kgames.snake.server.ScoreClient;
+import org.kgames.snake.server.ScoreServer;
+import org.kgames.snake.util.Vector2;
 
 public class SnakeGame extends JPanel implements KeyListener, MouseListener, ComponentListener {
 
-    public static final int BOARD_SIZE = 20;
+    public static final int DEFAULT_BOARD_SIZE = 20;
+    // Boards larger than this many cells scroll under a camera that follows the head
+    public static final int MAX_VIEW_COLUMNS = 40;
+    public static final int MAX_VIEW_ROWS = 30;
     public static final int ELEMENT_SIZE = 25;
     public static final int DRAW_OFFSET = ELEMENT_SIZE * 2;
+    private static final int OVERLAY_MARGIN = 5;
     
     private static final int TARGET_FPS = 60; // Target frames per second for rendering
-
-    private static final double[] BASE_SPEEDS = {5.0, 7.0, 9.0, 12.0}; // Easy, Medium, Hard, Impossible
-    private static final double[] MAX_SPEEDS = {9.0, 12.0, 17.0, 25.0}; // Easy, Medium, Hard, Impossible
-    private static final int SPEED_INCREASE_THRESHOLD = 5;
-    private static final double SPEED_INCREASE_FACTOR = 0.1;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final int DEFAULT_BUFFER_COUNT = 2;
+    private static final int DEFAULT_INPUT_DEPTH = 8;
+    private static final String SAVES_DIR = "saves";
+    private static final String REPLAY_DIR = SAVES_DIR + File.separator + "replays";
 
 
     public JFrame mainFrame;
@@ -26,24 +45,103 @@ public class SnakeGame extends JPanel implements KeyListener, MouseListener, Com
     private int displayHeight;
     public int calculatedElementSize;
 
-    private Snake snake;
-    private Apple apple;
+    // Set with -Dsnake.boardWidth / -Dsnake.boardHeight or --board=WIDTHxHEIGHT
+    private final int boardWidth;
+    private final int boardHeight;
+    private final int viewColumns;
+    private final int viewRows;
+    // Only moved by the loop thread, right before a frame is published
+    private final Camera camera;
+
+    // Only touched by the loop thread while a game runs; the EDT draws from published frames
+    private GameEngine engine;
+    private final FramePublisher framePublisher = new FramePublisher();
     private final TextureManager textureManager;
     private final AudioManager audioManager;
 
-    private boolean inGame;
-    private Thread gameThread;
+    // Set when running with -Dsnake.activeRendering=true or --active; null for passive Swing painting
+    private final ActiveRenderCanvas activeCanvas;
+    // Passive painting repaints only the cells each tick changed unless -Dsnake.incrementalRendering=false
+    private final boolean incrementalRendering;
+    private final boolean cellRepaints;
+
+    // Key presses from the EDT, taken by the loop thread one turn per tick.
+    // Depth is set with -Dsnake.inputDepth
+    private final InputRing inputRing = new InputRing(Integer.getInteger("snake.inputDepth", DEFAULT_INPUT_DEPTH));
+
+    // Published over JMX as org.kgames.snake:type=GameMetrics,name=game; F3 or
+    // -Dsnake.showMetrics=true shows them over the board
+    private final GameMetrics metrics = new GameMetrics();
+    private final MetricsOverlay metricsOverlay = new MetricsOverlay(metrics);
+    private volatile boolean showMetrics = Boolean.getBoolean("snake.showMetrics");
+
+    // Each game's seed comes from here, so -Dsnake.seed makes a whole session reproducible
+    private final Random seeds = new Random(Long.getLong("snake.seed", System.nanoTime()));
+    // Loop thread only; finished games go to the archive in saves/replays with -Dsnake.recordReplays=true
+    private final ReplayRecorder recorder = new ReplayRecorder();
+    private final ReplayArchive replayArchive;
+    // Set when watching a replay given with -Dsnake.replay=FILE or -Dsnake.replayId=ID from
+    // the archive; games then come from it
+    private final ReplayPlayer replayPlayer;
+    private final double replaySpeed;
+
+    // Written on the EDT, read by the loop thread
+    private volatile boolean inGame;
+    // Written by the loop thread after each tick
+    private volatile int currentScore;
+    // Set by ESC on the EDT; the loop thread ends the session at its next tick, so the engine,
+    // the recorder and published frames are only ever touched by one session at a time
+    private volatile boolean abandonRequested = false;
+    // Incremented per game so a late game-over from an earlier session is ignored
+    private int gameId = 0;
+    private final GameLoop gameLoop = new GameLoop("snake-game-loop", Integer.getInteger("snake.fps", TARGET_FPS));
 
-    private int score = 0;
     private int difficulty = 1; // Default to Medium, moved from SnakeGameUI
 
     private SnakeGameUI ui;
-    private Leaderboard leaderboard;
+    // Loads textures, sounds and the leaderboards of all difficulties in the background;
+    // leaderboard changes are saved in the background too
+    private final StartupLoader startup;
+    // Set on the EDT once the first menu frame has been painted
+    private boolean menuShown = false;
+    // System.nanoTime() when main() was entered, for the time-to-menu figure
+    private static long mainStartNanos = 0;
+    // Shared LAN leaderboard that every finished game is sent to and that the leaderboard screen
+    // shows, set with -Dsnake.scoreServer=URL; -Dsnake.scoreServerPort=PORT also hosts one in
+    // this game, which it then uses by default
+    private final ScoreServer scoreServer;
+    private final ScoreClient scoreClient;
+    // Name sent to the score server for games whose player entered none
+    private static final String UNNAMED_PLAYER = "Anonymous";
+    // EDT only: the score server's board as last fetched, null while it is unreachable
+    private List<Leaderboard.Score> sharedScores;
+    private int sharedScoresDifficulty = -1;
+    // EDT only: a finished game waits for its player's name before it is sent to the score server
+    private boolean sharedScorePending = false;
 
     public SnakeGame() {
 
         this.mainFrame = new JFrame("Snake Game");
 
+        replayArchive = Boolean.getBoolean("snake.recordReplays") ? openReplayArchive() : null;
+        replayPlayer = System.getProperty("snake.replayId") != null
+                ? loadArchivedReplay(Long.getLong("snake.replayId", -1))
+                : loadReplay(System.getProperty("snake.replay"));
+        replaySpeed = Double.parseDouble(System.getProperty("snake.replaySpeed", "1"));
+        if (replayPlayer != null) {
+            Replay replay = replayPlayer.getReplay();
+            boardWidth = replay.getBoardWidth();
+            boardHeight = replay.getBoardHeight();
+            difficulty = replay.getDifficulty();
+        } else {
+            boardWidth = Integer.getInteger("snake.boardWidth", DEFAULT_BOARD_SIZE);
+            boardHeight = Integer.getInteger("snake.boardHeight", DEFAULT_BOARD_SIZE);
+        }
+        viewColumns = Math.min(boardWidth, MAX_VIEW_COLUMNS);
+        viewRows = Math.min(boardHeight, MAX_VIEW_ROWS);
+        camera = new Camera(viewColumns, viewRows);
+        gameLoop.setMetrics(metrics);
+
         // Add Panel Components
         this.addKeyListener(this);
         this.addMouseListener(this);
@@ -51,67 +149,205 @@ public class SnakeGame extends JPanel implements KeyListener, MouseListener, Com
         this.setFocusable(true);
         this.requestFocusInWindow();
 
-        // Initialize the game components
+        if (Boolean.getBoolean("snake.activeRendering")) {
+            // The canvas covers the panel only while a game runs; menus keep using paintComponent
+            this.setLayout(new BorderLayout());
+            activeCanvas = new ActiveRenderCanvas(Integer.getInteger("snake.buffers", DEFAULT_BUFFER_COUNT));
+            activeCanvas.addKeyListener(this);
+            activeCanvas.setVisible(false);
+            this.add(activeCanvas, BorderLayout.CENTER);
+        } else {
+            activeCanvas = null;
+        }
+        incrementalRendering = activeCanvas == null
+                && Boolean.parseBoolean(System.getProperty("snake.incrementalRendering", "true"));
+        // A scrolling view changes every cell each tick, so only a fully visible board repaints by cell
+        cellRepaints = incrementalRendering && viewColumns == boardWidth && viewRows == boardHeight;
+
+        // Initialize the game components; their files load while the window opens
         textureManager = new TextureManager();
-        textureManager.init();
         audioManager = new AudioManager();
-        audioManager.loadSounds();
+        startup = new StartupLoader(textureManager, audioManager, new File(SAVES_DIR));
+        // Starting the platform MBean server takes a few hundred milliseconds, so it waits for the menu
+        startup.afterMenu(() -> metrics.register("game"));
+        // Scores still waiting for the writer are saved before the JVM exits
+        startup.getLeaderboardsFuture().thenAccept(
+                leaderboards -> Runtime.getRuntime().addShutdownHook(new Thread(leaderboards::close)));
 
         // Set the initial size of the game window
         updateDisplayDimensions();
-        ui = new SnakeGameUI(this);
-        leaderboard = new Leaderboard(difficulty);
+        BoardRenderer boardRenderer = new BoardRenderer(textureManager);
+        ui = new SnakeGameUI(this, boardRenderer,
+                incrementalRendering ? new IncrementalBoardRenderer(boardRenderer) : null);
+        scoreServer = startScoreServer();
+        String scoreServerUrl = System.getProperty("snake.scoreServer",
+                scoreServer != null ? "http://localhost:" + scoreServer.getPort() : null);
+        scoreClient = scoreServerUrl != null ? new ScoreClient(URI.create(scoreServerUrl)) : null;
         this.mainFrame.add(this);
         this.mainFrame.pack();
         this.mainFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         this.mainFrame.setLocationRelativeTo(null);
         this.mainFrame.setVisible(true);
+
+        if (replayPlayer != null) {
+            // Straight into the replay; Start Game on the menu afterwards plays it again
+            ui.setShowMenu(false);
+            run();
+        }
+    }
+
+    private static ScoreServer startScoreServer() {
+        Integer port = Integer.getInteger("snake.scoreServerPort");
+        if (port == null) {
+            return null;
+        }
+        try {
+            ScoreServer server = new ScoreServer(port, Path.of(ScoreServer.LOG_FILE));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+            server.start();
+            System.out.println("Score server listening on port " + server.getPort());
+            return server;
+        } catch (IOException e) {
+            System.err.println("Error starting score server: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static ReplayArchive openReplayArchive() {
+        try {
+            ReplayArchive archive = new ReplayArchive(Path.of(REPLAY_DIR));
+            // Queued replays are written out before the JVM exits
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    archive.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing replay archive: " + e.getMessage());
+                }
+            }));
+            return archive;
+        } catch (IOException e) {
+            System.err.println("Error opening replay archive: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private ReplayPlayer loadArchivedReplay(long id) {
+        try {
+            Replay replay;
+            if (replayArchive != null) {
+                replay = replayArchive.read(id);
+            } else {
+                try (ReplayArchive archive = new ReplayArchive(Path.of(REPLAY_DIR))) {
+                    replay = archive.read(id);
+                }
+            }
+            if (replay == null) {
+                System.err.println("No archived replay " + id);
+                return null;
+            }
+            return new ReplayPlayer(replay);
+        } catch (IOException e) {
+            System.err.println("Error loading archived replay " + id + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static ReplayPlayer loadReplay(String file) {
+        if (file == null) {
+            return null;
+        }
+        try {
+            return new ReplayPlayer(Replay.read(Path.of(file)));
+        } catch (IOException e) {
+            System.err.println("Error loading replay " + file + ": " + e.getMessage());
+            return null;
+        }
     }
 
     // Update the display dimensions based on the current window size
     private void updateDisplayDimensions() {
         this.displayWidth = this.getWidth();
         this.displayHeight = this.getHeight();
-        this.calculatedElementSize = Math.min(displayWidth / BOARD_SIZE, displayHeight / (BOARD_SIZE));
+        this.calculatedElementSize = Math.min(displayWidth / viewColumns, displayHeight / viewRows);
         this.calculatedElementSize = Math.max(calculatedElementSize, ELEMENT_SIZE);
-        this.setPreferredSize(new Dimension(calculatedElementSize*BOARD_SIZE, (calculatedElementSize * BOARD_SIZE) + DRAW_OFFSET));
+        // Re-scale the sprite atlas here rather than on the first frame after a resize
+        textureManager.setGraphicsConfiguration(getGraphicsConfiguration());
+        if (startup.isTexturesLoaded()) {
+            textureManager.ensureAtlas(calculatedElementSize);
+        }
+        if (ui != null) {
+            ui.setGraphicsConfiguration(getGraphicsConfiguration());
+        }
+        this.setPreferredSize(new Dimension(calculatedElementSize * viewColumns, (calculatedElementSize * viewRows) + DRAW_OFFSET));
         this.mainFrame.pack();
     }
 
     // Initialize the game state
     public void init() {
-        snake = new Snake(BOARD_SIZE, textureManager);
-        score = 0;
-
-        updateSnakeSpeed();
-
-        apple = new Apple(BOARD_SIZE, textureManager);
-    }
-
-    // Update the snake's speed based on the current difficulty and score
-    private void updateSnakeSpeed() {
-        double baseSpeed = BASE_SPEEDS[difficulty];
-        double maxSpeed = MAX_SPEEDS[difficulty];
-
-        double currentSpeed = baseSpeed;
-
-        if (score > 0) {
-            int speedIncrements = score / SPEED_INCREASE_THRESHOLD;
-            double speedMultiplier = 1.0 + (speedIncrements * SPEED_INCREASE_FACTOR);
-            currentSpeed = Math.min(baseSpeed * speedMultiplier, maxSpeed);
+        if (replayPlayer != null) {
+            replayPlayer.restart();
+            engine = replayPlayer.getEngine();
+            return;
         }
-
-        if (snake != null) {
-            snake.setSpeedFactor(currentSpeed);
+        long seed = seeds.nextLong();
+        if (engine == null) {
+            engine = new GameEngine(boardWidth, boardHeight, difficulty);
+        } else {
+            engine.setDifficulty(difficulty);
         }
+        engine.reset(seed);
+        recorder.start(seed, difficulty, boardWidth, boardHeight);
     }
 
     // Handle game over state
-    private void gameOver() {
+    // Must run on the EDT; the loop thread hands over with invokeLater once its session has ended.
+    // replay is the finished game's recording, or null if it was abandoned or is itself a replay
+    private void gameOver(Replay replay) {
+        if (!inGame) {
+            return;
+        }
+        if (replay != null && replayArchive != null) {
+            // Only queues the replay; the archive writes it in the background
+            try {
+                replayArchive.append(replay);
+            } catch (IOException e) {
+                System.err.println("Error archiving replay: " + e.getMessage());
+            }
+        }
         System.out.println("You lose");
         inGame = false;
+        int score = currentScore;
+
+        if (activeCanvas != null) {
+            System.out.printf("Active rendering: %.1f fps, %.2f ms average frame, %.2f ms worst frame%n",
+                    activeCanvas.getFramesPerSecond(), activeCanvas.getAverageFrameMillis(), activeCanvas.getWorstFrameMillis());
+            activeCanvas.setVisible(false);
+            requestFocusInWindow();
+        }
 
-        if (leaderboard.isHighScore(score)) {
+        // Abandoned games and replays are not recorded, so they get no rank
+        if (replay != null) {
+            RankingIndex ranking = startup.leaderboards().getRanking();
+            int rank = ranking.rankOf(difficulty, score);
+            int total = ranking.size(difficulty) + 1;
+            double percentile = ranking.percentileOf(difficulty, score);
+            System.out.printf("Score %d would rank #%d of %d at this difficulty (better than %.1f%%)%n",
+                    score, rank, total, percentile);
+            ui.setLastRank(rank, total, percentile);
+        } else {
+            ui.clearLastRank();
+        }
+        boolean highScore = replayPlayer == null && getLeaderboard().isHighScore(score);
+        if (replay != null) {
+            // Every finished game is ranked, not only those that make the board
+            startup.leaderboards().recordGame(difficulty, score);
+            // and sent to the score server, a high score once its name is entered
+            if (scoreClient != null && !highScore) {
+                scoreClient.submit(difficulty, UNNAMED_PLAYER, score);
+            }
+        }
+        sharedScorePending = replay != null && highScore;
+        if (highScore) {
             ui.setShowMenu(false);
             ui.setShowNameInput(true);
             ui.setPlayerName(new StringBuilder());
@@ -124,17 +360,82 @@ public class SnakeGame extends JPanel implements KeyListener, MouseListener, Com
     }
 
     public void submitHighScore(String name, int score) {
-        leaderboard.addScore(name, score);
+        getLeaderboard().addScore(name, score);
+        if (scoreClient != null) {
+            scoreClient.submit(difficulty, name, score);
+        }
+        sharedScorePending = false;
+    }
+
+    // The player left the name input without entering a name
+    public void skipHighScore(int score) {
+        if (scoreClient != null && sharedScorePending) {
+            scoreClient.submit(difficulty, UNNAMED_PLAYER, score);
+        }
+        sharedScorePending = false;
+    }
+
+    // Shows the leaderboard screen; with a score server it switches to the server's board
+    // once that has been fetched in the background
+    public void showLeaderboard() {
+        ui.setShowLeaderboard(true);
+        if (scoreClient != null) {
+            fetchSharedScores(difficulty);
+        }
+        repaint();
+    }
+
+    private void fetchSharedScores(int forDifficulty) {
+        Thread.ofVirtual().name("score-fetch").start(() -> {
+            List<Leaderboard.Score> top;
+            try {
+                // Scores submitted just before reach the server first
+                scoreClient.flush();
+                top = scoreClient.top(forDifficulty, Leaderboard.MAX_SCORES);
+            } catch (IOException e) {
+                System.err.println("Score server unreachable, showing the local leaderboard: " + e.getMessage());
+                top = null;
+            }
+            List<Leaderboard.Score> fetched = top;
+            SwingUtilities.invokeLater(() -> {
+                sharedScores = fetched;
+                sharedScoresDifficulty = forDifficulty;
+                if (ui.isShowLeaderboard()) {
+                    ui.leaderboardChanged();
+                    repaint();
+                }
+            });
+        });
     }
 
+    // True if the leaderboard screen shows the score server's board rather than this machine's
+    public boolean isShowingSharedScores() {
+        return scoreClient != null && sharedScores != null && sharedScoresDifficulty == difficulty;
+    }
+
+    // Scores for the leaderboard screen at the current difficulty
+    public List<Leaderboard.Score> getLeaderboardScores() {
+        return isShowingSharedScores() ? sharedScores : getLeaderboard().getScores();
+    }
+
+    // Waits for the leaderboards if they are still loading
     public Leaderboard getLeaderboard() {
-        return leaderboard;
+        return startup.leaderboards().get(difficulty);
     }
 
     public int getHighScore() {
-        return leaderboard.getHighestScore();
+        return getLeaderboard().getHighestScore();
     }
     
+    // Board cells visible at once
+    public int getViewColumns() {
+        return viewColumns;
+    }
+
+    public int getViewRows() {
+        return viewRows;
+    }
+
     // Getter and setter for difficulty
     public int getDifficulty() {
         return difficulty;
@@ -142,83 +443,150 @@ public class SnakeGame extends JPanel implements KeyListener, MouseListener, Com
     
     public void setDifficulty(int difficulty) {
         this.difficulty = difficulty;
-        // Update leaderboard when changing difficulty
-        leaderboard = new Leaderboard(difficulty);
-        
-        // Update snake speed if we're in a game
-        if (snake != null) {
-            updateSnakeSpeed();
-        }
-    }
-
-    // Check if the snake has eaten the apple
-    private void checkApple() {
-        Vector2 head = snake.getHead();
-        if(apple.isEaten(head)) {
-            // Play eating sound
-            audioManager.playEatSound();
-            snake.grow();
-            // Set eating state when apple is eaten
-            snake.setEating();
-            score++;
-            
-            // Check if we need to increase speed
-            if (score % SPEED_INCREASE_THRESHOLD == 0) {
-                updateSnakeSpeed();
-            }
-            
-            apple.place(snake.getSnakeElements());
-        }
     }
 
     // Start the game loop
     private void run() {
+        // Usually loaded long before anyone presses Start
+        startup.awaitAssets();
+        startup.leaderboards();
+        textureManager.ensureAtlas(calculatedElementSize);
         inGame = true;
-        gameThread = new Thread(this::processGameLoop);
-        gameThread.start();
-    }
-
-    // Main game loop
-    protected void processGameLoop() {
-        final long nsToSecScale = 1_000_000_000;
-        final long frameInterval = nsToSecScale / TARGET_FPS;
-
-        long lastUpdateTime = System.nanoTime();
-        long lastRenderTime = System.nanoTime();
-        long accumulatedTime = 0;
+        int currentGameId = ++gameId;
+        if (activeCanvas != null) {
+            activeCanvas.resetStats();
+            activeCanvas.setVisible(true);
+            revalidate();
+            activeCanvas.requestFocusInWindow();
+        }
+        gameLoop.start(new GameLoop.Callbacks() {
+            @Override
+            public void begin() {
+                // Reset on the loop thread so only it ever writes the engine
+                abandonRequested = false;
+                init();
+                inputRing.clear();
+                publishFrame();
+                if (incrementalRendering) {
+                    // The menu covered everything, so the first frame is painted in full
+                    repaint();
+                }
+            }
 
-        while(inGame) {
-            long currentTime = System.nanoTime();
-            long elapsedTime = currentTime - lastUpdateTime;
-            lastUpdateTime = currentTime;
-            accumulatedTime += elapsedTime;
+            @Override
+            public long tickIntervalNanos() {
+                double ticksPerSecond = engine.getSpeedFactor();
+                if (replayPlayer != null) {
+                    ticksPerSecond *= replaySpeed;
+                }
+                return (long) (NANOS_PER_SECOND / ticksPerSecond);
+            }
 
-            long updateInterval = (long)(nsToSecScale / snake.getSpeedFactor());
+            @Override
+            public boolean tick() {
+                return processTick(currentGameId);
+            }
 
-            while (accumulatedTime >= updateInterval) {
-                snake.move();
-                if(snake.checkCollision()) {
-                    gameOver();
-                    break;
+            @Override
+            public void render(double alpha) {
+                if (activeCanvas != null) {
+                    long start = metrics.renderStarted();
+                    if (activeCanvas.render(SnakeGame.this::paintActiveFrame)) {
+                        metrics.renderFinished(start);
+                    }
+                } else if (cellRepaints) {
+                    // Ticks repaint their own cells; only the eating animation moves between ticks
+                    repaintCell(engine.getSnake().getBody().getCell(0));
+                    if (showMetrics) {
+                        repaint(metricsOverlay.getBounds(OVERLAY_MARGIN, DRAW_OFFSET + OVERLAY_MARGIN));
+                    }
                 } else {
-                    checkApple();
+                    // repaint() only queues a paint request, so it is safe from the loop thread
+                    repaint();
                 }
-                accumulatedTime -= updateInterval;
             }
+        });
+    }
 
-            if (!inGame) break;
-
-            if (currentTime - lastRenderTime >= frameInterval) {
-                repaint();
-                lastRenderTime = currentTime;
-            } else {
-                try {
-                    Thread.sleep(5);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
+    // Runs one game tick on the loop thread; returns false once the game has ended
+    private boolean processTick(int tickGameId) {
+        if (abandonRequested) {
+            SwingUtilities.invokeLater(() -> {
+                if (tickGameId == gameId) {
+                    gameOver(null);
                 }
+            });
+            return false;
+        }
+        SegmentView body = engine.getSnake().getBody();
+        int oldTailCell = body.getCell(body.size() - 1);
+        int oldAppleCell = appleCell();
+
+        Snake snake = engine.getSnake();
+        Direction turn;
+        if (replayPlayer != null) {
+            turn = replayPlayer.nextTurn();
+        } else {
+            turn = inputRing.pollTurn(snake.getVelX(), snake.getVelY());
+            if (turn != null) {
+                recorder.record(engine.getTick(), turn);
+            }
+        }
+        int events = engine.step(turn);
+        publishFrame();
+        if (turn != null) {
+            metrics.inputApplied(inputRing.getLastTimestamp());
+        }
+        currentScore = engine.score();
+        if (cellRepaints) {
+            repaintCell(oldTailCell);
+            repaintCell(oldAppleCell);
+            repaintCell(body.getCell(0));
+            if (body.size() > 1) {
+                repaintCell(body.getCell(1));
             }
+            repaintCell(body.getCell(body.size() - 1));
+            repaintCell(appleCell());
+            if ((events & GameEngine.EVENT_ATE) != 0) {
+                // Score line
+                repaint(0, 0, getWidth(), DRAW_OFFSET);
+            }
+        }
+        if ((events & GameEngine.EVENT_ATE) != 0) {
+            // Play eating sound
+            audioManager.playEatSound();
         }
+        boolean replayEnded = replayPlayer != null && replayPlayer.isFinished();
+        if (engine.isOver() || replayEnded) {
+            Replay replay = replayPlayer == null ? recorder.finish(engine.getTick(), engine.score()) : null;
+            SwingUtilities.invokeLater(() -> {
+                if (tickGameId == gameId) {
+                    gameOver(replay);
+                }
+            });
+            return false;
+        }
+        return true;
+    }
+
+    // Loop thread: moves the camera to the head and publishes what it shows
+    private void publishFrame() {
+        Vector2 head = engine.getSnake().getHead();
+        camera.follow(head.x, head.y, boardWidth, boardHeight);
+        framePublisher.publish(engine, camera);
+    }
+
+    private int appleCell() {
+        Vector2 apple = engine.getApple().getPosition();
+        return apple.y * boardWidth + apple.x;
+    }
+
+    // Queues a repaint of one board cell plus the pixel its sprites may overhang
+    private void repaintCell(int cell) {
+        int elementSize = calculatedElementSize;
+        int x = (cell % boardWidth) * elementSize;
+        int y = (cell / boardWidth) * elementSize + DRAW_OFFSET;
+        repaint(x - 1, y - 1, elementSize + 2, elementSize + 2);
     }
 
     // Execute the selected menu item
@@ -228,14 +596,11 @@ public class SnakeGame extends JPanel implements KeyListener, MouseListener, Com
                 ui.setShowMenu(false);
                 ui.setShowLeaderboard(false);
                 ui.setShowNameInput(false);
-                init();
                 run();
                 break;
             case 1: // Leaderboard
-                leaderboard = new Leaderboard(difficulty);
                 ui.setShowMenu(false);
-                ui.setShowLeaderboard(true);
-                repaint();
+                showLeaderboard();
                 break;
             case 2: // Options
                 ui.setShowMenu(false);
@@ -252,15 +617,137 @@ public class SnakeGame extends JPanel implements KeyListener, MouseListener, Com
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        ui.paint(g, snake, apple, score, getHighScore());
+        // While the active canvas is up it is the only reader of published frames
+        if (activeCanvas != null && activeCanvas.isVisible()) {
+            return;
+        }
+        if (!inGame) {
+            // Menus do not show the high score, so painting them never waits for the leaderboards
+            ui.paint(g, framePublisher.acquire(), 0);
+            if (!menuShown) {
+                menuShown = true;
+                // After this paint has reached the screen
+                SwingUtilities.invokeLater(this::firstMenuPainted);
+            }
+            return;
+        }
+        long start = metrics.renderStarted();
+        ui.paint(g, framePublisher.acquire(), getHighScore());
+        if (showMetrics) {
+            metricsOverlay.draw(g, OVERLAY_MARGIN, DRAW_OFFSET + OVERLAY_MARGIN);
+        }
+        metrics.renderFinished(start);
+    }
+
+    private void firstMenuPainted() {
+        if (mainStartNanos != 0) {
+            System.out.printf("Menu shown %.1f ms after main%n", (System.nanoTime() - mainStartNanos) / 1_000_000.0);
+        }
+        startup.startRest();
+        if (Boolean.getBoolean("snake.cdsTraining")) {
+            // Training run for a class-data-sharing archive (scripts/appcds.sh): load what a
+            // game needs too, so those classes are archived, then exit
+            startup.awaitAssets();
+            startup.leaderboards();
+            System.exit(0);
+        }
+    }
+
+    // Active rendering: runs on the loop thread straight into the canvas back buffer
+    private void paintActiveFrame(Graphics2D g, int width, int height) {
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, width, height);
+        ui.paint(g, framePublisher.acquire(), getHighScore());
+        ui.drawFrameTimes(g, activeCanvas.getFramesPerSecond(), activeCanvas.getAverageRenderMillis());
+        if (showMetrics) {
+            metricsOverlay.draw(g, OVERLAY_MARGIN, DRAW_OFFSET + OVERLAY_MARGIN);
+        }
     }
 
     public static void main(String[] args) {
+        mainStartNanos = System.nanoTime();
+        boolean arena = false;
+        for (String arg : args) {
+            if (arg.equals("--arena")) {
+                arena = true;
+            } else if (arg.equals("--cdsTraining")) {
+                System.setProperty("snake.cdsTraining", "true");
+            } else if (arg.equals("--active")) {
+                System.setProperty("snake.activeRendering", "true");
+            } else if (arg.startsWith("--replay=")) {
+                System.setProperty("snake.replay", arg.substring("--replay=".length()));
+            } else if (arg.startsWith("--replayId=")) {
+                System.setProperty("snake.replayId", arg.substring("--replayId=".length()));
+            } else if (arg.startsWith("--replaySpeed=")) {
+                System.setProperty("snake.replaySpeed", arg.substring("--replaySpeed=".length()));
+            } else if (arg.startsWith("--verify=")) {
+                System.exit(verifyReplay(arg.substring("--verify=".length())) ? 0 : 1);
+            } else if (arg.equals("--verifyArchive")) {
+                System.exit(verifyArchive() ? 0 : 1);
+            } else if (arg.equals("--scoreServer") || arg.startsWith("--scoreServer=")) {
+                // Headless: only the shared leaderboard, no game window
+                try {
+                    ScoreServer.main(arg.contains("=") ? new String[] {arg.substring("--scoreServer=".length())} : new String[0]);
+                } catch (IOException e) {
+                    System.err.println("Error starting score server: " + e.getMessage());
+                    System.exit(1);
+                }
+                return;
+            } else if (arg.startsWith("--board=")) {
+                String[] size = arg.substring("--board=".length()).split("x");
+                System.setProperty("snake.boardWidth", size[0]);
+                System.setProperty("snake.boardHeight", size.length > 1 ? size[1] : size[0]);
+            }
+        }
+        if (arena) {
+            ArenaGame.start();
+            return;
+        }
         SnakeGame game = new SnakeGame();
     }
 
+    // Re-simulates every archived replay headless; prints the ids that do not match
+    private static boolean verifyArchive() {
+        try (ReplayArchive archive = new ReplayArchive(Path.of(REPLAY_DIR))) {
+            long start = System.nanoTime();
+            int mismatches = 0;
+            for (long id = 0; id < archive.size(); id++) {
+                if (!new ReplayPlayer(archive.read(id)).verify()) {
+                    System.out.println("Replay " + id + ": MISMATCH");
+                    mismatches++;
+                }
+            }
+            System.out.printf("%d replays, %d mismatches, %.2f ms%n",
+                    archive.size(), mismatches, (System.nanoTime() - start) / 1_000_000.0);
+            return mismatches == 0;
+        } catch (IOException e) {
+            System.err.println("Error verifying replay archive: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Re-simulates a replay headless and checks it ends on the recorded tick and score
+    private static boolean verifyReplay(String file) {
+        ReplayPlayer player = loadReplay(file);
+        if (player == null) {
+            return false;
+        }
+        Replay replay = player.getReplay();
+        long start = System.nanoTime();
+        boolean verified = player.verify();
+        System.out.printf("%s: score %d at tick %d, re-simulated score %d at tick %d in %.2f ms: %s%n",
+                file, replay.getScore(), replay.getFinalTick(), player.getEngine().score(), player.getEngine().getTick(),
+                (System.nanoTime() - start) / 1_000_000.0, verified ? "verified" : "MISMATCH");
+        return verified;
+    }
+
     @Override
     public void keyPressed(KeyEvent e) {
+        if (e.getKeyCode() == KeyEvent.VK_F3) {
+            showMetrics = !showMetrics;
+            repaint();
+            return;
+        }
         if(ui.isShowMenu()) {
             ui.handleMenuKeyPress(e, this);
         } else if (ui.isShowDifficultyMenu()) {
@@ -279,27 +766,28 @@ public class SnakeGame extends JPanel implements KeyListener, MouseListener, Com
         switch(keyCode) {
             case KeyEvent.VK_W:
             case KeyEvent.VK_UP:
-                snake.setDirection(0, -1);
+                inputRing.offer(Direction.UP, System.nanoTime());
                 break;
                 
             case KeyEvent.VK_A:
             case KeyEvent.VK_LEFT:
-                snake.setDirection(-1, 0);
+                inputRing.offer(Direction.LEFT, System.nanoTime());
                 break;
                 
             case KeyEvent.VK_S:
             case KeyEvent.VK_DOWN:
-                snake.setDirection(0, 1);
+                inputRing.offer(Direction.DOWN, System.nanoTime());
                 break;
                 
             case KeyEvent.VK_D:
             case KeyEvent.VK_RIGHT:
-                snake.setDirection(1, 0);
+                inputRing.offer(Direction.RIGHT, System.nanoTime());
                 break;
                 
             case KeyEvent.VK_ESCAPE:
-                // Allow returning to menu with ESC
-                gameOver();
+                // Allow returning to menu with ESC; an abandoned game is not recorded.
+                // The loop thread ends the game and hands it back, as when the snake dies.
+                abandonRequested = true;
                 break;
         }
     }
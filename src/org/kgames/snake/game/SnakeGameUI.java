@@ -5,6 +5,18 @@ import java.awt.event.KeyEvent;
 import java.util.List;
 
 public class SnakeGameUI{
+    // Fonts are created once; building them per frame was a large share of idle menu cost
+    private static final Font TITLE_FONT = new Font("TimesRoman", Font.BOLD, 36);
+    private static final Font MENU_FONT = new Font("TimesRoman", Font.BOLD, 24);
+    private static final Font HUD_FONT = new Font("TimesRoman", Font.PLAIN, 32);
+    private static final Font LEADERBOARD_FONT = new Font("TimesRoman", Font.BOLD, 20);
+    private static final Font INSTRUCTIONS_FONT = new Font("TimesRoman", Font.PLAIN, 18);
+    private static final Font SCORE_FONT = new Font("TimesRoman", Font.BOLD, 28);
+    private static final Font PROMPT_FONT = new Font("TimesRoman", Font.PLAIN, 24);
+    private static final Font INPUT_FONT = new Font("TimesRoman", Font.PLAIN, 20);
+    private static final Font INPUT_HINT_FONT = new Font("TimesRoman", Font.PLAIN, 16);
+    private static final Font SMALL_FONT = new Font("TimesRoman", Font.PLAIN, 12);
+
     private boolean showMenu = true;
     private int selectedMenuItem = 0; // Track currently selected menu item
     private final String[] menuItems = {"Start Game", "Leaderboard", "Options", "Exit"};
@@ -20,161 +32,237 @@ public class SnakeGameUI{
     private boolean showNameInput = false;
     private StringBuilder playerName = new StringBuilder();
     private int pendingScore = 0;
+    // Where the last finished game ranks at its difficulty, or null if there is nothing to show
+    private String lastRankText = null;
 
     private final SnakeGame game;
-
-    public SnakeGameUI(SnakeGame game) {
+    private final BoardRenderer boardRenderer;
+    // Null when every paint redraws the whole board
+    private final IncrementalBoardRenderer incrementalRenderer;
+    private final UILayerCache layerCache = new UILayerCache();
+    // What the cached HUD layer shows
+    private int hudScore;
+    private int hudHighScore;
+
+    // Kept in fields so painting does not create a method reference per frame
+    private final UILayerCache.LayerPainter menuPainter = this::drawMenuScreen;
+    private final UILayerCache.LayerPainter difficultyMenuPainter = this::drawDifficultyMenuScreen;
+    private final UILayerCache.LayerPainter leaderboardPainter = this::drawLeaderboardScreen;
+    private final UILayerCache.LayerPainter nameInputPainter = this::drawNameInputScreen;
+    private final UILayerCache.LayerPainter hudPainter = this::drawHud;
+
+    public SnakeGameUI(SnakeGame game, BoardRenderer boardRenderer, IncrementalBoardRenderer incrementalRenderer) {
         this.game = game;
+        this.boardRenderer = boardRenderer;
+        this.incrementalRenderer = incrementalRenderer;
     }
 
-    public void paint(Graphics g, Snake snake, Apple apple, int score, int highScore) {
+    public void paint(Graphics g, FrameSnapshot frame, int highScore) {
+        if (incrementalRenderer != null && (showNameInput || showLeaderboard || showMenu || showDifficultyMenu)) {
+            // A screen covered the board, so the next game frame starts from a full redraw
+            incrementalRenderer.invalidate();
+        }
+        int width = game.getWidth();
+        int height = game.getHeight();
+
         if (showNameInput) {
-            drawNameInputScreen(g, score);
+            layerCache.draw(g, UILayerCache.LAYER_NAME_INPUT, 0, 0, width, height, pendingScore, nameInputPainter);
+            drawNameInputField(g, width);
             return;
         }
         
         if (showLeaderboard) {
-            drawLeaderboardScreen(g);
+            layerCache.draw(g, UILayerCache.LAYER_LEADERBOARD, 0, 0, width, height, game.getDifficulty(), leaderboardPainter);
             return;
         }
 
         if(showMenu) {
-            g.setColor(Color.BLACK);
-            g.fillRect(0, 0, game.getWidth(), game.getHeight());
-            g.setFont(new Font("TimesRoman", Font.BOLD, 24));
-            
-            // Draw centered title
-            g.setColor(Color.GREEN);
-            String titleText = "SNAKE GAME";
-            g.setFont(new Font("TimesRoman", Font.BOLD, 36));
-            FontMetrics titleMetrics = g.getFontMetrics();
-            int titleWidth = titleMetrics.stringWidth(titleText);
-            g.drawString(titleText, game.getWidth() / 2 - titleWidth / 2, 60);
-            
-            // Reset font for menu items
-            g.setFont(new Font("TimesRoman", Font.BOLD, 24));
-            FontMetrics metrics = g.getFontMetrics();
-            
-            int yPosition = 150;
-            for (int i = 0; i < menuItems.length; i++) {
-                // Set color based on selection status
-                if (i == selectedMenuItem) {
-                    g.setColor(Color.GREEN); // Highlight selected item
-                } else {
-                    g.setColor(Color.WHITE);
-                }
-                
-                String menuText = menuItems[i];
-                int menuWidth = metrics.stringWidth(menuText);
-                int menuHeight = metrics.getHeight();
-                
-                // Center the menu item horizontally
-                int xPosition = game.getWidth() / 2 - menuWidth / 2;
-                
-                // Draw the menu item
-                g.drawString(menuText, xPosition, yPosition);
-                
-                // Store the bounds for mouse interaction
-                menuItemBounds[i] = new Rectangle(xPosition, yPosition - menuHeight + 5, menuWidth, menuHeight);
-                
-                yPosition += 50;
-            }
+            layerCache.draw(g, UILayerCache.LAYER_MENU, 0, 0, width, height, selectedMenuItem, menuPainter);
             return;
         }
 
         if(showDifficultyMenu) {
-            g.setColor(Color.BLACK);
-            g.fillRect(0, 0, game.getWidth(), game.getHeight());
-            g.setFont(new Font("TimesRoman", Font.BOLD, 24));
-
-            // Draw centered title
-            g.setColor(Color.GREEN);
-            String titleText = "SELECT DIFFICULTY";
-            g.setFont(new Font("TimesRoman", Font.BOLD, 36));
-            FontMetrics titleMetrics = g.getFontMetrics();
-            int titleWidth = titleMetrics.stringWidth(titleText);
-            g.drawString(titleText, game.getWidth() / 2 - titleWidth / 2, 60);
-
-            // Reset font for difficulty items
-            g.setFont(new Font("TimesRoman", Font.BOLD, 24));
-            FontMetrics metrics = g.getFontMetrics();
-
-            int yPosition = 150;
-            for (int i = 0; i < difficultyItems.length; i++) {
-                // Set color based on selection status
-                if (i == selectedDifficultyItem) {
-                    g.setColor(Color.GREEN); // Highlight selected item
-                } else {
-                    g.setColor(Color.WHITE);
-                }
-
-                String menuText = difficultyItems[i];
-                int menuWidth = metrics.stringWidth(menuText);
-                int menuHeight = metrics.getHeight();
-
-                // Center the menu item horizontally
-                int xPosition = game.getWidth() / 2 - menuWidth / 2;
-
-                // Draw the menu item
-                g.drawString(menuText, xPosition, yPosition);
-
-                // Store the bounds for mouse interaction
-                difficultyItemBounds[i] = new Rectangle(xPosition, yPosition - menuHeight + 5, menuWidth, menuHeight);
-
-                yPosition += 50;
-            }
+            layerCache.draw(g, UILayerCache.LAYER_DIFFICULTY_MENU, 0, 0, width, height, selectedDifficultyItem, difficultyMenuPainter);
             return;
         }
 
         game.setBackground(Color.BLACK);
-        snake.draw(g, game.calculatedElementSize, SnakeGame.DRAW_OFFSET);
-        apple.draw(g, game.calculatedElementSize, SnakeGame.DRAW_OFFSET);
+        // Nothing has been published yet when a game is starting
+        if (frame == null) {
+            return;
+        }
+        if (incrementalRenderer != null) {
+            drawBoardIncrementally(g, frame);
+        } else {
+            boardRenderer.draw(g, frame, game.calculatedElementSize, SnakeGame.DRAW_OFFSET);
+        }
 
+        hudScore = frame.getScore();
+        hudHighScore = highScore;
+        // Score and high score are both non-negative, so together they identify the HUD text
+        long hudKey = ((long) hudScore << 32) | hudHighScore;
+        layerCache.draw(g, UILayerCache.LAYER_HUD, 0, 0, game.getViewColumns() * game.calculatedElementSize, SnakeGame.DRAW_OFFSET,
+                hudKey, hudPainter);
+    }
+
+    private void drawHud(Graphics2D g, int width, int height) {
         g.setColor(Color.DARK_GRAY);
-        g.fillRect(0, 0, SnakeGame.BOARD_SIZE * game.calculatedElementSize, SnakeGame.DRAW_OFFSET);
+        g.fillRect(0, 0, width, height);
 
         g.setColor(Color.WHITE);
 
-        g.setFont(new Font("TimesRoman", Font.PLAIN, 32));
+        g.setFont(HUD_FONT);
         FontMetrics metrics = g.getFontMetrics();
 
-        String scoreString = "Score: " + score +  "   HighScore: " + highScore;
+        String scoreString = "Score: " + hudScore +  "   HighScore: " + hudHighScore;
 
         int textWidth = metrics.stringWidth(scoreString);
         int textHeight = metrics.getHeight();
 
-        g.drawString(scoreString, SnakeGame.BOARD_SIZE / 2 * game.calculatedElementSize - (textWidth/2), SnakeGame.DRAW_OFFSET /2 + textHeight/2);
+        g.drawString(scoreString, game.getViewColumns() / 2 * game.calculatedElementSize - (textWidth/2), SnakeGame.DRAW_OFFSET /2 + textHeight/2);
+    }
+
+    private void drawMenuScreen(Graphics2D g, int width, int height) {
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, width, height);
+
+        // Draw centered title
+        g.setColor(Color.GREEN);
+        String titleText = "SNAKE GAME";
+        g.setFont(TITLE_FONT);
+        FontMetrics titleMetrics = g.getFontMetrics();
+        int titleWidth = titleMetrics.stringWidth(titleText);
+        g.drawString(titleText, width / 2 - titleWidth / 2, 60);
+
+        // Where the game that just ended ranks
+        if (lastRankText != null) {
+            g.setColor(Color.LIGHT_GRAY);
+            g.setFont(INSTRUCTIONS_FONT);
+            FontMetrics rankMetrics = g.getFontMetrics();
+            g.drawString(lastRankText, width / 2 - rankMetrics.stringWidth(lastRankText) / 2, 100);
+        }
+
+        // Reset font for menu items
+        g.setFont(MENU_FONT);
+        FontMetrics metrics = g.getFontMetrics();
+
+        int yPosition = 150;
+        for (int i = 0; i < menuItems.length; i++) {
+            // Set color based on selection status
+            if (i == selectedMenuItem) {
+                g.setColor(Color.GREEN); // Highlight selected item
+            } else {
+                g.setColor(Color.WHITE);
+            }
+
+            String menuText = menuItems[i];
+            int menuWidth = metrics.stringWidth(menuText);
+            int menuHeight = metrics.getHeight();
+
+            // Center the menu item horizontally
+            int xPosition = width / 2 - menuWidth / 2;
+
+            // Draw the menu item
+            g.drawString(menuText, xPosition, yPosition);
+
+            // Store the bounds for mouse interaction
+            menuItemBounds[i] = new Rectangle(xPosition, yPosition - menuHeight + 5, menuWidth, menuHeight);
+
+            yPosition += 50;
+        }
+    }
+
+    private void drawDifficultyMenuScreen(Graphics2D g, int width, int height) {
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, width, height);
+
+        // Draw centered title
+        g.setColor(Color.GREEN);
+        String titleText = "SELECT DIFFICULTY";
+        g.setFont(TITLE_FONT);
+        FontMetrics titleMetrics = g.getFontMetrics();
+        int titleWidth = titleMetrics.stringWidth(titleText);
+        g.drawString(titleText, width / 2 - titleWidth / 2, 60);
+
+        // Reset font for difficulty items
+        g.setFont(MENU_FONT);
+        FontMetrics metrics = g.getFontMetrics();
+
+        int yPosition = 150;
+        for (int i = 0; i < difficultyItems.length; i++) {
+            // Set color based on selection status
+            if (i == selectedDifficultyItem) {
+                g.setColor(Color.GREEN); // Highlight selected item
+            } else {
+                g.setColor(Color.WHITE);
+            }
+
+            String menuText = difficultyItems[i];
+            int menuWidth = metrics.stringWidth(menuText);
+            int menuHeight = metrics.getHeight();
+
+            // Center the menu item horizontally
+            int xPosition = width / 2 - menuWidth / 2;
+
+            // Draw the menu item
+            g.drawString(menuText, xPosition, yPosition);
+
+            // Store the bounds for mouse interaction
+            difficultyItemBounds[i] = new Rectangle(xPosition, yPosition - menuHeight + 5, menuWidth, menuHeight);
+
+            yPosition += 50;
+        }
     }
 
-    private void drawLeaderboardScreen(Graphics g) {
-        // Get the current leaderboard
-        Leaderboard leaderboard = game.getLeaderboard();
-        List<Leaderboard.Score> scores = leaderboard.getScores();
+    private void drawBoardIncrementally(Graphics g, FrameSnapshot frame) {
+        int elementSize = game.calculatedElementSize;
+        boolean fullRedraw = incrementalRenderer.paint(g, frame, elementSize, SnakeGame.DRAW_OFFSET);
+        if (fullRedraw) {
+            // The paint may have been clipped to a few cells; make sure the rest of the board shows up
+            Rectangle board = new Rectangle(0, SnakeGame.DRAW_OFFSET,
+                    game.getViewColumns() * elementSize, game.getViewRows() * elementSize);
+            Rectangle clip = g.getClipBounds();
+            if (clip != null && !clip.contains(board)) {
+                game.repaint(board);
+            }
+        }
+    }
+
+    // Measured frame rate and render time, shown in the HUD corner in active rendering mode
+    public void drawFrameTimes(Graphics g, double framesPerSecond, double renderMillis) {
+        g.setColor(Color.LIGHT_GRAY);
+        g.setFont(SMALL_FONT);
+        g.drawString(String.format("%.0f fps  %.2f ms", framesPerSecond, renderMillis), 5, 14);
+    }
+
+    private void drawLeaderboardScreen(Graphics2D g, int width, int height) {
+        // The score server's board when there is one and it answered, else this machine's
+        List<Leaderboard.Score> scores = game.getLeaderboardScores();
 
         g.setColor(Color.BLACK);
-        g.fillRect(0, 0, game.getWidth(), game.getHeight());
+        g.fillRect(0, 0, width, height);
         
         // Draw title
         g.setColor(Color.GREEN);
-        g.setFont(new Font("TimesRoman", Font.BOLD, 36));
-        String title = "LEADERBOARD - " + difficultyItems[game.getDifficulty()];
+        g.setFont(TITLE_FONT);
+        String title = (game.isShowingSharedScores() ? "SHARED LEADERBOARD - " : "LEADERBOARD - ") + difficultyItems[game.getDifficulty()];
         FontMetrics titleMetrics = g.getFontMetrics();
         int titleWidth = titleMetrics.stringWidth(title);
-        g.drawString(title, game.getWidth() / 2 - titleWidth / 2, 60);
+        g.drawString(title, width / 2 - titleWidth / 2, 60);
         
         // Draw scores
-        g.setFont(new Font("TimesRoman", Font.BOLD, 20));
+        g.setFont(LEADERBOARD_FONT);
         int yPos = 120;
         
         if (scores.isEmpty()) {
             g.setColor(Color.WHITE);
-            g.drawString("No scores recorded yet!", game.getWidth() / 2 - 100, yPos);
+            g.drawString("No scores recorded yet!", width / 2 - 100, yPos);
         } else {
             // Table headers
             g.setColor(Color.YELLOW);
             g.drawString("RANK", 100, yPos);
             g.drawString("NAME", 200, yPos);
-            g.drawString("SCORE", game.getWidth() - 150, yPos);
+            g.drawString("SCORE", width - 150, yPos);
             
             yPos += 30;
             g.setColor(Color.WHITE);
@@ -183,65 +271,77 @@ public class SnakeGameUI{
                 Leaderboard.Score score = scores.get(i);
                 g.drawString(String.valueOf(i + 1), 100, yPos);
                 g.drawString(score.getName(), 200, yPos);
-                g.drawString(String.valueOf(score.getScore()), game.getWidth() - 150, yPos);
+                g.drawString(String.valueOf(score.getScore()), width - 150, yPos);
                 yPos += 30;
             }
         }
         
         // Draw instructions
         g.setColor(Color.GRAY);
-        g.setFont(new Font("TimesRoman", Font.PLAIN, 18));
-        g.drawString("Press ESC to return to menu", game.getWidth() / 2 - 100, game.getHeight() - 50);
+        g.setFont(INSTRUCTIONS_FONT);
+        g.drawString("Press ESC to return to menu", width / 2 - 100, height - 50);
     }
 
-    private void drawNameInputScreen(Graphics g, int score) {
+    // Everything on the name input screen except the typed name and the cursor
+    private void drawNameInputScreen(Graphics2D g, int width, int height) {
         g.setColor(Color.BLACK);
-        g.fillRect(0, 0, game.getWidth(), game.getHeight());
+        g.fillRect(0, 0, width, height);
         
         // Draw title
         g.setColor(Color.GREEN);
-        g.setFont(new Font("TimesRoman", Font.BOLD, 36));
+        g.setFont(TITLE_FONT);
         String title = "HIGH SCORE!";
         FontMetrics titleMetrics = g.getFontMetrics();
         int titleWidth = titleMetrics.stringWidth(title);
-        g.drawString(title, game.getWidth() / 2 - titleWidth / 2, 60);
+        g.drawString(title, width / 2 - titleWidth / 2, 60);
         
         // Draw score
         g.setColor(Color.WHITE);
-        g.setFont(new Font("TimesRoman", Font.BOLD, 28));
-        String scoreText = "Your score: " + score;
+        g.setFont(SCORE_FONT);
+        String scoreText = "Your score: " + pendingScore;
         FontMetrics scoreMetrics = g.getFontMetrics();
         int scoreWidth = scoreMetrics.stringWidth(scoreText);
-        g.drawString(scoreText, game.getWidth() / 2 - scoreWidth / 2, 120);
+        g.drawString(scoreText, width / 2 - scoreWidth / 2, 120);
+
+        // Draw rank
+        if (lastRankText != null) {
+            g.setColor(Color.LIGHT_GRAY);
+            g.setFont(INPUT_HINT_FONT);
+            FontMetrics rankMetrics = g.getFontMetrics();
+            g.drawString(lastRankText, width / 2 - rankMetrics.stringWidth(lastRankText) / 2, 148);
+            g.setColor(Color.WHITE);
+        }
         
         // Draw prompt
-        g.setFont(new Font("TimesRoman", Font.PLAIN, 24));
+        g.setFont(PROMPT_FONT);
         String prompt = "Enter your name:";
         FontMetrics promptMetrics = g.getFontMetrics();
         int promptWidth = promptMetrics.stringWidth(prompt);
-        g.drawString(prompt, game.getWidth() / 2 - promptWidth / 2, 180);
+        g.drawString(prompt, width / 2 - promptWidth / 2, 180);
         
         // Draw input field
         g.setColor(Color.BLACK);
-        g.fillRect(game.getWidth() / 2 - 150, 200, 300, 40);
+        g.fillRect(width / 2 - 150, 200, 300, 40);
         g.setColor(Color.WHITE);
-        g.drawRect(game.getWidth() / 2 - 150, 200, 300, 40);
+        g.drawRect(width / 2 - 150, 200, 300, 40);
         
+        // Draw instructions
+        g.setColor(Color.GRAY);
+        g.setFont(INPUT_HINT_FONT);
+        g.drawString("Press ENTER to submit", width / 2 - 80, 270);
+    }
+
+    private void drawNameInputField(Graphics g, int width) {
         // Draw name input
-        g.setFont(new Font("TimesRoman", Font.PLAIN, 20));
-        g.drawString(playerName.toString(), game.getWidth() / 2 - 140, 225);
+        g.setColor(Color.WHITE);
+        g.setFont(INPUT_FONT);
+        g.drawString(playerName.toString(), width / 2 - 140, 225);
         
         // Draw blinking cursor
         if (System.currentTimeMillis() / 500 % 2 == 0) {
-            g.setColor(Color.WHITE);
             int nameWidth = g.getFontMetrics().stringWidth(playerName.toString());
-            g.fillRect(game.getWidth() / 2 - 140 + nameWidth, 205, 2, 30);
+            g.fillRect(width / 2 - 140 + nameWidth, 205, 2, 30);
         }
-        
-        // Draw instructions
-        g.setColor(Color.GRAY);
-        g.setFont(new Font("TimesRoman", Font.PLAIN, 16));
-        g.drawString("Press ENTER to submit", game.getWidth() / 2 - 80, 270);
     }
 
     public void handleMenuKeyPress(KeyEvent e, SnakeGame game) {
@@ -330,8 +430,7 @@ public class SnakeGameUI{
             if (!name.isEmpty()) {
                 game.submitHighScore(name, pendingScore);
                 setShowNameInput(false);
-                setShowLeaderboard(true);
-                game.repaint();
+                game.showLeaderboard();
             }
         } else if (keyCode == KeyEvent.VK_BACK_SPACE && !playerName.isEmpty()) {
             // Handle backspace
@@ -339,6 +438,7 @@ public class SnakeGameUI{
             game.repaint();
         } else if (keyCode == KeyEvent.VK_ESCAPE) {
             // Cancel input
+            game.skipHighScore(pendingScore);
             setShowNameInput(false);
             setShowMenu(true);
             game.repaint();
@@ -375,6 +475,13 @@ public class SnakeGameUI{
     
     public void setShowLeaderboard(boolean showLeaderboard) {
         this.showLeaderboard = showLeaderboard;
+        // Scores may have changed since the layer was drawn
+        layerCache.invalidate(UILayerCache.LAYER_LEADERBOARD);
+    }
+
+    // The scores to show have changed while the leaderboard is on screen
+    public void leaderboardChanged() {
+        layerCache.invalidate(UILayerCache.LAYER_LEADERBOARD);
     }
     
     public boolean isShowNameInput() {
@@ -385,6 +492,11 @@ public class SnakeGameUI{
         this.showNameInput = showNameInput;
     }
     
+    // Called when the panel moves to another screen configuration
+    public void setGraphicsConfiguration(GraphicsConfiguration graphicsConfiguration) {
+        layerCache.setGraphicsConfiguration(graphicsConfiguration);
+    }
+
     public Rectangle[] getMenuItemBounds() {
         return menuItemBounds;
     }
@@ -408,6 +520,19 @@ public class SnakeGameUI{
     public int getPendingScore() {
         return pendingScore;
     }
+
+    // Shows where the game that just ended ranks, e.g. "Rank #3 of 40 (better than 92.5%)"
+    public void setLastRank(int rank, int total, double percentile) {
+        lastRankText = String.format("Rank #%d of %d (better than %.1f%%)", rank, total, percentile);
+        layerCache.invalidate(UILayerCache.LAYER_MENU);
+        layerCache.invalidate(UILayerCache.LAYER_NAME_INPUT);
+    }
+
+    public void clearLastRank() {
+        lastRankText = null;
+        layerCache.invalidate(UILayerCache.LAYER_MENU);
+        layerCache.invalidate(UILayerCache.LAYER_NAME_INPUT);
+    }
     
     public String[] getDifficultyItems() {
         return difficultyItems;
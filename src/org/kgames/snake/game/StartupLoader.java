@@ -0,0 +1,91 @@
+package org.kgames.snake.game;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+// Loads textures, sounds and leaderboards on virtual threads, so the window and menu come up
+// without waiting for any of them. Textures start loading at once, since every game needs them.
+// Sounds, the leaderboards and tasks given to afterMenu() start only with startRest(), called
+// once the first menu frame is on screen, so they neither delay it nor compete with it for the
+// CPU. Menus need none of it; whatever does need a part joins it first, which starts it if it has
+// not been started and blocks only while it is loading. A game joins everything.
+public class StartupLoader {
+    private final AudioManager audioManager;
+    private final File savesDir;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final CompletableFuture<Void> textures;
+    private final CompletableFuture<Void> sounds = new CompletableFuture<>();
+    private final CompletableFuture<LeaderboardRepository> leaderboards = new CompletableFuture<>();
+
+    // Guarded by this
+    private final List<Runnable> afterMenu = new ArrayList<>();
+    private boolean restStarted = false;
+
+    // Starts loading textures; the managers must not be used before the matching join
+    public StartupLoader(TextureManager textureManager, AudioManager audioManager, File savesDir) {
+        this.audioManager = audioManager;
+        this.savesDir = savesDir;
+        textures = CompletableFuture.runAsync(textureManager::init, executor);
+    }
+
+    // Runs task in the background together with the deferred loads
+    public synchronized void afterMenu(Runnable task) {
+        if (restStarted) {
+            Thread.ofVirtual().start(task);
+        } else {
+            afterMenu.add(task);
+        }
+    }
+
+    // Starts loading sounds and leaderboards and runs the afterMenu() tasks; later calls do nothing
+    public synchronized void startRest() {
+        if (restStarted) {
+            return;
+        }
+        restStarted = true;
+        executor.execute(() -> complete(sounds, () -> {
+            audioManager.loadSounds();
+            return null;
+        }));
+        executor.execute(() -> complete(leaderboards,
+                () -> new LeaderboardRepository(savesDir, GameEngine.DIFFICULTY_COUNT)));
+        afterMenu.forEach(executor::execute);
+        afterMenu.clear();
+        // Lets the tasks finish, then the executor's threads end
+        executor.shutdown();
+    }
+
+    private static <T> void complete(CompletableFuture<T> future, Supplier<T> load) {
+        try {
+            future.complete(load.get());
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    public boolean isTexturesLoaded() {
+        return textures.isDone();
+    }
+
+    // Blocks until textures and sounds are loaded
+    public void awaitAssets() {
+        startRest();
+        textures.join();
+        sounds.join();
+    }
+
+    // Blocks until the leaderboards are loaded
+    public LeaderboardRepository leaderboards() {
+        startRest();
+        return leaderboards.join();
+    }
+
+    public CompletableFuture<LeaderboardRepository> getLeaderboardsFuture() {
+        return leaderboards;
+    }
+}
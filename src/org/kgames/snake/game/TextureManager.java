@@ -1,6 +1,8 @@
 package org.kgames.snake.game;
 
 import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 
 public class TextureManager {
@@ -42,6 +44,31 @@ public class TextureManager {
     public BufferedImage SNAKE_TAIL_IMAGE_5;
     public BufferedImage APPLE_IMAGE;
 
+    // Sprite ids, one atlas column each
+    public static final int SPRITE_HEAD = 0;
+    public static final int SPRITE_HEAD_EATING = 1;
+    public static final int SPRITE_HEAD_DEAD = 2;
+    public static final int SPRITE_BODY = 3;
+    public static final int SPRITE_BODY_2 = 4;
+    public static final int SPRITE_CORNER_LEFT = 5;
+    public static final int SPRITE_CORNER_RIGHT = 6;
+    public static final int SPRITE_TAIL_0 = 7; // Followed by the other four tail animation frames
+    public static final int SPRITE_APPLE = 12;
+    private static final int SPRITE_COUNT = 13;
+    // Atlas rows hold the sprites rotated by 0, 90, 180 and 270 degrees
+    private static final int ROTATION_COUNT = 4;
+    // Rotating around an integer center can shift a sprite one pixel past its cell, so tiles keep a margin
+    private static final int TILE_PADDING = 1;
+
+    // Every sprite pre-rotated and pre-scaled to one cell size, so drawing is a plain blit.
+    // Never modified once built; the EDT and the loop thread both rebuild and draw, so a new
+    // atlas is published whole through a volatile field and each draw reads it once.
+    private record Atlas(BufferedImage image, int cellSize, GraphicsConfiguration graphicsConfiguration) {
+    }
+
+    private volatile Atlas atlas;
+    private volatile GraphicsConfiguration graphicsConfiguration;
+
     public boolean init() {
         SNAKE_HEAD_IMAGE = loadImage(SNAKE_HEAD_TEXTURE_PATH);
         SNAKE_HEAD_EATING_IMAGE = loadImage(SNAKE_HEAD_EATING_TEXTURE_PATH);
@@ -68,6 +95,89 @@ public class TextureManager {
                 && APPLE_IMAGE != null;
     }
 
+    // Rebuilds the atlas when the cell size or graphics configuration changes; cheap to call every frame.
+    // Two threads may rebuild at once, which only costs time: both build the same atlas.
+    public void ensureAtlas(int cellSize) {
+        Atlas current = atlas;
+        GraphicsConfiguration gc = graphicsConfiguration;
+        if (current == null || current.cellSize() != cellSize || current.graphicsConfiguration() != gc) {
+            atlas = buildAtlas(cellSize, gc);
+        }
+    }
+
+    // Currently published atlas image, or null before the first ensureAtlas; for tests
+    BufferedImage getAtlasImage() {
+        Atlas current = atlas;
+        return current == null ? null : current.image();
+    }
+
+    // Target configuration for compatible images; passing the panel's one lets Java2D accelerate the atlas
+    public void setGraphicsConfiguration(GraphicsConfiguration graphicsConfiguration) {
+        this.graphicsConfiguration = graphicsConfiguration;
+    }
+
+    private Atlas buildAtlas(int cellSize, GraphicsConfiguration gc) {
+        BufferedImage[] sprites = {
+                SNAKE_HEAD_IMAGE, SNAKE_HEAD_EATING_IMAGE, SNAKE_HEAD_DEAD_IMAGE,
+                SNAKE_BODY_IMAGE, SNAKE_BODY_IMAGE_2, SNAKE_BODY_CORNER_LEFT, SNAKE_BODY_CORNER_RIGHT,
+                SNAKE_TAIL_IMAGE_1, SNAKE_TAIL_IMAGE_2, SNAKE_TAIL_IMAGE_3, SNAKE_TAIL_IMAGE_4, SNAKE_TAIL_IMAGE_5,
+                APPLE_IMAGE
+        };
+
+        int tileSize = cellSize + 2 * TILE_PADDING;
+        int width = tileSize * SPRITE_COUNT;
+        int height = tileSize * ROTATION_COUNT;
+        BufferedImage newAtlas = createCompatibleImage(gc, width, height);
+
+        Graphics2D g2d = newAtlas.createGraphics();
+        for (int rotation = 0; rotation < ROTATION_COUNT; rotation++) {
+            for (int sprite = 0; sprite < SPRITE_COUNT; sprite++) {
+                if (sprites[sprite] == null) {
+                    continue;
+                }
+                int tileX = sprite * tileSize;
+                int tileY = rotation * tileSize;
+                int x = tileX + TILE_PADDING;
+                int y = tileY + TILE_PADDING;
+
+                // Same transform the renderer used per segment before the atlas existed
+                AffineTransform transform = new AffineTransform();
+                transform.translate(x + cellSize / 2, y + cellSize / 2);
+                transform.rotate(Math.toRadians(rotation * 90));
+                transform.translate(-cellSize / 2, -cellSize / 2);
+
+                g2d.setClip(tileX, tileY, tileSize, tileSize);
+                g2d.setTransform(transform);
+                g2d.drawImage(sprites[sprite], 0, 0, cellSize, cellSize, null);
+                g2d.setTransform(new AffineTransform());
+            }
+        }
+        g2d.dispose();
+
+        return new Atlas(newAtlas, cellSize, gc);
+    }
+
+    private static BufferedImage createCompatibleImage(GraphicsConfiguration gc, int width, int height) {
+        if (gc == null && !GraphicsEnvironment.isHeadless()) {
+            gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+        }
+        if (gc != null) {
+            return gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+
+    // Blits one pre-rotated sprite; angleDegrees must be a multiple of 90
+    public void drawSprite(Graphics g, int sprite, int angleDegrees, int x, int y) {
+        Atlas current = atlas;
+        int tileSize = current.cellSize() + 2 * TILE_PADDING;
+        int sx = sprite * tileSize;
+        int sy = ((angleDegrees / 90) & 3) * tileSize;
+        int dx = x - TILE_PADDING;
+        int dy = y - TILE_PADDING;
+        g.drawImage(current.image(), dx, dy, dx + tileSize, dy + tileSize, sx, sy, sx + tileSize, sy + tileSize, null);
+    }
+
     private BufferedImage loadImage(String imagePath) {
         BufferedImage image = null;
         try {
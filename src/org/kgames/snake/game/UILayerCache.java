@@ -0,0 +1,80 @@
+package org.kgames.snake.game;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+// Pre-rendered images of the menu screens and the HUD bar.
+// A layer is repainted only when its size or state key changes, so an idle menu or a
+// steady score costs one image blit per paint instead of font lookups, text measuring
+// and string building.
+public class UILayerCache {
+    public static final int LAYER_MENU = 0;
+    public static final int LAYER_DIFFICULTY_MENU = 1;
+    public static final int LAYER_LEADERBOARD = 2;
+    public static final int LAYER_NAME_INPUT = 3;
+    public static final int LAYER_HUD = 4;
+    private static final int LAYER_COUNT = 5;
+
+    public interface LayerPainter {
+        void paint(Graphics2D g, int width, int height);
+    }
+
+    private final BufferedImage[] images = new BufferedImage[LAYER_COUNT];
+    private final long[] stateKeys = new long[LAYER_COUNT];
+    private final boolean[] valid = new boolean[LAYER_COUNT];
+
+    private GraphicsConfiguration graphicsConfiguration;
+
+    // Lets layers be created in the screen's native pixel format
+    public void setGraphicsConfiguration(GraphicsConfiguration graphicsConfiguration) {
+        if (graphicsConfiguration != this.graphicsConfiguration) {
+            this.graphicsConfiguration = graphicsConfiguration;
+            invalidateAll();
+            for (int i = 0; i < LAYER_COUNT; i++) {
+                images[i] = null;
+            }
+        }
+    }
+
+    // Draws the layer at (x, y), repainting it first if the size or state key changed
+    public void draw(Graphics g, int layer, int x, int y, int width, int height, long stateKey, LayerPainter painter) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        BufferedImage image = images[layer];
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = createImage(width, height);
+            images[layer] = image;
+            valid[layer] = false;
+        }
+        if (!valid[layer] || stateKeys[layer] != stateKey) {
+            Graphics2D imageGraphics = image.createGraphics();
+            try {
+                painter.paint(imageGraphics, width, height);
+            } finally {
+                imageGraphics.dispose();
+            }
+            stateKeys[layer] = stateKey;
+            valid[layer] = true;
+        }
+        g.drawImage(image, x, y, null);
+    }
+
+    // For state the key does not capture, such as leaderboard contents
+    public void invalidate(int layer) {
+        valid[layer] = false;
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < LAYER_COUNT; i++) {
+            valid[i] = false;
+        }
+    }
+
+    private BufferedImage createImage(int width, int height) {
+        if (graphicsConfiguration != null) {
+            return graphicsConfiguration.createCompatibleImage(width, height, Transparency.OPAQUE);
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+}
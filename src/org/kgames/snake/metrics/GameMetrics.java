@@ -0,0 +1,209 @@
+package org.kgames.snake.metrics;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Timing of the game loop: tick update time, frame render time, key press latency, catch-up
+// ticks and heap allocated per tick, each kept in a LatencyHistogram.
+// Tick, input and catch-up figures are recorded by the loop thread; render figures by whichever
+// thread paints frames (the EDT for Swing painting, the loop thread for active rendering).
+// Readers such as JMX and the overlay may run on any thread.
+public class GameMetrics implements GameMetricsMXBean {
+    private static final String DOMAIN = "org.kgames.snake";
+    private static final double NANOS_PER_MICRO = 1_000.0;
+
+    private final LatencyHistogram tickNanos = new LatencyHistogram();
+    private final LatencyHistogram renderNanos = new LatencyHistogram();
+    private final LatencyHistogram inputToTickNanos = new LatencyHistogram();
+    private final LatencyHistogram inputToFrameNanos = new LatencyHistogram();
+    private final LatencyHistogram catchUpTicks = new LatencyHistogram();
+    private final LatencyHistogram allocatedBytes = new LatencyHistogram();
+    private final AtomicLong droppedBacklogs = new AtomicLong();
+
+    // Press time of the oldest applied key press no frame has shown yet, or 0
+    private final AtomicLong pendingInputNanos = new AtomicLong();
+
+    // Null when the JVM cannot report per-thread allocation
+    private final com.sun.management.ThreadMXBean allocationBean;
+    // Loop thread only
+    private long tickStartAllocated = 0;
+
+    public GameMetrics() {
+        com.sun.management.ThreadMXBean bean = null;
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+            bean = threads;
+        }
+        allocationBean = bean;
+    }
+
+    // Publishes these metrics as org.kgames.snake:type=GameMetrics,name=<name>
+    public void register(String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                    new ObjectName(DOMAIN + ":type=GameMetrics,name=" + name));
+        } catch (Exception e) {
+            System.err.println("Failed to register metrics over JMX: " + e.getMessage());
+        }
+    }
+
+    // Loop thread: call before a tick and pass the result to tickFinished()
+    public long tickStarted() {
+        if (allocationBean != null) {
+            tickStartAllocated = allocationBean.getCurrentThreadAllocatedBytes();
+        }
+        return System.nanoTime();
+    }
+
+    public void tickFinished(long startNanos) {
+        tickNanos.record(System.nanoTime() - startNanos);
+        if (allocationBean != null) {
+            allocatedBytes.record(allocationBean.getCurrentThreadAllocatedBytes() - tickStartAllocated);
+        }
+    }
+
+    // Loop thread: a key pressed at pressNanos was applied by the current tick
+    public void inputApplied(long pressNanos) {
+        inputToTickNanos.record(System.nanoTime() - pressNanos);
+        // Keep the older press if no frame has shown the previous one yet
+        pendingInputNanos.compareAndSet(0, pressNanos);
+    }
+
+    // Loop thread: number of ticks run since the previous frame
+    public void recordCatchUp(int ticks) {
+        catchUpTicks.record(ticks);
+    }
+
+    public void backlogDropped() {
+        droppedBacklogs.incrementAndGet();
+    }
+
+    // Painting thread: call before drawing a game frame and pass the result to renderFinished()
+    public long renderStarted() {
+        return System.nanoTime();
+    }
+
+    // Call once the frame is drawn; frames are published before inputApplied() runs, so a
+    // pending press is always part of the frame that picks it up here
+    public void renderFinished(long startNanos) {
+        long now = System.nanoTime();
+        renderNanos.record(now - startNanos);
+        long pressNanos = pendingInputNanos.getAndSet(0);
+        if (pressNanos != 0) {
+            inputToFrameNanos.record(now - pressNanos);
+        }
+    }
+
+    private static double micros(long nanos) {
+        return nanos / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getTickCount() {
+        return tickNanos.getCount();
+    }
+
+    @Override
+    public double getTickMeanMicros() {
+        return tickNanos.getMean() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getTickP99Micros() {
+        return micros(tickNanos.getValueAtPercentile(99));
+    }
+
+    @Override
+    public double getTickMaxMicros() {
+        return micros(tickNanos.getMax());
+    }
+
+    @Override
+    public long getFrameCount() {
+        return renderNanos.getCount();
+    }
+
+    @Override
+    public double getRenderMeanMicros() {
+        return renderNanos.getMean() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getRenderP99Micros() {
+        return micros(renderNanos.getValueAtPercentile(99));
+    }
+
+    @Override
+    public double getRenderMaxMicros() {
+        return micros(renderNanos.getMax());
+    }
+
+    @Override
+    public long getInputCount() {
+        return inputToTickNanos.getCount();
+    }
+
+    @Override
+    public double getInputToTickP50Micros() {
+        return micros(inputToTickNanos.getValueAtPercentile(50));
+    }
+
+    @Override
+    public double getInputToTickP99Micros() {
+        return micros(inputToTickNanos.getValueAtPercentile(99));
+    }
+
+    @Override
+    public double getInputToFrameP50Micros() {
+        return micros(inputToFrameNanos.getValueAtPercentile(50));
+    }
+
+    @Override
+    public double getInputToFrameP99Micros() {
+        return micros(inputToFrameNanos.getValueAtPercentile(99));
+    }
+
+    @Override
+    public double getInputToFrameMaxMicros() {
+        return micros(inputToFrameNanos.getMax());
+    }
+
+    @Override
+    public long getCatchUpTicksMax() {
+        return catchUpTicks.getMax();
+    }
+
+    @Override
+    public double getCatchUpTicksMean() {
+        return catchUpTicks.getMean();
+    }
+
+    @Override
+    public long getDroppedBacklogCount() {
+        return droppedBacklogs.get();
+    }
+
+    @Override
+    public double getAllocatedBytesPerTickMean() {
+        return allocationBean == null ? -1 : allocatedBytes.getMean();
+    }
+
+    @Override
+    public long getAllocatedBytesPerTickP99() {
+        return allocationBean == null ? -1 : allocatedBytes.getValueAtPercentile(99);
+    }
+
+    @Override
+    public void reset() {
+        tickNanos.reset();
+        renderNanos.reset();
+        inputToTickNanos.reset();
+        inputToFrameNanos.reset();
+        catchUpTicks.reset();
+        allocatedBytes.reset();
+        droppedBacklogs.set(0);
+        pendingInputNanos.set(0);
+    }
+}
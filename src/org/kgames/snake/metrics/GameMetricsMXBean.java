@@ -0,0 +1,50 @@
+package org.kgames.snake.metrics;
+
+// Timing and allocation figures published over JMX, e.g. for JConsole or VisualVM.
+// Times are in microseconds and cover everything recorded since the last reset().
+public interface GameMetricsMXBean {
+    long getTickCount();
+
+    double getTickMeanMicros();
+
+    double getTickP99Micros();
+
+    double getTickMaxMicros();
+
+    long getFrameCount();
+
+    double getRenderMeanMicros();
+
+    double getRenderP99Micros();
+
+    double getRenderMaxMicros();
+
+    // Key press to the tick that applied it
+    long getInputCount();
+
+    double getInputToTickP50Micros();
+
+    double getInputToTickP99Micros();
+
+    // Key press to the first frame drawn after the tick that applied it
+    double getInputToFrameP50Micros();
+
+    double getInputToFrameP99Micros();
+
+    double getInputToFrameMaxMicros();
+
+    // Ticks run between two frames; more than one means the loop was catching up
+    long getCatchUpTicksMax();
+
+    double getCatchUpTicksMean();
+
+    // Times the loop gave up catching up and dropped its backlog
+    long getDroppedBacklogCount();
+
+    // Heap allocated by the loop thread during one tick; -1 if the JVM cannot measure it
+    double getAllocatedBytesPerTickMean();
+
+    long getAllocatedBytesPerTickP99();
+
+    void reset();
+}
@@ -0,0 +1,111 @@
+package org.kgames.snake.metrics;
+
+import java.util.Arrays;
+
+// Fixed-size log-linear histogram in the style of HdrHistogram.
+// Every power of two is split into SUB_BUCKETS linear buckets, so any recorded value is kept
+// to within about 3% while the whole long range fits in a couple of thousand counters.
+// Recording never allocates and costs a few shifts, which keeps it cheap enough for every tick.
+//
+// Only one thread may record into a histogram. Other threads (JMX, the overlay) may read it
+// at any time; they may see a record or two out of date, which is fine for monitoring.
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values below 2 * SUB_BUCKETS are counted exactly; each octave above adds SUB_BUCKETS buckets
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    // Written after counts, so a reader that sees a count also sees the bucket it went into
+    private volatile long totalCount = 0;
+    private volatile long sum = 0;
+    private volatile long max = 0;
+    // Set by readers; the recording thread performs the reset before its next record
+    private volatile boolean resetRequested = false;
+
+    // Recording thread only; negative values are counted as zero
+    public void record(long value) {
+        if (resetRequested) {
+            clear();
+        }
+        if (value < 0) {
+            value = 0;
+        }
+        counts[bucketIndex(value)]++;
+        sum += value;
+        if (value > max) {
+            max = value;
+        }
+        totalCount++;
+    }
+
+    // Safe from any thread
+    public void reset() {
+        resetRequested = true;
+    }
+
+    private void clear() {
+        Arrays.fill(counts, 0L);
+        sum = 0;
+        max = 0;
+        totalCount = 0;
+        resetRequested = false;
+    }
+
+    public long getCount() {
+        return resetRequested ? 0 : totalCount;
+    }
+
+    public long getMax() {
+        return resetRequested ? 0 : max;
+    }
+
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    // Smallest bucket bound that at least percentile% of the recorded values fall under
+    public long getValueAtPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        // The top SUB_BUCKET_BITS + 1 bits, in [SUB_BUCKETS, 2 * SUB_BUCKETS)
+        int mantissa = (int) (value >>> shift);
+        return shift * SUB_BUCKETS + mantissa;
+    }
+
+    static long lowestEquivalentValue(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long mantissa = index % SUB_BUCKETS + SUB_BUCKETS;
+        return mantissa << shift;
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index == BUCKET_COUNT - 1) {
+            return Long.MAX_VALUE;
+        }
+        return lowestEquivalentValue(index + 1) - 1;
+    }
+}
@@ -0,0 +1,55 @@
+package org.kgames.snake.metrics;
+
+import java.awt.*;
+
+// Small text panel with the current GameMetrics figures, drawn over the board when toggled on
+public class MetricsOverlay {
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final Color BACKGROUND = new Color(0, 0, 0, 170);
+    private static final int LINE_HEIGHT = 14;
+    private static final int PADDING = 4;
+    private static final int WIDTH = 330;
+    private static final int LINES = 6;
+
+    private final GameMetrics metrics;
+
+    public MetricsOverlay(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Area the overlay covers when drawn at (x, y), for partial repaints
+    public Rectangle getBounds(int x, int y) {
+        return new Rectangle(x, y, WIDTH, LINES * LINE_HEIGHT + 2 * PADDING);
+    }
+
+    public void draw(Graphics g, int x, int y) {
+        Rectangle bounds = getBounds(x, y);
+        g.setColor(BACKGROUND);
+        g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+        g.setColor(Color.LIGHT_GRAY);
+        g.setFont(FONT);
+
+        int line = y + PADDING + LINE_HEIGHT - 3;
+        g.drawString(String.format("tick    mean %6.2f  p99 %6.2f  max %6.2f ms",
+                millis(metrics.getTickMeanMicros()), millis(metrics.getTickP99Micros()), millis(metrics.getTickMaxMicros())), x + PADDING, line);
+        line += LINE_HEIGHT;
+        g.drawString(String.format("render  mean %6.2f  p99 %6.2f  max %6.2f ms",
+                millis(metrics.getRenderMeanMicros()), millis(metrics.getRenderP99Micros()), millis(metrics.getRenderMaxMicros())), x + PADDING, line);
+        line += LINE_HEIGHT;
+        g.drawString(String.format("key>tick    p50 %6.2f  p99 %6.2f ms",
+                millis(metrics.getInputToTickP50Micros()), millis(metrics.getInputToTickP99Micros())), x + PADDING, line);
+        line += LINE_HEIGHT;
+        g.drawString(String.format("key>frame   p50 %6.2f  p99 %6.2f  max %6.2f",
+                millis(metrics.getInputToFrameP50Micros()), millis(metrics.getInputToFrameP99Micros()), millis(metrics.getInputToFrameMaxMicros())), x + PADDING, line);
+        line += LINE_HEIGHT;
+        g.drawString(String.format("catch-up    mean %4.2f  max %d  dropped %d",
+                metrics.getCatchUpTicksMean(), metrics.getCatchUpTicksMax(), metrics.getDroppedBacklogCount()), x + PADDING, line);
+        line += LINE_HEIGHT;
+        g.drawString(String.format("alloc/tick  mean %.0f B  p99 %d B",
+                metrics.getAllocatedBytesPerTickMean(), metrics.getAllocatedBytesPerTickP99()), x + PADDING, line);
+    }
+
+    private static double millis(double micros) {
+        return micros / 1_000.0;
+    }
+}
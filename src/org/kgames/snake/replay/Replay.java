@@ -0,0 +1,201 @@
+package org.kgames.snake.replay;
+
+import org.kgames.snake.game.Direction;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// One recorded game: the seed, difficulty and board size it started with, every turn applied
+// and the tick and score it ended on. The game engine is deterministic for a given seed and
+// turn sequence, so this is enough to re-simulate the game exactly.
+//
+// Binary layout, big-endian:
+//   int   magic 'SNKR'
+//   byte  format version
+//   long  seed
+//   byte  difficulty
+//   var   board width, board height
+//   long  start time, epoch milliseconds
+//   var   per turn: ((ticks since the previous turn + 1) << 2) | direction ordinal; 0 ends the list
+//   var   final tick, final score
+// where var is an unsigned LEB128 varint. A turn costs one byte unless the player waited more
+// than 31 ticks, so a whole game usually fits in a few hundred bytes.
+public class Replay {
+    private static final int MAGIC = 0x534E4B52;
+    private static final byte VERSION = 1;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final long seed;
+    private final int difficulty;
+    private final int boardWidth;
+    private final int boardHeight;
+    private final long startedAtMillis;
+    // Tick at which each turn was applied, ascending
+    private final long[] turnTicks;
+    private final Direction[] turns;
+    private final long finalTick;
+    private final int score;
+
+    public Replay(long seed, int difficulty, int boardWidth, int boardHeight, long startedAtMillis,
+                  long[] turnTicks, Direction[] turns, long finalTick, int score) {
+        if (turnTicks.length != turns.length) {
+            throw new IllegalArgumentException("Turn ticks and directions differ in length");
+        }
+        this.seed = seed;
+        this.difficulty = difficulty;
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        this.startedAtMillis = startedAtMillis;
+        this.turnTicks = turnTicks;
+        this.turns = turns;
+        this.finalTick = finalTick;
+        this.score = score;
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 + turns.length * 2);
+        writeInt(out, MAGIC);
+        out.write(VERSION);
+        writeLong(out, seed);
+        out.write(difficulty);
+        writeVarLong(out, boardWidth);
+        writeVarLong(out, boardHeight);
+        writeLong(out, startedAtMillis);
+        long previousTick = 0;
+        for (int i = 0; i < turns.length; i++) {
+            writeVarLong(out, ((turnTicks[i] - previousTick + 1) << 2) | turns[i].ordinal());
+            previousTick = turnTicks[i];
+        }
+        writeVarLong(out, 0);
+        writeVarLong(out, finalTick);
+        writeVarLong(out, score);
+        return out.toByteArray();
+    }
+
+    // Reads one replay starting at the buffer's position and leaves the position after it
+    public static Replay decode(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a replay");
+            }
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported replay version " + version);
+            }
+            long seed = buffer.getLong();
+            int difficulty = buffer.get();
+            int width = (int) readVarLong(buffer);
+            int height = (int) readVarLong(buffer);
+            long startedAt = buffer.getLong();
+            if (width <= 0 || height <= 0) {
+                throw new IOException("Bad board size " + width + "x" + height);
+            }
+
+            long[] ticks = new long[16];
+            Direction[] directions = new Direction[16];
+            int count = 0;
+            long tick = 0;
+            for (long value = readVarLong(buffer); value != 0; value = readVarLong(buffer)) {
+                if (count == ticks.length) {
+                    ticks = Arrays.copyOf(ticks, count * 2);
+                    directions = Arrays.copyOf(directions, count * 2);
+                }
+                tick += (value >>> 2) - 1;
+                ticks[count] = tick;
+                directions[count] = DIRECTIONS[(int) (value & 3)];
+                count++;
+            }
+            long finalTick = readVarLong(buffer);
+            int score = (int) readVarLong(buffer);
+            return new Replay(seed, difficulty, width, height, startedAt,
+                    Arrays.copyOf(ticks, count), Arrays.copyOf(directions, count), finalTick, score);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated replay", e);
+        }
+    }
+
+    public void write(Path file) throws IOException {
+        Files.write(file, encode());
+    }
+
+    public static Replay read(Path file) throws IOException {
+        return decode(ByteBuffer.wrap(Files.readAllBytes(file)));
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        writeInt(out, (int) (value >>> 32));
+        writeInt(out, (int) value);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getDifficulty() {
+        return difficulty;
+    }
+
+    public int getBoardWidth() {
+        return boardWidth;
+    }
+
+    public int getBoardHeight() {
+        return boardHeight;
+    }
+
+    public long getStartedAtMillis() {
+        return startedAtMillis;
+    }
+
+    public int getTurnCount() {
+        return turns.length;
+    }
+
+    public long getTurnTick(int i) {
+        return turnTicks[i];
+    }
+
+    public Direction getTurn(int i) {
+        return turns[i];
+    }
+
+    public long getFinalTick() {
+        return finalTick;
+    }
+
+    public int getScore() {
+        return score;
+    }
+}
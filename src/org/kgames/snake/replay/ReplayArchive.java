@@ -0,0 +1,395 @@
+package org.kgames.snake.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// Append-only store for large numbers of replays in one directory.
+//
+// Encoded replays are appended back to back to segment files (segment-00000.log, ...) of up to
+// SEGMENT_SIZE bytes each. index.dat holds one fixed-size entry per replay with its segment,
+// offset, length, score and difficulty. A replay's id is its position in the index. Opening
+// an archive reads only the index. Replays are read through read-only memory maps of the
+// segments, so slice() returns the stored bytes without copying them.
+//
+// append() only queues the replay. A background thread writes queued replays in batches, with
+// one gathering write per segment followed by one index write, so the thread that finishes a
+// game never waits for the disk. Segment data is forced to the disk before its index entries
+// are written; on open, bytes past the last indexed replay are cut off, so a crash mid-batch
+// loses only that batch. After a failed write the writer stops, and append(), flush() and
+// close() throw the failure.
+public class ReplayArchive implements AutoCloseable {
+    private static final int SEGMENT_SIZE = 64 << 20;
+    private static final int ENTRY_SIZE = 20;
+    private static final int MAX_BATCH = 256;
+    private static final String INDEX_FILE = "index.dat";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private record Pending(byte[] bytes, int score, int difficulty) {
+    }
+
+    // Queued by close() after the last replay
+    private static final Pending END = new Pending(new byte[0], 0, 0);
+
+    private final Path dir;
+    private final FileChannel indexChannel;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    // Writer thread only
+    private FileChannel segmentChannel;
+    private int segmentNumber;
+
+    // Index columns, guarded by this; entries [0, count) are on disk
+    private int[] segments = new int[1024];
+    private int[] offsets = new int[1024];
+    private int[] lengths = new int[1024];
+    private int[] scores = new int[1024];
+    private byte[] difficulties = new byte[1024];
+    private int count = 0;
+    // Ids handed out by append(), including queued ones
+    private long nextId;
+    private final List<MappedByteBuffer> maps = new ArrayList<>();
+    private final Map<Integer, ScoreIndex> scoreIndexes = new HashMap<>();
+    private boolean closed = false;
+    private IOException writeFailure;
+
+    public ReplayArchive(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        indexChannel = FileChannel.open(dir.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        loadIndex();
+        nextId = count;
+
+        segmentNumber = count == 0 ? 0 : segments[count - 1];
+        long segmentEnd = count == 0 ? 0 : (long) offsets[count - 1] + lengths[count - 1];
+        discardUnindexed(segmentNumber, segmentEnd);
+        segmentChannel = openSegment(segmentNumber);
+
+        writer = new Thread(this::writeLoop, "replay-archive-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void loadIndex() throws IOException {
+        // A partial entry at the end was being written when the process stopped
+        long entries = indexChannel.size() / ENTRY_SIZE;
+        indexChannel.truncate(entries * ENTRY_SIZE);
+        if (entries == 0) {
+            return;
+        }
+        MappedByteBuffer index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, entries * ENTRY_SIZE);
+        for (int i = 0; i < entries; i++) {
+            addEntry(index.getInt(), index.getInt(), index.getInt(), index.getInt(), (byte) index.getInt());
+        }
+    }
+
+    // Cuts the current segment back to its last indexed replay and removes any later segment
+    private void discardUnindexed(int lastSegment, long end) throws IOException {
+        Path current = segmentPath(lastSegment);
+        if (Files.exists(current) && Files.size(current) > end) {
+            try (FileChannel channel = FileChannel.open(current, StandardOpenOption.WRITE)) {
+                channel.truncate(end);
+            }
+        }
+        for (int n = lastSegment + 1; Files.exists(segmentPath(n)); n++) {
+            Files.delete(segmentPath(n));
+        }
+    }
+
+    private Path segmentPath(int number) {
+        return dir.resolve(String.format("%s%05d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private FileChannel openSegment(int number) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return channel;
+    }
+
+    // Queues a replay for writing and returns the id it will be stored under
+    public synchronized long append(Replay replay) throws IOException {
+        if (writeFailure != null) {
+            throw writeFailure;
+        }
+        if (closed) {
+            throw new IllegalStateException("Archive is closed");
+        }
+        queue.add(new Pending(replay.encode(), replay.getScore(), replay.getDifficulty()));
+        return nextId++;
+    }
+
+    // Blocks until every replay appended so far is on disk
+    public synchronized void flush() throws IOException {
+        while (count < nextId && writeFailure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while flushing replays", e);
+            }
+        }
+        if (writeFailure != null) {
+            throw writeFailure;
+        }
+    }
+
+    // Writer thread: drains the queue in batches until the archive is closed
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            while (true) {
+                Pending first = queue.take();
+                if (first == END) {
+                    return;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                boolean stop = batch.getLast() == END;
+                if (stop) {
+                    batch.removeLast();
+                }
+                writeBatch(batch);
+                batch.clear();
+                if (stop) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Error writing replay archive: " + e.getMessage());
+            synchronized (this) {
+                writeFailure = e;
+                notifyAll();
+            }
+        }
+    }
+
+    private void writeBatch(List<Pending> batch) throws IOException {
+        ByteBuffer index = ByteBuffer.allocate(batch.size() * ENTRY_SIZE);
+        int[] batchSegments = new int[batch.size()];
+        int[] batchOffsets = new int[batch.size()];
+        int from = 0;
+        while (from < batch.size()) {
+            // Take as many replays as still fit in the current segment
+            int to = from;
+            long end = segmentChannel.position();
+            while (to < batch.size() && (end + batch.get(to).bytes().length <= SEGMENT_SIZE || end == 0)) {
+                batchSegments[to] = segmentNumber;
+                batchOffsets[to] = (int) end;
+                end += batch.get(to).bytes().length;
+                to++;
+            }
+            if (to == from) {
+                segmentChannel.force(false);
+                segmentChannel.close();
+                segmentNumber++;
+                segmentChannel = openSegment(segmentNumber);
+                continue;
+            }
+            ByteBuffer[] buffers = new ByteBuffer[to - from];
+            for (int i = from; i < to; i++) {
+                buffers[i - from] = ByteBuffer.wrap(batch.get(i).bytes());
+            }
+            while (segmentChannel.position() < end) {
+                segmentChannel.write(buffers);
+            }
+            from = to;
+        }
+        // Index entries must never point at data a crash could still lose
+        segmentChannel.force(false);
+
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            index.putInt(batchSegments[i]).putInt(batchOffsets[i]).putInt(pending.bytes().length)
+                    .putInt(pending.score()).putInt(pending.difficulty());
+        }
+        index.flip();
+        long indexPosition = indexChannel.size();
+        while (index.hasRemaining()) {
+            indexPosition += indexChannel.write(index, indexPosition);
+        }
+
+        synchronized (this) {
+            index.rewind();
+            for (int i = 0; i < batch.size(); i++) {
+                addEntry(index.getInt(), index.getInt(), index.getInt(), index.getInt(), (byte) index.getInt());
+            }
+            notifyAll();
+        }
+    }
+
+    // Caller holds the lock, or is the constructor
+    private void addEntry(int segment, int offset, int length, int score, byte difficulty) {
+        if (count == segments.length) {
+            int capacity = count * 2;
+            segments = Arrays.copyOf(segments, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+            difficulties = Arrays.copyOf(difficulties, capacity);
+        }
+        segments[count] = segment;
+        offsets[count] = offset;
+        lengths[count] = length;
+        scores[count] = score;
+        difficulties[count] = difficulty;
+        scoreIndexes.computeIfAbsent((int) difficulty, d -> new ScoreIndex()).add(score, count);
+        count++;
+    }
+
+    // The stored bytes of a replay, read-only and without copying; null if it is not on disk yet
+    public synchronized ByteBuffer slice(long id) throws IOException {
+        if (id < 0 || id >= count) {
+            return null;
+        }
+        int i = (int) id;
+        int segment = segments[i];
+        long end = (long) offsets[i] + lengths[i];
+        while (maps.size() <= segment) {
+            maps.add(null);
+        }
+        MappedByteBuffer map = maps.get(segment);
+        if (map == null || map.capacity() < end) {
+            // The segment being appended to is remapped whenever a read reaches past the old map
+            try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+                map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            maps.set(segment, map);
+        }
+        return map.slice(offsets[i], lengths[i]).asReadOnlyBuffer();
+    }
+
+    public Replay read(long id) throws IOException {
+        ByteBuffer bytes = slice(id);
+        return bytes == null ? null : Replay.decode(bytes);
+    }
+
+    // id must be below size()
+    public synchronized int getScore(long id) {
+        return scores[(int) Objects.checkIndex(id, count)];
+    }
+
+    // id must be below size()
+    public synchronized int getDifficulty(long id) {
+        return difficulties[(int) Objects.checkIndex(id, count)];
+    }
+
+    // Replays on disk
+    public synchronized int size() {
+        return count;
+    }
+
+    // Ids of the best-scoring replays at a difficulty, highest score first
+    public synchronized long[] topGames(int difficulty, int limit) {
+        ScoreIndex index = scoreIndexes.get(difficulty);
+        return index == null ? new long[0] : index.range(Integer.MIN_VALUE, Integer.MAX_VALUE, limit);
+    }
+
+    // Ids of replays at a difficulty scoring within [minScore, maxScore], highest score first
+    public synchronized long[] gamesInScoreRange(int difficulty, int minScore, int maxScore, int limit) {
+        ScoreIndex index = scoreIndexes.get(difficulty);
+        return index == null ? new long[0] : index.range(minScore, maxScore, limit);
+    }
+
+    // Writes everything still queued and releases the files
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(END);
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segmentChannel.close();
+        indexChannel.close();
+        synchronized (this) {
+            maps.clear();
+            if (writeFailure != null) {
+                throw writeFailure;
+            }
+        }
+    }
+
+    public Path getDirectory() {
+        return dir;
+    }
+
+    // Replay ids of one difficulty ordered by score. New ids collect in an unsorted tail that
+    // is sorted and merged in on the next query, so appends stay O(1).
+    private static final class ScoreIndex {
+        // (score << 32) | (MAX_ID - id), ascending, so equal scores list the oldest game first
+        // when walked backwards
+        private long[] sorted = new long[0];
+        private long[] pending = new long[64];
+        private int pendingCount = 0;
+
+        void add(int score, int id) {
+            if (pendingCount == pending.length) {
+                pending = Arrays.copyOf(pending, pendingCount * 2);
+            }
+            pending[pendingCount++] = key(score, id);
+        }
+
+        long[] range(int minScore, int maxScore, int limit) {
+            merge();
+            // First key above maxScore, then walk down while scores stay >= minScore
+            int hi = upperBound(maxScore);
+            int n = 0;
+            long[] ids = new long[Math.min(limit, hi)];
+            for (int i = hi - 1; i >= 0 && n < ids.length && (int) (sorted[i] >> 32) >= minScore; i--) {
+                ids[n++] = Integer.MAX_VALUE - (int) sorted[i];
+            }
+            return n == ids.length ? ids : Arrays.copyOf(ids, n);
+        }
+
+        private int upperBound(int score) {
+            if (score == Integer.MAX_VALUE) {
+                return sorted.length;
+            }
+            int index = Arrays.binarySearch(sorted, key(score + 1, Integer.MAX_VALUE));
+            return index >= 0 ? index : -index - 1;
+        }
+
+        private void merge() {
+            if (pendingCount == 0) {
+                return;
+            }
+            Arrays.sort(pending, 0, pendingCount);
+            long[] merged = new long[sorted.length + pendingCount];
+            int a = 0;
+            int b = 0;
+            for (int i = 0; i < merged.length; i++) {
+                merged[i] = b == pendingCount || (a < sorted.length && sorted[a] <= pending[b]) ? sorted[a++] : pending[b++];
+            }
+            sorted = merged;
+            pendingCount = 0;
+        }
+
+        private static long key(int score, int id) {
+            return ((long) score << 32) | (Integer.MAX_VALUE - id);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.kgames.snake.replay;
+
+import org.kgames.snake.game.Direction;
+import org.kgames.snake.game.GameEngine;
+
+// Re-simulates a Replay on its own GameEngine. Drive it one step() at a time to watch it at any
+// rate, or call playToEnd() to run it headless as fast as the CPU allows.
+public class ReplayPlayer {
+    private final Replay replay;
+    private final GameEngine engine;
+    private int nextTurn = 0;
+
+    public ReplayPlayer(Replay replay) {
+        this.replay = replay;
+        this.engine = new GameEngine(replay.getBoardWidth(), replay.getBoardHeight(), replay.getDifficulty());
+        restart();
+    }
+
+    public void restart() {
+        engine.setDifficulty(replay.getDifficulty());
+        engine.reset(replay.getSeed());
+        nextTurn = 0;
+    }
+
+    // The recorded turn for the engine's current tick, or null; advances past it
+    public Direction nextTurn() {
+        if (nextTurn < replay.getTurnCount() && replay.getTurnTick(nextTurn) == engine.getTick()) {
+            return replay.getTurn(nextTurn++);
+        }
+        return null;
+    }
+
+    // Advances one tick; returns the engine's EVENT_* flags
+    public int step() {
+        return engine.step(nextTurn());
+    }
+
+    public boolean isFinished() {
+        return engine.isOver() || engine.getTick() >= replay.getFinalTick();
+    }
+
+    // Runs the rest of the game headless; returns the final score
+    public int playToEnd() {
+        while (!isFinished()) {
+            step();
+        }
+        return engine.score();
+    }
+
+    // True if re-simulating from the start ends on the recorded tick and score
+    public boolean verify() {
+        restart();
+        int score = playToEnd();
+        return score == replay.getScore() && engine.getTick() == replay.getFinalTick() && nextTurn == replay.getTurnCount();
+    }
+
+    public GameEngine getEngine() {
+        return engine;
+    }
+
+    public Replay getReplay() {
+        return replay;
+    }
+}
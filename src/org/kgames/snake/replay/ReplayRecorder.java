@@ -0,0 +1,53 @@
+package org.kgames.snake.replay;
+
+import org.kgames.snake.game.Direction;
+
+import java.util.Arrays;
+
+// Collects the turns of the game in progress. Meant for the loop thread: record() only writes
+// into arrays that double when full, so a tick never allocates once a game has warmed up.
+public class ReplayRecorder {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private long seed;
+    private int difficulty;
+    private int boardWidth;
+    private int boardHeight;
+    private long startedAtMillis;
+
+    private long[] turnTicks = new long[INITIAL_CAPACITY];
+    private Direction[] turns = new Direction[INITIAL_CAPACITY];
+    private int turnCount = 0;
+
+    // Starts a new recording, discarding any unfinished one
+    public void start(long seed, int difficulty, int boardWidth, int boardHeight) {
+        this.seed = seed;
+        this.difficulty = difficulty;
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        this.startedAtMillis = System.currentTimeMillis();
+        Arrays.fill(turns, 0, turnCount, null);
+        turnCount = 0;
+    }
+
+    // A turn passed to the engine's step() while its tick counter read tick
+    public void record(long tick, Direction direction) {
+        if (turnCount == turns.length) {
+            turnTicks = Arrays.copyOf(turnTicks, turnCount * 2);
+            turns = Arrays.copyOf(turns, turnCount * 2);
+        }
+        turnTicks[turnCount] = tick;
+        turns[turnCount] = direction;
+        turnCount++;
+    }
+
+    // Closes the recording at the tick and score the game ended on
+    public Replay finish(long finalTick, int score) {
+        return new Replay(seed, difficulty, boardWidth, boardHeight, startedAtMillis,
+                Arrays.copyOf(turnTicks, turnCount), Arrays.copyOf(turns, turnCount), finalTick, score);
+    }
+
+    public int getTurnCount() {
+        return turnCount;
+    }
+}
@@ -0,0 +1,147 @@
+package org.kgames.snake.server;
+
+import org.kgames.snake.game.Leaderboard;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Talks to a ScoreServer. submit() never blocks the caller: scores are queued and sent in
+// batches, one request at a time, so a slow or missing server cannot stall the game. A batch
+// that fails is kept and sent again with the next one. top() and rank() block for the answer.
+public class ScoreClient {
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    // Scores kept while the server is unreachable; the oldest are dropped beyond this
+    private static final int MAX_QUEUED = 10_000;
+    // Most scores the server takes in one request
+    private static final int MAX_BATCH = 1000;
+
+    private final URI base;
+    private final HttpClient http;
+
+    // Guarded by this
+    private final List<String> queued = new ArrayList<>();
+    private boolean sending = false;
+
+    // base is the server address, e.g. http://192.168.1.10:7447
+    public ScoreClient(URI base) {
+        this.base = base;
+        this.http = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+    }
+
+    public synchronized void submit(int difficulty, String name, int score) {
+        if (queued.size() == MAX_QUEUED) {
+            queued.remove(0);
+        }
+        queued.add("{\"name\":" + Json.quote(name) + ",\"score\":" + score + ",\"difficulty\":" + difficulty + "}");
+        if (!sending) {
+            sendQueued();
+        }
+    }
+
+    // Called with the lock held and nothing in flight
+    private void sendQueued() {
+        List<String> first = queued.subList(0, Math.min(queued.size(), MAX_BATCH));
+        List<String> batch = new ArrayList<>(first);
+        first.clear();
+        sending = true;
+        HttpRequest request = HttpRequest.newBuilder(base.resolve("/scores"))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("[" + String.join(",", batch) + "]"))
+                .build();
+        http.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, failure) -> {
+            synchronized (this) {
+                if (failure == null && response.statusCode() >= 500) {
+                    // The server could not store them this time
+                    failure = new IOException("Score server answered " + response.statusCode() + ": " + response.body());
+                }
+                if (failure != null) {
+                    System.err.println("Error submitting scores: " + failure.getMessage());
+                    // Keep them for the next attempt, ahead of anything queued meanwhile
+                    queued.addAll(0, batch);
+                    while (queued.size() > MAX_QUEUED) {
+                        queued.remove(0);
+                    }
+                } else if (response.statusCode() != 200) {
+                    // The server will not take this batch however often it is sent
+                    System.err.println("Scores rejected: " + response.body());
+                }
+                if (failure == null && !queued.isEmpty()) {
+                    sendQueued();
+                } else {
+                    sending = false;
+                }
+                notifyAll();
+            }
+        });
+    }
+
+    // Blocks until no batch is in flight; scores kept after a failure stay queued
+    public synchronized void flush() {
+        while (sending) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // The best n scores on the server; pass RankingIndex.ALL_DIFFICULTIES for all difficulties
+    public List<Leaderboard.Score> top(int difficulty, int n) throws IOException {
+        Map<?, ?> response = get("/top?n=" + n + difficultyParameter(difficulty));
+        List<Leaderboard.Score> scores = new ArrayList<>();
+        if (response.get("scores") instanceof List<?> entries) {
+            for (Object entry : entries) {
+                if (entry instanceof Map<?, ?> fields
+                        && fields.get("name") instanceof String name
+                        && fields.get("score") instanceof Long score) {
+                    scores.add(new Leaderboard.Score(name, score.intValue()));
+                }
+            }
+        }
+        return scores;
+    }
+
+    // 1-based rank a new entry with this score would get on the server
+    public int rank(int difficulty, int score) throws IOException {
+        if (get("/rank?score=" + score + difficultyParameter(difficulty)).get("rank") instanceof Long rank) {
+            return rank.intValue();
+        }
+        throw new IOException("Malformed rank response");
+    }
+
+    private static String difficultyParameter(int difficulty) {
+        return difficulty < 0 ? "" : "&difficulty=" + difficulty;
+    }
+
+    private Map<?, ?> get(String path) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(base.resolve(path)).timeout(TIMEOUT).GET().build();
+        HttpResponse<String> response;
+        try {
+            response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Score server answered " + response.statusCode() + ": " + response.body());
+        }
+        try {
+            if (Json.parse(response.body()) instanceof Map<?, ?> map) {
+                return map;
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed response: " + e.getMessage());
+        }
+        throw new IOException("Malformed response");
+    }
+}
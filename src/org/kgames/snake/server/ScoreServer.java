@@ -0,0 +1,270 @@
+package org.kgames.snake.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.kgames.snake.game.GameEngine;
+import org.kgames.snake.game.Leaderboard;
+import org.kgames.snake.game.RankingIndex;
+import org.kgames.snake.game.ScoreLog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Shared leaderboard for several game machines on one LAN, served over HTTP.
+// Every request runs on its own virtual thread. Queries are answered from a RankingIndex in
+// memory; accepted scores go into the index at once and into a ScoreLog behind the response,
+// which is replayed into the index when the server starts again. API, all JSON:
+//   POST /scores                  [{"name":"Ann","score":120,"difficulty":1}, ...]
+//                                 -> {"accepted":N}; the whole batch is rejected if one entry is invalid
+//   GET  /top?difficulty=D&n=N    -> {"difficulty":D,"total":T,"scores":[{"name":..,"score":..}, ...]}
+//   GET  /rank?difficulty=D&score=S -> {"difficulty":D,"score":S,"rank":R,"total":T,"percentile":P}
+// Leaving out difficulty queries all difficulties together.
+// Start it with --scoreServer[=PORT] or as part of a game with -Dsnake.scoreServerPort=PORT.
+public class ScoreServer {
+    public static final int DEFAULT_PORT = 7447;
+    public static final String LOG_FILE = "saves/scores.log";
+
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    // ScoreClient sends batches of at most this size too
+    private static final int MAX_BATCH = 1000;
+    private static final int MAX_TOP = 1000;
+    private static final int MAX_NAME_LENGTH = 32;
+
+    private final RankingIndex ranking;
+    private final ScoreLog log;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    // Binds to port, or to a free port if it is 0, after replaying the log
+    public ScoreServer(int port, Path logFile) throws IOException {
+        ranking = new RankingIndex(GameEngine.DIFFICULTY_COUNT);
+        log = new ScoreLog(logFile, Boolean.getBoolean("snake.scoreLogSync"), this::replayed);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            server = HttpServer.create(new InetSocketAddress(port), 0);
+        } catch (IOException e) {
+            log.close();
+            throw e;
+        }
+        server.setExecutor(executor);
+        server.createContext("/scores", exchange -> handle(exchange, "POST", this::submit));
+        server.createContext("/top", exchange -> handle(exchange, "GET", this::top));
+        server.createContext("/rank", exchange -> handle(exchange, "GET", this::rank));
+    }
+
+    private void replayed(int difficulty, String name, int score) {
+        if (difficulty >= 0 && difficulty < ranking.getDifficultyCount()) {
+            ranking.add(difficulty, name, score);
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public RankingIndex getRanking() {
+        return ranking;
+    }
+
+    // Stops taking requests, waits up to delaySeconds for running ones, then writes out the log
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.close();
+        try {
+            log.close();
+        } catch (IOException e) {
+            System.err.println("Error closing score log: " + e.getMessage());
+        }
+    }
+
+    private interface Endpoint {
+        String respond(HttpExchange exchange) throws IOException;
+    }
+
+    // Thrown for requests the server rejects with 400 Bad Request
+    private static class BadRequest extends RuntimeException {
+        BadRequest(String message) {
+            super(message);
+        }
+    }
+
+    private void handle(HttpExchange exchange, String method, Endpoint endpoint) throws IOException {
+        int status = 200;
+        String body;
+        try {
+            if (!exchange.getRequestMethod().equals(method)) {
+                exchange.getResponseHeaders().set("Allow", method);
+                status = 405;
+                body = error("Use " + method);
+            } else {
+                body = endpoint.respond(exchange);
+            }
+        } catch (BadRequest | IllegalArgumentException e) {
+            status = 400;
+            body = error(e.getMessage());
+        } catch (RuntimeException | IOException e) {
+            // Answer anyway, or the client waits until it times out
+            System.err.println("Error handling " + exchange.getRequestURI() + ": " + e);
+            status = 500;
+            body = error("Internal error");
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private String submit(HttpExchange exchange) throws IOException {
+        if (!(Json.parse(readBody(exchange)) instanceof List<?> entries)) {
+            throw new BadRequest("Expected an array of scores");
+        }
+        if (entries.size() > MAX_BATCH) {
+            throw new BadRequest("At most " + MAX_BATCH + " scores per request");
+        }
+        // Validate the whole batch before taking any of it
+        List<Submission> batch = new ArrayList<>(entries.size());
+        for (Object entry : entries) {
+            if (!(entry instanceof Map<?, ?> fields)) {
+                throw new BadRequest("Expected score objects");
+            }
+            batch.add(new Submission(
+                    name(fields.get("name")),
+                    difficulty(fields.get("difficulty")),
+                    (int) integer(fields.get("score"), "score", 0, Integer.MAX_VALUE)));
+        }
+        // Logged first, so a batch the log refuses is answered with 500 and not ranked either
+        for (Submission submission : batch) {
+            log.append(submission.difficulty(), submission.name(), submission.score());
+        }
+        for (Submission submission : batch) {
+            ranking.add(submission.difficulty(), submission.name(), submission.score());
+        }
+        return "{\"accepted\":" + batch.size() + "}";
+    }
+
+    private String top(HttpExchange exchange) {
+        Map<String, String> query = query(exchange);
+        int difficulty = query.containsKey("difficulty") ? difficulty(query.get("difficulty")) : RankingIndex.ALL_DIFFICULTIES;
+        int n = query.containsKey("n") ? (int) integer(query.get("n"), "n", 0, MAX_TOP) : 10;
+        StringBuilder out = new StringBuilder("{\"difficulty\":").append(difficulty)
+                .append(",\"total\":").append(ranking.size(difficulty))
+                .append(",\"scores\":[");
+        List<Leaderboard.Score> scores = ranking.top(difficulty, n);
+        for (int i = 0; i < scores.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append("{\"name\":").append(Json.quote(scores.get(i).getName()))
+                    .append(",\"score\":").append(scores.get(i).getScore()).append('}');
+        }
+        return out.append("]}").toString();
+    }
+
+    private String rank(HttpExchange exchange) {
+        Map<String, String> query = query(exchange);
+        int difficulty = query.containsKey("difficulty") ? difficulty(query.get("difficulty")) : RankingIndex.ALL_DIFFICULTIES;
+        if (!query.containsKey("score")) {
+            throw new BadRequest("Missing score");
+        }
+        int score = (int) integer(query.get("score"), "score", 0, Integer.MAX_VALUE);
+        return "{\"difficulty\":" + difficulty
+                + ",\"score\":" + score
+                + ",\"rank\":" + ranking.rankOf(difficulty, score)
+                + ",\"total\":" + ranking.size(difficulty)
+                + ",\"percentile\":" + ranking.percentileOf(difficulty, score) + "}";
+    }
+
+    private record Submission(String name, int difficulty, int score) {
+    }
+
+    private static String name(Object value) {
+        if (!(value instanceof String name) || name.isBlank()) {
+            throw new BadRequest("Missing name");
+        }
+        name = name.strip();
+        if (name.length() > MAX_NAME_LENGTH) {
+            throw new BadRequest("Names are at most " + MAX_NAME_LENGTH + " characters");
+        }
+        return name;
+    }
+
+    private int difficulty(Object value) {
+        return (int) integer(value, "difficulty", 0, ranking.getDifficultyCount() - 1);
+    }
+
+    // Accepts JSON numbers and query parameter strings
+    private static long integer(Object value, String field, long min, long max) {
+        long number;
+        if (value instanceof Long l) {
+            number = l;
+        } else if (value instanceof String s) {
+            try {
+                number = Long.parseLong(s);
+            } catch (NumberFormatException e) {
+                throw new BadRequest("Bad " + field);
+            }
+        } else {
+            throw new BadRequest("Missing or bad " + field);
+        }
+        if (number < min || number > max) {
+            throw new BadRequest(field + " must be between " + min + " and " + max);
+        }
+        return number;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new BadRequest("Request body is too large");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + Json.quote(message == null ? "Bad request" : message) + "}";
+    }
+
+    // Runs a server until the JVM is stopped
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        ScoreServer server = new ScoreServer(port, Path.of(LOG_FILE));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+        server.start();
+        System.out.println("Score server listening on port " + server.getPort());
+    }
+}
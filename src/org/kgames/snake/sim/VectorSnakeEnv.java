@@ -0,0 +1,323 @@
+package org.kgames.snake.sim;
+
+import org.kgames.snake.game.Direction;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Runs many independent snake games side by side for agent training.
+// Every game lives in flat primitive arrays indexed by environment, and step() advances
+// all of them at once across a ForkJoin pool. The rules match GameEngine tick for tick.
+//
+// The per-environment board is both the game state and the observation: one byte per cell
+// holding CELL_EMPTY, CELL_BODY, CELL_HEAD or CELL_APPLE. Finished games are reset
+// automatically, so after a step with dones[i] set, board i already shows the next episode.
+public class VectorSnakeEnv {
+    public static final byte CELL_EMPTY = 0;
+    public static final byte CELL_BODY = 1;
+    public static final byte CELL_HEAD = 2;
+    public static final byte CELL_APPLE = 3;
+
+    // Action meaning "keep the current direction"; other actions are Direction ordinals
+    public static final int NO_ACTION = -1;
+
+    public static final float REWARD_APPLE = 1.0f;
+    public static final float REWARD_DEATH = -1.0f;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int MAX_REJECTION_ATTEMPTS = 16;
+    // Environments per fork/join leaf task, so tiny batches are not split into pointless work
+    private static final int MIN_ENVS_PER_TASK = 16;
+
+    private final int envCount;
+    private final int boardSize;
+    private final int cellCount;
+    private final ForkJoinPool pool;
+
+    // Observation and occupancy, envCount * cellCount
+    private final byte[] boards;
+    // Per-environment ring of packed segment cells, envCount * cellCount
+    private final int[] segments;
+
+    private final int[] headSlot;
+    private final int[] length;
+    private final int[] pendingGrowth;
+    private final int[] velX;
+    private final int[] velY;
+    private final int[] appleCell;
+    private final int[] score;
+    private final int[] stepsSinceApple;
+    private final long[] rngState;
+
+    private final float[] rewards;
+    private final boolean[] dones;
+
+    private int[] pendingActions;
+    private int maxStepsWithoutApple = 0;
+
+    public VectorSnakeEnv(int envCount, int boardSize, long seed) {
+        this(envCount, boardSize, seed, ForkJoinPool.commonPool());
+    }
+
+    public VectorSnakeEnv(int envCount, int boardSize, long seed, ForkJoinPool pool) {
+        if (boardSize < 4) {
+            throw new IllegalArgumentException("Board size must be at least 4");
+        }
+        this.envCount = envCount;
+        this.boardSize = boardSize;
+        this.cellCount = boardSize * boardSize;
+        this.pool = pool;
+
+        boards = new byte[envCount * cellCount];
+        segments = new int[envCount * cellCount];
+        headSlot = new int[envCount];
+        length = new int[envCount];
+        pendingGrowth = new int[envCount];
+        velX = new int[envCount];
+        velY = new int[envCount];
+        appleCell = new int[envCount];
+        score = new int[envCount];
+        stepsSinceApple = new int[envCount];
+        rngState = new long[envCount];
+        rewards = new float[envCount];
+        dones = new boolean[envCount];
+
+        reset(seed);
+    }
+
+    // Restarts every environment; environment i is seeded from seed and i
+    public void reset(long seed) {
+        for (int env = 0; env < envCount; env++) {
+            rngState[env] = mixSeed(seed + env * 0x9E3779B97F4A7C15L);
+            resetEnv(env);
+        }
+        Arrays.fill(rewards, 0f);
+        Arrays.fill(dones, false);
+    }
+
+    // Advances every environment by one tick; actions[i] is NO_ACTION or a Direction ordinal
+    public void step(int[] actions) {
+        if (actions.length != envCount) {
+            throw new IllegalArgumentException("Expected " + envCount + " actions, got " + actions.length);
+        }
+        pendingActions = actions;
+        if (envCount <= MIN_ENVS_PER_TASK) {
+            stepRange(0, envCount);
+        } else {
+            pool.invoke(new StepTask(0, envCount));
+        }
+        pendingActions = null;
+    }
+
+    private void stepRange(int from, int to) {
+        int[] actions = pendingActions;
+        for (int env = from; env < to; env++) {
+            stepEnv(env, actions[env]);
+        }
+    }
+
+    private void stepEnv(int env, int action) {
+        rewards[env] = 0f;
+        dones[env] = false;
+
+        if (action >= 0) {
+            Direction direction = DIRECTIONS[action];
+            int vx = velX[env];
+            int vy = velY[env];
+            // Prevent 180-degree turns, same as Snake.setDirection()
+            if (!((vx != 0 && direction.dx == -vx) || (vy != 0 && direction.dy == -vy))) {
+                velX[env] = direction.dx;
+                velY[env] = direction.dy;
+            }
+        }
+        if (velX[env] == 0 && velY[env] == 0) {
+            return;
+        }
+
+        int base = env * cellCount;
+        int head = segments[base + headSlot[env]];
+        int x = head % boardSize + velX[env];
+        int y = head / boardSize + velY[env];
+        if (x < 0 || y < 0 || x >= boardSize || y >= boardSize) {
+            finishEpisode(env, REWARD_DEATH);
+            return;
+        }
+
+        // The tail leaves first, so following it into its old cell is allowed
+        if (pendingGrowth[env] > 0) {
+            pendingGrowth[env]--;
+        } else {
+            int tailSlot = slot(headSlot[env] + length[env] - 1);
+            boards[base + segments[base + tailSlot]] = CELL_EMPTY;
+            length[env]--;
+        }
+
+        int newHead = y * boardSize + x;
+        byte target = boards[base + newHead];
+        if (target == CELL_BODY || target == CELL_HEAD) {
+            finishEpisode(env, REWARD_DEATH);
+            return;
+        }
+
+        boards[base + head] = CELL_BODY;
+        boards[base + newHead] = CELL_HEAD;
+        int newSlot = slot(headSlot[env] - 1);
+        segments[base + newSlot] = newHead;
+        headSlot[env] = newSlot;
+        length[env]++;
+
+        if (target == CELL_APPLE) {
+            pendingGrowth[env]++;
+            score[env]++;
+            stepsSinceApple[env] = 0;
+            rewards[env] = REWARD_APPLE;
+            if (!placeApple(env)) {
+                // The snake filled the board
+                finishEpisode(env, REWARD_APPLE);
+            }
+            return;
+        }
+
+        stepsSinceApple[env]++;
+        if (maxStepsWithoutApple > 0 && stepsSinceApple[env] >= maxStepsWithoutApple) {
+            finishEpisode(env, 0f);
+        }
+    }
+
+    private void finishEpisode(int env, float reward) {
+        rewards[env] = reward;
+        dones[env] = true;
+        resetEnv(env);
+    }
+
+    private void resetEnv(int env) {
+        int base = env * cellCount;
+        Arrays.fill(boards, base, base + cellCount, CELL_EMPTY);
+
+        // Same starting layout as Snake.init() and Apple.reset()
+        int headX = boardSize / 4;
+        int row = boardSize / 2;
+        headSlot[env] = 0;
+        length[env] = 3;
+        for (int i = 0; i < 3; i++) {
+            int cell = row * boardSize + headX - i;
+            segments[base + i] = cell;
+            boards[base + cell] = i == 0 ? CELL_HEAD : CELL_BODY;
+        }
+        pendingGrowth[env] = 0;
+        velX[env] = 0;
+        velY[env] = 0;
+        score[env] = 0;
+        stepsSinceApple[env] = 0;
+
+        appleCell[env] = row * boardSize + boardSize - (boardSize / 4);
+        boards[base + appleCell[env]] = CELL_APPLE;
+    }
+
+    private boolean placeApple(int env) {
+        int base = env * cellCount;
+        if (length[env] >= cellCount) {
+            return false;
+        }
+        for (int attempt = 0; attempt < MAX_REJECTION_ATTEMPTS; attempt++) {
+            int cell = nextInt(env, cellCount);
+            if (boards[base + cell] == CELL_EMPTY) {
+                setApple(env, cell);
+                return true;
+            }
+        }
+        // Dense board: scan from a random start for the next empty cell
+        int start = nextInt(env, cellCount);
+        for (int i = 0; i < cellCount; i++) {
+            int cell = start + i < cellCount ? start + i : start + i - cellCount;
+            if (boards[base + cell] == CELL_EMPTY) {
+                setApple(env, cell);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void setApple(int env, int cell) {
+        appleCell[env] = cell;
+        boards[env * cellCount + cell] = CELL_APPLE;
+    }
+
+    private int slot(int slot) {
+        if (slot < 0) {
+            return slot + cellCount;
+        }
+        return slot >= cellCount ? slot - cellCount : slot;
+    }
+
+    // xorshift64* per environment, so results do not depend on thread scheduling
+    private int nextInt(int env, int bound) {
+        long s = rngState[env];
+        s ^= s >>> 12;
+        s ^= s << 25;
+        s ^= s >>> 27;
+        rngState[env] = s;
+        return (int) (((s * 0x2545F4914F6CDD1DL) >>> 33) % bound);
+    }
+
+    private static long mixSeed(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return z == 0 ? 0x9E3779B97F4A7C15L : z;
+    }
+
+    public void setMaxStepsWithoutApple(int maxStepsWithoutApple) {
+        this.maxStepsWithoutApple = maxStepsWithoutApple;
+    }
+
+    // Live boards, envCount * boardSize * boardSize cells; valid until the next step()
+    public byte[] getObservations() {
+        return boards;
+    }
+
+    public float[] getRewards() {
+        return rewards;
+    }
+
+    public boolean[] getDones() {
+        return dones;
+    }
+
+    public int getScore(int env) {
+        return score[env];
+    }
+
+    public int getLength(int env) {
+        return length[env];
+    }
+
+    public int getEnvCount() {
+        return envCount;
+    }
+
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    private class StepTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        StepTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= MIN_ENVS_PER_TASK) {
+                stepRange(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new StepTask(from, mid), new StepTask(mid, to));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.kgames.snake.arena;
+
+import org.junit.jupiter.api.Test;
+import org.kgames.snake.game.Direction;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArenaEngineTest {
+    private static final int BOARD = 16;
+
+    @Test
+    void sameSeedGivesSameMatchOnAnyPool() {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool several = new ForkJoinPool(4);
+        try {
+            // More snakes than one decision task takes, so the multi-thread pool really splits the work
+            ArenaEngine a = new ArenaEngine(64, 64, 48, 0, 40, 1234, single);
+            ArenaEngine b = new ArenaEngine(64, 64, 48, 0, 40, 1234, several);
+            for (int tick = 0; tick < 300 && !a.isOver(); tick++) {
+                assertEquals(a.step(), b.step(), "deaths at tick " + tick);
+                assertSameState(a, b, tick);
+            }
+            assertTrue(a.getTick() > 0);
+        } finally {
+            single.shutdown();
+            several.shutdown();
+        }
+    }
+
+    @Test
+    void headsEnteringOneCellBothDie() {
+        ArenaEngine arena = arena(2);
+        arena.placeSnake(0, Direction.RIGHT, 5, 5, 4, 5, 3, 5);
+        arena.placeSnake(1, Direction.LEFT, 7, 5, 8, 5, 9, 5);
+
+        assertEquals(2, arena.step());
+        assertFalse(arena.getSnake(0).isAlive());
+        assertFalse(arena.getSnake(1).isAlive());
+        assertEquals(0, arena.getAliveCount());
+        for (int x = 0; x < BOARD; x++) {
+            assertTrue(arena.isCellFree(x, 5), "x " + x);
+        }
+    }
+
+    @Test
+    void headMayEnterTheCellATailLeaves() {
+        ArenaEngine arena = arena(3);
+        // Snake 0 enters the cell snake 1's tail leaves
+        arena.placeSnake(0, Direction.RIGHT, 5, 5, 4, 5, 3, 5);
+        arena.placeSnake(1, Direction.UP, 6, 3, 6, 4, 6, 5);
+        // Snake 2 chases its own tail around a 2x2 square
+        arena.placeSnake(2, Direction.DOWN, 10, 10, 11, 10, 11, 11, 10, 11);
+
+        assertEquals(0, arena.step());
+        assertTrue(arena.getSnake(0).isAlive());
+        assertTrue(arena.getSnake(1).isAlive());
+        assertTrue(arena.getSnake(2).isAlive());
+        assertEquals(0, arena.getOwner(6, 5));
+        assertEquals(1, arena.getOwner(6, 2));
+        assertEquals(2, arena.getOwner(10, 11));
+        assertEquals(4, arena.getSnake(2).getLength());
+    }
+
+    @Test
+    void headEnteringABodyDies() {
+        ArenaEngine arena = arena(2);
+        arena.placeSnake(0, Direction.RIGHT, 5, 5, 4, 5, 3, 5);
+        arena.placeSnake(1, Direction.UP, 6, 3, 6, 4, 6, 5, 6, 6);
+
+        assertEquals(1, arena.step());
+        assertFalse(arena.getSnake(0).isAlive());
+        assertTrue(arena.getSnake(1).isAlive());
+        assertEquals(1, arena.getOwner(6, 5));
+    }
+
+    @Test
+    void headEnteringTheBodyOfASnakeDyingThisTickDies() {
+        ArenaEngine arena = arena(2);
+        arena.placeSnake(0, Direction.RIGHT, 5, 5, 4, 5, 3, 5);
+        // Snake 1 runs into the top wall this tick
+        arena.placeSnake(1, Direction.UP, 6, 0, 6, 1, 6, 2, 6, 3, 6, 4, 6, 5, 6, 6);
+
+        assertEquals(2, arena.step());
+        assertFalse(arena.getSnake(0).isAlive());
+        assertFalse(arena.getSnake(1).isAlive());
+    }
+
+    @Test
+    void killFreesOnlyCellsTheDeadSnakeStillOwns() {
+        ArenaEngine arena = arena(2);
+        // Snake 1 dies at the wall while snake 0 takes the cell its tail leaves
+        arena.placeSnake(0, Direction.RIGHT, 5, 8, 4, 8, 3, 8);
+        arena.placeSnake(1, Direction.UP, 6, 0, 6, 1, 6, 2, 6, 3, 6, 4, 6, 5, 6, 6, 6, 7, 6, 8);
+
+        assertEquals(1, arena.step());
+        assertTrue(arena.getSnake(0).isAlive());
+        assertFalse(arena.getSnake(1).isAlive());
+        assertEquals(0, arena.getOwner(6, 8));
+        assertEquals(0, arena.getOwner(5, 8));
+        assertEquals(0, arena.getOwner(4, 8));
+        for (int y = 0; y < 8; y++) {
+            assertTrue(arena.isCellFree(6, y), "y " + y);
+        }
+        assertEquals(1, arena.getAliveCount());
+    }
+
+    // Human snakes only, so nothing turns on its own, and no apples
+    private static ArenaEngine arena(int snakes) {
+        ArenaEngine arena = new ArenaEngine(BOARD, BOARD, snakes, snakes, 0, 1);
+        for (int id = 0; id < snakes; id++) {
+            // Replaces the random spawns with one-cell snakes in a corner until a test lays them out
+            arena.placeSnake(id, Direction.RIGHT, BOARD - 1, BOARD - 1 - id);
+        }
+        return arena;
+    }
+
+    private static void assertSameState(ArenaEngine a, ArenaEngine b, int tick) {
+        assertEquals(a.getAliveCount(), b.getAliveCount(), "alive at tick " + tick);
+        for (int id = 0; id < a.getSnakeCount(); id++) {
+            ArenaSnake sa = a.getSnake(id);
+            ArenaSnake sb = b.getSnake(id);
+            assertEquals(sa.isAlive(), sb.isAlive(), "snake " + id + " alive at tick " + tick);
+            assertEquals(sa.getScore(), sb.getScore(), "snake " + id + " score at tick " + tick);
+            assertEquals(sa.getLength(), sb.getLength(), "snake " + id + " length at tick " + tick);
+            if (sa.getLength() > 0) {
+                assertEquals(sa.getHeadX(), sb.getHeadX(), "snake " + id + " head at tick " + tick);
+                assertEquals(sa.getHeadY(), sb.getHeadY(), "snake " + id + " head at tick " + tick);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.kgames.snake.game;
+
+import org.junit.jupiter.api.Test;
+import org.kgames.snake.util.Vector2;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AppleTest {
+    private static final int BOARD = 8;
+
+    @Test
+    void placementAfterDenseGameMatchesFreshApple() {
+        Random random = new Random();
+        Snake snake = new Snake(BOARD);
+        Apple apple = new Apple(BOARD, random);
+        fillHalfTheBoard(snake);
+        apple.place(snake);
+        assertNotNull(snake.getCellListener());
+
+        snake.init();
+        assertNull(snake.getCellListener());
+        apple.reset(BOARD, BOARD);
+        random.setSeed(42);
+        Random freshRandom = new Random(42);
+        Snake freshSnake = new Snake(BOARD);
+        Apple freshApple = new Apple(BOARD, freshRandom);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(apple.place(snake));
+            assertTrue(freshApple.place(freshSnake));
+            assertEquals(freshApple.getPosition().x, apple.getPosition().x);
+            assertEquals(freshApple.getPosition().y, apple.getPosition().y);
+        }
+    }
+
+    @Test
+    void placesOnlyOnFreeCellsWhenDense() {
+        Snake snake = new Snake(BOARD);
+        Apple apple = new Apple(BOARD, new Random(3));
+        fillHalfTheBoard(snake);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(apple.place(snake));
+            assertTrue(snake.isCellFree(apple.getPosition().x, apple.getPosition().y));
+        }
+    }
+
+    @Test
+    void placesFromTheOccupancyGridOnBoardsTooLargeForTheIndex() {
+        int width = 1100;
+        int height = 1000;
+        Snake snake = new Snake(width, height);
+        for (int i = 0; i < 200; i++) {
+            snake.grow();
+        }
+        move(snake, 1, 0, 150);
+        move(snake, 0, -1, 100);
+        Vector2 head = snake.getHead();
+        int headCell = head.y * width + head.x;
+        // Every random probe lands on the head, so placement has to fall back past the probes
+        Random random = new Random(5) {
+            @Override
+            public int nextInt(int bound) {
+                return headCell;
+            }
+        };
+        Apple apple = new Apple(width, height, random);
+        for (int i = 0; i < 200; i++) {
+            assertTrue(apple.place(snake));
+            assertTrue(snake.isCellFree(apple.getPosition().x, apple.getPosition().y));
+        }
+        assertNull(snake.getCellListener());
+    }
+
+    // Snakes up the board from the start row until the body covers half of it
+    private static void fillHalfTheBoard(Snake snake) {
+        for (int i = 0; i < BOARD * BOARD; i++) {
+            snake.grow();
+        }
+        move(snake, 1, 0, BOARD - 1 - snake.getHead().x);
+        for (int row = 0; snake.getLength() < BOARD * BOARD / 2; row++) {
+            move(snake, 0, -1, 1);
+            move(snake, row % 2 == 0 ? -1 : 1, 0, BOARD - 1);
+        }
+        assertFalse(snake.checkCollision());
+    }
+
+    private static void move(Snake snake, int velX, int velY, int steps) {
+        snake.setDirection(velX, velY);
+        for (int i = 0; i < steps; i++) {
+            snake.move();
+        }
+    }
+}
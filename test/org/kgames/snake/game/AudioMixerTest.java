@@ -0,0 +1,101 @@
+package org.kgames.snake.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioMixerTest {
+    private static final int FRAMES = 64;
+
+    private final AudioMixer mixer = new AudioMixer(FRAMES);
+    private final byte[] output = new byte[FRAMES * AudioMixer.LINE_FORMAT.getFrameSize()];
+
+    @Test
+    void mixesVoicesWithTheirVolumeIntoBothChannels() {
+        mixer.play(constant(1000, FRAMES), 1f, false);
+        mixer.play(constant(400, FRAMES), 0.5f, false);
+        mixer.mix(output);
+        for (int frame = 0; frame < FRAMES; frame++) {
+            assertEquals(1200, left(frame));
+            assertEquals(1200, right(frame));
+        }
+    }
+
+    @Test
+    void clipsInsteadOfWrappingAround() {
+        mixer.play(constant(30_000, FRAMES), 1f, false);
+        mixer.play(constant(30_000, FRAMES), 1f, false);
+        mixer.mix(output);
+        assertEquals(Short.MAX_VALUE, left(0));
+        mixer.play(constant(-30_000, FRAMES), 1f, false);
+        mixer.play(constant(-30_000, FRAMES), 1f, false);
+        mixer.mix(output);
+        assertEquals(Short.MIN_VALUE, left(0));
+    }
+
+    @Test
+    void finishesAtTheEndUnlessLooping() {
+        AudioMixer.Voice once = mixer.play(constant(100, FRAMES + 10), 1f, false);
+        AudioMixer.Voice loop = mixer.play(constant(100, 10), 1f, true);
+        mixer.mix(output);
+        assertEquals(200, left(FRAMES - 1));
+        mixer.mix(output);
+        assertEquals(200, left(9));
+        assertEquals(100, left(10));
+        mixer.mix(output);
+        assertTrue(once.isFinished());
+        assertFalse(loop.isFinished());
+
+        loop.stop();
+        mixer.mix(output);
+        assertTrue(loop.isFinished());
+        assertEquals(0, left(0));
+    }
+
+    @Test
+    void stealsTheOldestEffectButNeverLoopingMusic() {
+        AudioMixer.Voice music = mixer.play(constant(1, FRAMES), 1f, true);
+        List<AudioMixer.Voice> effects = new ArrayList<>();
+        for (int i = 1; i < AudioMixer.MAX_VOICES; i++) {
+            effects.add(mixer.play(constant(1, 100 * FRAMES), 1f, false));
+        }
+        mixer.mix(output);
+        AudioMixer.Voice extra = mixer.play(constant(1, 100 * FRAMES), 1f, false);
+        mixer.mix(output);
+        assertFalse(music.isFinished());
+        assertTrue(effects.getFirst().isFinished());
+        assertFalse(effects.get(1).isFinished());
+        assertFalse(extra.isFinished());
+        assertEquals(AudioMixer.MAX_VOICES, left(0));
+    }
+
+    @Test
+    void dropsNewSoundWhenEveryVoiceLoops() {
+        List<AudioMixer.Voice> loops = new ArrayList<>();
+        for (int i = 0; i < AudioMixer.MAX_VOICES; i++) {
+            loops.add(mixer.play(constant(1, FRAMES), 1f, true));
+        }
+        AudioMixer.Voice effect = mixer.play(constant(1, FRAMES), 1f, false);
+        mixer.mix(output);
+        assertTrue(effect.isFinished());
+        assertTrue(loops.stream().noneMatch(AudioMixer.Voice::isFinished));
+    }
+
+    private static short[] constant(int value, int length) {
+        short[] samples = new short[length];
+        Arrays.fill(samples, (short) value);
+        return samples;
+    }
+
+    private short left(int frame) {
+        return (short) ((output[4 * frame] & 0xFF) | (output[4 * frame + 1] << 8));
+    }
+
+    private short right(int frame) {
+        return (short) ((output[4 * frame + 2] & 0xFF) | (output[4 * frame + 3] << 8));
+    }
+}
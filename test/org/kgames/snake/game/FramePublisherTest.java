@@ -0,0 +1,135 @@
+package org.kgames.snake.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FramePublisherTest {
+    // A still game whose tick the test sets, so every frame can be told apart
+    private static class TickState implements GameState {
+        private final GameEngine engine = new GameEngine(20, 1);
+        private long tick;
+
+        @Override
+        public int score() {
+            return engine.score();
+        }
+
+        @Override
+        public boolean isOver() {
+            return false;
+        }
+
+        @Override
+        public long getTick() {
+            return tick;
+        }
+
+        @Override
+        public int getDifficulty() {
+            return engine.getDifficulty();
+        }
+
+        @Override
+        public int getBoardWidth() {
+            return engine.getBoardWidth();
+        }
+
+        @Override
+        public int getBoardHeight() {
+            return engine.getBoardHeight();
+        }
+
+        @Override
+        public Snake getSnake() {
+            return engine.getSnake();
+        }
+
+        @Override
+        public Apple getApple() {
+            return engine.getApple();
+        }
+    }
+
+    @Test
+    void nothingBeforeTheFirstPublish() {
+        assertNull(new FramePublisher().acquire());
+    }
+
+    @Test
+    void acquireReturnsTheLatestFrame() {
+        FramePublisher publisher = new FramePublisher();
+        TickState state = new TickState();
+        for (state.tick = 1; state.tick <= 5; state.tick++) {
+            publisher.publish(state);
+        }
+        FrameSnapshot frame = publisher.acquire();
+        assertEquals(5, frame.getTick());
+
+        state.tick = 6;
+        FrameSnapshot next = publisher.beginWrite();
+        next.capture(state);
+        publisher.publish();
+        assertSame(next, publisher.acquire());
+        assertEquals(6, next.getTick());
+    }
+
+    @Test
+    void acquireKeepsTheSameBufferUntilSomethingNewIsPublished() {
+        FramePublisher publisher = new FramePublisher();
+        TickState state = new TickState();
+        state.tick = 1;
+        publisher.publish(state);
+        FrameSnapshot frame = publisher.acquire();
+        assertSame(frame, publisher.acquire());
+        assertSame(frame, publisher.acquire());
+        assertEquals(1, frame.getTick());
+        assertNotSame(frame, publisher.beginWrite());
+    }
+
+    @Test
+    void writerNeverTouchesTheFrameTheReaderHolds() throws InterruptedException {
+        FramePublisher publisher = new FramePublisher();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            try {
+                TickState state = new TickState();
+                for (state.tick = 1; !done.get(); state.tick++) {
+                    publisher.publish(state);
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        writer.setDaemon(true);
+        writer.start();
+
+        long lastTick = 0;
+        try {
+            for (int i = 0; i < 20_000; i++) {
+                FrameSnapshot frame = publisher.acquire();
+                if (frame == null) {
+                    Thread.yield();
+                    continue;
+                }
+                long tick = frame.getTick();
+                assertTrue(tick >= lastTick, "frames went back from " + lastTick + " to " + tick);
+                lastTick = tick;
+                // Give the writer time to publish several frames; the held one must not change
+                if (i % 64 == 0) {
+                    Thread.yield();
+                }
+                assertEquals(tick, frame.getTick());
+            }
+        } finally {
+            done.set(true);
+            writer.join();
+        }
+        assertNull(failure.get());
+        assertTrue(lastTick > 0);
+    }
+}
@@ -0,0 +1,106 @@
+package org.kgames.snake.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FreeCellIndexTest {
+    private static final int BOARD = 8;
+
+    @Test
+    void matchesABruteForceFreeSetThroughRandomChanges() {
+        int cellCount = 37 * 23;
+        FreeCellIndex index = new FreeCellIndex(cellCount);
+        Set<Integer> free = new HashSet<>();
+        for (int cell = 0; cell < cellCount; cell++) {
+            free.add(cell);
+        }
+        assertEquals(free, contents(index));
+
+        Random random = new Random(17);
+        for (int step = 0; step < 20_000; step++) {
+            int cell = random.nextInt(cellCount);
+            // Repeated occupies and frees of the same cell must be ignored
+            if (random.nextInt(3) != 0) {
+                index.cellOccupied(cell);
+                free.remove(cell);
+            } else {
+                index.cellFreed(cell);
+                free.add(cell);
+            }
+            if (step % 500 == 0) {
+                assertEquals(free, contents(index), "after step " + step);
+            }
+        }
+        assertEquals(free, contents(index));
+
+        index.boardCleared();
+        assertEquals(cellCount, index.size());
+        for (int cell = 0; cell < cellCount; cell++) {
+            index.cellOccupied(cell);
+        }
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void reattachedIndexResyncsWithTheNewGame() {
+        Snake snake = new Snake(BOARD);
+        Apple apple = new Apple(BOARD, new Random(9));
+        fillHalfTheBoard(snake, -1);
+        assertTrue(apple.place(snake));
+        FreeCellIndex index = (FreeCellIndex) snake.getCellListener();
+        assertEquals(freeCells(snake), contents(index));
+
+        // The next game covers the other half, so every stale entry from the first would show
+        snake.init();
+        apple.reset(BOARD, BOARD);
+        fillHalfTheBoard(snake, 1);
+        assertTrue(apple.place(snake));
+        assertSame(index, snake.getCellListener());
+        assertEquals(freeCells(snake), contents(index));
+    }
+
+    private static Set<Integer> contents(FreeCellIndex index) {
+        Set<Integer> cells = new HashSet<>();
+        for (int i = 0; i < index.size(); i++) {
+            assertTrue(cells.add(index.get(i)), "duplicate cell " + index.get(i));
+        }
+        return cells;
+    }
+
+    private static Set<Integer> freeCells(Snake snake) {
+        Set<Integer> cells = new HashSet<>();
+        for (int y = 0; y < BOARD; y++) {
+            for (int x = 0; x < BOARD; x++) {
+                if (snake.isCellFree(x, y)) {
+                    cells.add(y * BOARD + x);
+                }
+            }
+        }
+        return cells;
+    }
+
+    // Zigzags up (velY -1) or down (velY 1) from the start row until the body covers half the board
+    private static void fillHalfTheBoard(Snake snake, int velY) {
+        for (int i = 0; i < BOARD * BOARD; i++) {
+            snake.grow();
+        }
+        move(snake, 1, 0, BOARD - 1 - snake.getHead().x);
+        for (int row = 0; snake.getLength() < BOARD * BOARD / 2; row++) {
+            move(snake, 0, velY, 1);
+            move(snake, row % 2 == 0 ? -1 : 1, 0, BOARD - 1);
+        }
+        assertFalse(snake.checkCollision());
+    }
+
+    private static void move(Snake snake, int velX, int velY, int steps) {
+        snake.setDirection(velX, velY);
+        for (int i = 0; i < steps; i++) {
+            snake.move();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.kgames.snake.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameEngineTest {
+    private static final int BOARD = 20;
+
+    @Test
+    void sameSeedAndTurnsReplayTheSameGame() {
+        GameEngine engine = new GameEngine(BOARD, 1);
+        engine.reset(42);
+        List<String> first = play(engine);
+        engine.reset(42);
+        List<String> again = play(engine);
+        GameEngine other = new GameEngine(BOARD, 1);
+        other.reset(42);
+        List<String> fresh = play(other);
+
+        assertEquals(first, again);
+        assertEquals(first, fresh);
+        assertTrue(first.stream().anyMatch(line -> line.contains("events=1")), "the game ate nothing");
+        engine.reset(43);
+        assertNotEquals(first, play(engine));
+    }
+
+    @Test
+    void reportsEatingOnTheTickTheHeadReachesTheApple() {
+        GameEngine engine = new GameEngine(BOARD, 1);
+        engine.reset(1);
+        // The snake starts at (5, 10) and the apple at (15, 10)
+        for (int tick = 1; tick < 10; tick++) {
+            assertEquals(GameEngine.EVENT_NONE, engine.step(Direction.RIGHT));
+            assertEquals(tick, engine.getTick());
+        }
+        assertEquals(GameEngine.EVENT_ATE, engine.step(Direction.RIGHT));
+        assertEquals(10, engine.getTick());
+        assertEquals(1, engine.score());
+        assertEquals(3, engine.getSnake().getLength());
+
+        // The extra segment shows up on the following move
+        engine.step(null);
+        assertEquals(4, engine.getSnake().getLength());
+        assertFalse(engine.isOver());
+    }
+
+    @Test
+    void hittingTheWallEndsTheGame() {
+        GameEngine engine = new GameEngine(BOARD, 1);
+        engine.reset(1);
+        for (int tick = 1; tick <= 10; tick++) {
+            assertEquals(GameEngine.EVENT_NONE, engine.step(Direction.UP));
+        }
+        assertFalse(engine.isOver());
+
+        assertEquals(GameEngine.EVENT_DIED, engine.step(null));
+        assertTrue(engine.isOver());
+        assertEquals(11, engine.getTick());
+
+        // A finished game ignores further steps
+        assertEquals(GameEngine.EVENT_NONE, engine.step(Direction.LEFT));
+        assertEquals(11, engine.getTick());
+    }
+
+    @Test
+    void runningIntoItselfEndsTheGame() {
+        GameEngine engine = new GameEngine(BOARD, 1);
+        engine.reset(1);
+        engine.getSnake().grow();
+        engine.getSnake().grow();
+        engine.getSnake().grow();
+        assertEquals(GameEngine.EVENT_NONE, engine.step(Direction.RIGHT));
+        assertEquals(GameEngine.EVENT_NONE, engine.step(Direction.DOWN));
+        assertEquals(GameEngine.EVENT_NONE, engine.step(Direction.LEFT));
+        assertFalse(engine.isOver());
+
+        assertEquals(GameEngine.EVENT_DIED, engine.step(Direction.UP));
+        assertTrue(engine.isOver());
+        assertEquals(4, engine.getTick());
+    }
+
+    // Steers towards the apple until the game ends, recording the state after every tick
+    private static List<String> play(GameEngine engine) {
+        List<String> trace = new ArrayList<>();
+        while (!engine.isOver() && engine.getTick() < 2_000) {
+            Snake snake = engine.getSnake();
+            int dx = engine.getApple().getPosition().x - snake.getHead().x;
+            int dy = engine.getApple().getPosition().y - snake.getHead().y;
+            Direction direction;
+            if (dx != 0) {
+                direction = dx > 0 ? Direction.RIGHT : Direction.LEFT;
+            } else {
+                direction = dy > 0 ? Direction.DOWN : Direction.UP;
+            }
+            int events = engine.step(direction);
+            trace.add("tick=" + engine.getTick() + " events=" + events + " score=" + engine.score()
+                    + " over=" + engine.isOver() + " apple=" + engine.getApple().getPosition().x
+                    + "," + engine.getApple().getPosition().y);
+        }
+        return trace;
+    }
+}
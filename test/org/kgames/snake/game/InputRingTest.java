@@ -0,0 +1,118 @@
+package org.kgames.snake.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InputRingTest {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @Test
+    void capacityRoundsUpToAPowerOfTwo() {
+        assertEquals(2, new InputRing(1).getCapacity());
+        assertEquals(2, new InputRing(2).getCapacity());
+        assertEquals(8, new InputRing(7).getCapacity());
+        assertEquals(8, new InputRing(8).getCapacity());
+    }
+
+    @Test
+    void fullRingRejectsAndCountsDrops() {
+        InputRing ring = new InputRing(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(Direction.UP, i));
+        }
+        assertFalse(ring.offer(Direction.LEFT, 4));
+        assertFalse(ring.offer(Direction.LEFT, 5));
+        assertEquals(2, ring.getDroppedCount());
+        assertEquals(4, ring.size());
+
+        assertEquals(Direction.UP, ring.pollTurn(0, 0));
+        assertTrue(ring.offer(Direction.LEFT, 6));
+        assertEquals(2, ring.getDroppedCount());
+    }
+
+    @Test
+    void wrapsAroundPastCapacity() {
+        InputRing ring = new InputRing(4);
+        // Three inputs stay queued, so the read and write slots wrap at different offsets
+        for (int i = 0; i < 3; i++) {
+            assertTrue(ring.offer(DIRECTIONS[i % DIRECTIONS.length], i));
+        }
+        for (int i = 3; i < 50; i++) {
+            assertTrue(ring.offer(DIRECTIONS[i % DIRECTIONS.length], i));
+            assertEquals(DIRECTIONS[(i - 3) % DIRECTIONS.length], ring.pollTurn(0, 0));
+            assertEquals(i - 3, ring.getLastTimestamp());
+            assertEquals(3, ring.size());
+        }
+        ring.clear();
+        assertEquals(0, ring.size());
+        assertNull(ring.pollTurn(0, 0));
+    }
+
+    @Test
+    void pollTurnSkipsRepeatsAndReversalsButKeepsLaterInputs() {
+        InputRing ring = new InputRing(8);
+        // Moving right: RIGHT repeats, LEFT reverses, UP turns, DOWN waits for the next tick
+        ring.offer(Direction.RIGHT, 1);
+        ring.offer(Direction.LEFT, 2);
+        ring.offer(Direction.UP, 3);
+        ring.offer(Direction.DOWN, 4);
+
+        assertEquals(Direction.UP, ring.pollTurn(1, 0));
+        assertEquals(3, ring.getLastTimestamp());
+        assertEquals(1, ring.size());
+        // Now moving up, DOWN is a reversal and is dropped
+        assertNull(ring.pollTurn(0, -1));
+        assertEquals(3, ring.getLastTimestamp());
+        assertEquals(0, ring.size());
+
+        ring.offer(Direction.UP, 5);
+        ring.offer(Direction.LEFT, 6);
+        ring.offer(Direction.RIGHT, 7);
+        assertEquals(Direction.LEFT, ring.pollTurn(0, -1));
+        assertEquals(6, ring.getLastTimestamp());
+        assertEquals(Direction.RIGHT, ring.pollTurn(0, -1));
+        assertEquals(7, ring.getLastTimestamp());
+    }
+
+    @Test
+    void noInputLostOrDuplicatedAcrossThreads() throws InterruptedException {
+        int count = 100_000;
+        InputRing ring = new InputRing(16);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < count; i++) {
+                    while (!ring.offer(DIRECTIONS[i % DIRECTIONS.length], i)) {
+                        Thread.yield();
+                    }
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        // A failed assertion below must not leave it spinning
+        producer.setDaemon(true);
+        producer.start();
+
+        // A snake standing still turns for every input, so each one comes back
+        long expected = 0;
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (expected < count && System.nanoTime() < deadline) {
+            Direction turn = ring.pollTurn(0, 0);
+            if (turn == null) {
+                Thread.yield();
+                continue;
+            }
+            assertEquals(expected, ring.getLastTimestamp());
+            assertEquals(DIRECTIONS[(int) (expected % DIRECTIONS.length)], turn);
+            expected++;
+        }
+        producer.join();
+        assertNull(failure.get());
+        assertEquals(count, expected);
+        assertNull(ring.pollTurn(0, 0));
+    }
+}
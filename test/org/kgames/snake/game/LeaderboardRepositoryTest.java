@@ -0,0 +1,49 @@
+package org.kgames.snake.game;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardRepositoryTest {
+    @TempDir
+    File savesDir;
+
+    @Test
+    void ranksEveryGameAndKeepsThemAcrossRestarts() {
+        LeaderboardRepository repository = new LeaderboardRepository(savesDir, GameEngine.DIFFICULTY_COUNT);
+        for (int score = 0; score < 50; score++) {
+            repository.recordGame(1, score);
+        }
+        repository.get(1).addScore("Ann", 49);
+        assertEquals(50, repository.getRanking().size(1));
+        repository.close();
+
+        LeaderboardRepository reopened = new LeaderboardRepository(savesDir, GameEngine.DIFFICULTY_COUNT);
+        RankingIndex ranking = reopened.getRanking();
+        assertEquals(50, ranking.size(1));
+        assertEquals(0, ranking.size(0));
+        assertEquals(11, ranking.rankOf(1, 39));
+        assertEquals(List.of("Ann"), reopened.get(1).getScores().stream().map(Leaderboard.Score::getName).toList());
+        reopened.close();
+    }
+
+    @Test
+    void firstStartSeedsRankingFromBoards() throws IOException {
+        new LeaderboardStore(savesDir).save(2, List.of(new Leaderboard.Score("Bo", 30), new Leaderboard.Score("Cy", 20)));
+
+        LeaderboardRepository repository = new LeaderboardRepository(savesDir, GameEngine.DIFFICULTY_COUNT);
+        assertEquals(2, repository.getRanking().size(2));
+        repository.close();
+
+        // Seeded once; the log holds them from now on
+        LeaderboardRepository reopened = new LeaderboardRepository(savesDir, GameEngine.DIFFICULTY_COUNT);
+        assertEquals(2, reopened.getRanking().size(2));
+        assertEquals(2, reopened.getRanking().rankOf(2, 25));
+        reopened.close();
+    }
+}
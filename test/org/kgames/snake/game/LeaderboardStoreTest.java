@@ -0,0 +1,124 @@
+package org.kgames.snake.game;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardStoreTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void encodeDecodeRoundTrip() throws IOException {
+        List<Leaderboard.Score> scores = List.of(new Leaderboard.Score("Ann", 120),
+                new Leaderboard.Score("B\u00f6", 80), new Leaderboard.Score("", 0));
+        assertScores(scores, LeaderboardStore.decode(LeaderboardStore.encode(scores)));
+        assertScores(List.of(), LeaderboardStore.decode(LeaderboardStore.encode(List.of())));
+    }
+
+    @Test
+    void saveThenLoad() throws IOException {
+        LeaderboardStore store = store();
+        List<Leaderboard.Score> scores = List.of(new Leaderboard.Score("Ann", 120), new Leaderboard.Score("Bo", 80));
+        store.save(2, scores);
+        assertScores(scores, store.load(2));
+        assertTrue(store.load(1).isEmpty());
+        assertFalse(Files.exists(dir.resolve("leaderboard_2.lbd.tmp")));
+    }
+
+    @Test
+    void crcMismatchIsRejected() throws IOException {
+        byte[] bytes = LeaderboardStore.encode(List.of(new Leaderboard.Score("Ann", 120)));
+        bytes[bytes.length - 6] ^= 1;
+        assertThrows(IOException.class, () -> LeaderboardStore.decode(bytes));
+        assertLoadsEmpty(bytes);
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        byte[] bytes = LeaderboardStore.encode(List.of(new Leaderboard.Score("Ann", 120)));
+        for (int length = 0; length < bytes.length; length++) {
+            byte[] truncated = Arrays.copyOf(bytes, length);
+            assertThrows(IOException.class, () -> LeaderboardStore.decode(truncated), "length " + length);
+        }
+        assertLoadsEmpty(Arrays.copyOf(bytes, bytes.length - 3));
+    }
+
+    @Test
+    void outOfRangeCountIsRejected() throws IOException {
+        for (int count : new int[] {-1, 10_001, Integer.MAX_VALUE}) {
+            byte[] bytes = LeaderboardStore.encode(List.of());
+            // Count follows the magic and version; re-sign so only the count is wrong
+            ByteBuffer.wrap(bytes).putInt(5, count);
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length - Integer.BYTES);
+            ByteBuffer.wrap(bytes).putInt(bytes.length - Integer.BYTES, (int) crc.getValue());
+            assertThrows(IOException.class, () -> LeaderboardStore.decode(bytes), "count " + count);
+            assertLoadsEmpty(bytes);
+        }
+    }
+
+    @Test
+    void migratesSerializedBoard() throws IOException {
+        // What the original game wrote: an ArrayList of scores, best first
+        ArrayList<Leaderboard.Score> legacy = new ArrayList<>(List.of(
+                new Leaderboard.Score("Ann", 120), new Leaderboard.Score("Bo", 80)));
+        writeLegacy(1, legacy);
+
+        LeaderboardStore store = store();
+        assertScores(legacy, store.load(1));
+        assertTrue(Files.exists(dir.resolve("leaderboard_1.lbd")));
+        assertTrue(Files.exists(dir.resolve("leaderboard_1.dat.migrated")));
+        assertFalse(Files.exists(dir.resolve("leaderboard_1.dat")));
+        // Later loads read the new file
+        assertScores(legacy, LeaderboardStore.decode(Files.readAllBytes(dir.resolve("leaderboard_1.lbd"))));
+        assertScores(legacy, store.load(1));
+    }
+
+    @Test
+    void classOutsideTheFilterIsRejected() throws IOException {
+        writeLegacy(0, new LinkedList<>(List.of(new Leaderboard.Score("Ann", 120))));
+
+        assertTrue(store().load(0).isEmpty());
+        // Left in place, unconverted
+        assertTrue(Files.exists(dir.resolve("leaderboard_0.dat")));
+        assertFalse(Files.exists(dir.resolve("leaderboard_0.lbd")));
+    }
+
+    private LeaderboardStore store() {
+        return new LeaderboardStore(dir.toFile(), LeaderboardStore.FsyncPolicy.NONE);
+    }
+
+    private void writeLegacy(int difficulty, Object board) throws IOException {
+        File file = dir.resolve("leaderboard_" + difficulty + ".dat").toFile();
+        try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(file.toPath()))) {
+            out.writeObject(board);
+        }
+    }
+
+    private void assertLoadsEmpty(byte[] bytes) throws IOException {
+        Files.write(dir.resolve("leaderboard_3.lbd"), bytes);
+        assertTrue(store().load(3).isEmpty());
+    }
+
+    private static void assertScores(List<Leaderboard.Score> expected, List<Leaderboard.Score> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getName(), actual.get(i).getName());
+            assertEquals(expected.get(i).getScore(), actual.get(i).getScore());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.kgames.snake.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OccupancyGridTest {
+    // Neither side is a multiple of the 64-cell chunk size, so the edge chunks are partial
+    private static final int WIDTH = 150;
+    private static final int HEIGHT = 90;
+
+    @Test
+    void nthFreeCellMatchesABruteForceScan() {
+        OccupancyGrid grid = new OccupancyGrid(WIDTH, HEIGHT);
+        boolean[] occupied = new boolean[WIDTH * HEIGHT];
+        Random random = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 400; i++) {
+                int x = random.nextInt(WIDTH);
+                int y = random.nextInt(HEIGHT);
+                if (random.nextBoolean()) {
+                    grid.set(x, y, i);
+                    occupied[y * WIDTH + x] = true;
+                } else {
+                    grid.clear(x, y);
+                    occupied[y * WIDTH + x] = false;
+                }
+            }
+
+            List<Integer> free = freeCellsInChunkOrder(occupied);
+            assertEquals(free.size(), grid.getFreeCount());
+            for (int n = 0; n < free.size(); n++) {
+                assertEquals(free.get(n), grid.nthFreeCell(n), "free cell " + n);
+            }
+            long freeCount = grid.getFreeCount();
+            assertThrows(IllegalArgumentException.class, () -> grid.nthFreeCell(freeCount));
+        }
+    }
+
+    @Test
+    void tracksTheFreeCountThroughSetClearAndClearAll() {
+        OccupancyGrid grid = new OccupancyGrid(WIDTH, HEIGHT);
+        assertEquals(WIDTH * HEIGHT, grid.getFreeCount());
+
+        grid.set(3, 4, 1);
+        grid.set(3, 4, 2);
+        grid.set(149, 89, 3);
+        assertEquals(WIDTH * HEIGHT - 2, grid.getFreeCount());
+        assertEquals(2, grid.getSerial(3, 4));
+
+        grid.clear(3, 4);
+        grid.clear(3, 4);
+        grid.clear(100, 10);
+        assertEquals(WIDTH * HEIGHT - 1, grid.getFreeCount());
+        assertFalse(grid.isOccupied(3, 4));
+
+        for (int x = 0; x < WIDTH; x++) {
+            grid.set(x, 70, x);
+        }
+        grid.clearAll();
+        assertEquals(WIDTH * HEIGHT, grid.getFreeCount());
+        assertEquals(0, grid.allocatedChunkCount());
+        for (int x = 0; x < WIDTH; x++) {
+            assertFalse(grid.isOccupied(x, 70));
+        }
+        assertFalse(grid.isOccupied(149, 89));
+        assertEquals(0, grid.nthFreeCell(0));
+    }
+
+    @Test
+    void emptiedChunksAreReleasedAndReusedClean() {
+        OccupancyGrid grid = new OccupancyGrid(WIDTH, HEIGHT);
+        grid.set(1, 1, 7);
+        grid.set(2, 1, 8);
+        assertEquals(1, grid.allocatedChunkCount());
+
+        grid.clear(1, 1);
+        assertEquals(1, grid.allocatedChunkCount());
+        grid.clear(2, 1);
+        assertEquals(0, grid.allocatedChunkCount());
+        assertEquals(1, grid.pooledChunkCount());
+
+        // The pooled chunk goes to a different part of the board and must not carry old bits
+        grid.set(65, 65, 9);
+        assertEquals(1, grid.allocatedChunkCount());
+        assertEquals(0, grid.pooledChunkCount());
+        assertTrue(grid.isOccupied(65, 65));
+        assertFalse(grid.isOccupied(66, 65));
+        assertFalse(grid.isOccupied(1, 1));
+        assertEquals(WIDTH * HEIGHT - 1, grid.getFreeCount());
+    }
+
+    @Test
+    void poolStopsGrowingAtItsLimit() {
+        OccupancyGrid grid = new OccupancyGrid(64 * 20, 64 * 5);
+        for (int cy = 0; cy < 5; cy++) {
+            for (int cx = 0; cx < 20; cx++) {
+                grid.set(cx * 64, cy * 64, 1);
+            }
+        }
+        assertEquals(100, grid.allocatedChunkCount());
+        grid.clearAll();
+        assertEquals(0, grid.allocatedChunkCount());
+        assertEquals(64, grid.pooledChunkCount());
+    }
+
+    // Free cells in the order nthFreeCell counts them: chunk by chunk, row by row inside a chunk
+    private static List<Integer> freeCellsInChunkOrder(boolean[] occupied) {
+        List<Integer> free = new ArrayList<>();
+        for (int cy = 0; cy < HEIGHT; cy += 64) {
+            for (int cx = 0; cx < WIDTH; cx += 64) {
+                for (int y = cy; y < Math.min(cy + 64, HEIGHT); y++) {
+                    for (int x = cx; x < Math.min(cx + 64, WIDTH); x++) {
+                        if (!occupied[y * WIDTH + x]) {
+                            free.add(y * WIDTH + x);
+                        }
+                    }
+                }
+            }
+        }
+        return free;
+    }
+}
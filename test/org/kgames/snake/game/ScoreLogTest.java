@@ -0,0 +1,72 @@
+package org.kgames.snake.game;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreLogTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysAppendedRecordsInOrder() throws IOException {
+        Path file = dir.resolve("scores.log");
+        try (ScoreLog log = new ScoreLog(file, true, (difficulty, name, score) -> fail("new log has records"))) {
+            for (int i = 0; i < 1000; i++) {
+                log.append(i % 3, "p" + i, i * 7);
+            }
+            log.flush();
+        }
+        List<String> records = read(file);
+        assertEquals(1000, records.size());
+        assertEquals("1 p1 7", records.get(1));
+        assertEquals("0 p999 6993", records.get(999));
+    }
+
+    @Test
+    void dropsTornRecordAndKeepsAppending() throws IOException {
+        Path file = dir.resolve("scores.log");
+        try (ScoreLog log = new ScoreLog(file, false, (difficulty, name, score) -> { })) {
+            log.append(0, "Ann", 10);
+            log.append(1, "Bo", 20);
+        }
+        // Cut the last record in half, as a crash mid-write would
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+        try (ScoreLog log = new ScoreLog(file, false, (difficulty, name, score) -> { })) {
+            log.append(2, "Cy", 30);
+        }
+        assertEquals(List.of("0 Ann 10", "2 Cy 30"), read(file));
+    }
+
+    @Test
+    void writeFailureIsReportedAndNotCountedAsWritten() throws Exception {
+        ScoreLog log = new ScoreLog(dir.resolve("scores.log"), false, (difficulty, name, score) -> { });
+        Field channel = ScoreLog.class.getDeclaredField("channel");
+        channel.setAccessible(true);
+        ((FileChannel) channel.get(log)).close();
+
+        log.append(0, "Ann", 10);
+        assertThrows(IOException.class, log::flush);
+        assertThrows(IOException.class, () -> log.append(0, "Bo", 20));
+        assertThrows(IOException.class, log::close);
+    }
+
+    private static List<String> read(Path file) throws IOException {
+        assertTrue(Files.exists(file));
+        List<String> records = new ArrayList<>();
+        new ScoreLog(file, false, (difficulty, name, score) -> records.add(difficulty + " " + name + " " + score)).close();
+        return records;
+    }
+}
@@ -0,0 +1,57 @@
+package org.kgames.snake.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreRankingTest {
+    @Test
+    void matchesSortedListOnRandomScores() {
+        Random random = new Random(7);
+        ScoreRanking ranking = new ScoreRanking();
+        List<int[]> entries = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            int score = random.nextInt(500);
+            entries.add(new int[] {ranking.insert("p" + i, score), score, i});
+        }
+        // Highest score first; equal scores keep insertion order
+        entries.sort(Comparator.<int[]>comparingInt(e -> -e[1]).thenComparingInt(e -> e[2]));
+
+        for (int probe = -1; probe <= 501; probe++) {
+            int above = 0;
+            int below = 0;
+            for (int[] entry : entries) {
+                if (entry[1] > probe) {
+                    above++;
+                } else if (entry[1] < probe) {
+                    below++;
+                }
+            }
+            assertEquals(above, ranking.countAbove(probe));
+            assertEquals(above + 1, ranking.rankOf(probe));
+            assertEquals(100.0 * below / entries.size(), ranking.percentileOf(probe), 1e-9);
+        }
+        for (int index = 0; index < entries.size(); index += 97) {
+            assertEquals(entries.get(index)[0], ranking.select(index));
+        }
+        int[] top = ranking.top(25);
+        for (int i = 0; i < top.length; i++) {
+            assertEquals(entries.get(i)[0], top[i]);
+            assertEquals(entries.get(i)[1], ranking.getScore(top[i]));
+        }
+    }
+
+    @Test
+    void emptyRanking() {
+        ScoreRanking ranking = new ScoreRanking();
+        assertEquals(1, ranking.rankOf(10));
+        assertEquals(100.0, ranking.percentileOf(10));
+        assertEquals(0, ranking.top(5).length);
+        assertThrows(IndexOutOfBoundsException.class, () -> ranking.select(0));
+    }
+}
@@ -0,0 +1,112 @@
+package org.kgames.snake.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnakeBodyTest {
+    private static final int WIDTH = 13;
+    private static final int HEIGHT = 7;
+
+    @Test
+    void indexesFromTheHeadAcrossTheWrapAround() {
+        SnakeBody body = new SnakeBody(WIDTH, HEIGHT, 4);
+        body.addHead(0, 0);
+        body.addHead(1, 0);
+        body.addHead(2, 0);
+        // Sliding forward keeps the size at three while the head slot wraps round the array
+        for (int x = 3; x < 12; x++) {
+            body.addHead(x, 1);
+            body.removeTail();
+            assertEquals(3, body.size());
+            assertEquals(x, body.getX(0));
+            assertEquals(1, body.getY(0));
+            assertEquals(x - 1, body.getX(1));
+            assertEquals(body.pack(x, 1), body.getHeadCell());
+            assertEquals(body.getCell(2), body.getTailCell());
+        }
+        assertArrayEquals(new int[] {body.pack(11, 1), body.pack(10, 1), body.pack(9, 1)}, copy(body));
+    }
+
+    @Test
+    void growsPastItsInitialCapacityKeepingTheOrder() {
+        SnakeBody body = new SnakeBody(WIDTH, HEIGHT, 2);
+        // Drop the tail a few times first so the array is wrapped when it has to grow
+        body.addHead(0, 0);
+        body.addHead(1, 0);
+        body.removeTail();
+        body.addHead(2, 0);
+        body.removeTail();
+        for (int i = 3; i < 50; i++) {
+            body.addHead(i % WIDTH, i / WIDTH);
+        }
+        assertEquals(48, body.size());
+        for (int i = 0; i < body.size(); i++) {
+            int expected = 49 - i;
+            assertEquals(expected, body.getCell(i));
+            assertEquals(expected % WIDTH, body.getX(i));
+            assertEquals(expected / WIDTH, body.getY(i));
+        }
+        assertEquals(2, body.getTailCell());
+    }
+
+    @Test
+    void matchesADequeThroughRandomMoves() {
+        SnakeBody body = new SnakeBody(WIDTH, HEIGHT, 4);
+        ArrayDeque<Integer> expected = new ArrayDeque<>();
+        Random random = new Random(23);
+        long pushed = 0;
+        for (int step = 0; step < 5_000; step++) {
+            if (expected.isEmpty() || random.nextInt(5) < 3) {
+                int x = random.nextInt(WIDTH);
+                int y = random.nextInt(HEIGHT);
+                body.addHead(x, y);
+                expected.addFirst(y * WIDTH + x);
+                pushed++;
+            } else {
+                body.removeTail();
+                expected.removeLast();
+            }
+
+            assertEquals(expected.size(), body.size());
+            assertEquals(pushed, body.getHeadSerial());
+            int[] cells = copy(body);
+            int i = 0;
+            for (int cell : expected) {
+                assertEquals(cell, body.getCell(i));
+                assertEquals(cell, cells[i]);
+                i++;
+            }
+        }
+    }
+
+    @Test
+    void clearResetsTheSerialAndEmptyTailRemovalFails() {
+        SnakeBody body = new SnakeBody(WIDTH, HEIGHT);
+        body.addHead(1, 1);
+        body.addHead(2, 1);
+        assertEquals(2, body.getHeadSerial());
+
+        body.clear();
+        assertEquals(0, body.size());
+        assertEquals(0, body.getHeadSerial());
+        assertThrows(IllegalStateException.class, body::removeTail);
+
+        body.addHead(4, 5);
+        assertEquals(1, body.getHeadSerial());
+        assertEquals(body.pack(4, 5), body.getHeadCell());
+        assertEquals(body.getHeadCell(), body.getTailCell());
+    }
+
+    private static int[] copy(SnakeBody body) {
+        int[] cells = new int[body.size()];
+        body.copyTo(cells);
+        for (int i = 0; i < cells.length; i++) {
+            assertEquals(body.getCell(i), cells[i]);
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,86 @@
+package org.kgames.snake.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextureManagerTest {
+    private static final int SMALL_CELL = 12;
+    private static final int LARGE_CELL = 20;
+
+    @Test
+    void drawsWhileAnotherThreadRescalesTheAtlas() throws InterruptedException {
+        TextureManager textures = new TextureManager();
+        assertTrue(textures.init());
+        // What a draw looks like with each atlas, rendered before any second thread runs
+        textures.ensureAtlas(SMALL_CELL);
+        int[] small = pixels(draw(textures));
+        textures.ensureAtlas(LARGE_CELL);
+        int[] large = pixels(draw(textures));
+        assertFalse(Arrays.equals(small, large));
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread resizer = new Thread(() -> {
+            try {
+                for (int i = 0; !done.get(); i++) {
+                    textures.ensureAtlas(i % 2 == 0 ? SMALL_CELL : LARGE_CELL);
+                    Thread.yield();
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        resizer.setDaemon(true);
+        resizer.start();
+        try {
+            for (int i = 0; i < 2000 && failure.get() == null; i++) {
+                // A draw racing a rebuild must still come from one whole atlas, never a mix
+                int[] drawn = pixels(draw(textures));
+                assertTrue(Arrays.equals(small, drawn) || Arrays.equals(large, drawn), "torn sprite on draw " + i);
+            }
+        } finally {
+            done.set(true);
+            resizer.join();
+        }
+        assertNull(failure.get(), () -> "resizer failed: " + failure.get());
+    }
+
+    @Test
+    void rebuildsOnlyWhenTheCellSizeChanges() {
+        TextureManager textures = new TextureManager();
+        assertTrue(textures.init());
+        assertNull(textures.getAtlasImage());
+
+        textures.ensureAtlas(LARGE_CELL);
+        BufferedImage first = textures.getAtlasImage();
+        assertNotNull(first);
+        textures.ensureAtlas(LARGE_CELL);
+        assertSame(first, textures.getAtlasImage());
+
+        textures.ensureAtlas(30);
+        BufferedImage resized = textures.getAtlasImage();
+        assertNotSame(first, resized);
+        assertTrue(resized.getWidth() > first.getWidth());
+        textures.ensureAtlas(30);
+        assertSame(resized, textures.getAtlasImage());
+    }
+
+    private static BufferedImage draw(TextureManager textures) {
+        BufferedImage canvas = new BufferedImage(40, 40, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = canvas.createGraphics();
+        textures.drawSprite(g, TextureManager.SPRITE_APPLE, 90, 2, 2);
+        g.dispose();
+        return canvas;
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+}
@@ -0,0 +1,99 @@
+package org.kgames.snake.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+    @Test
+    void everyValueFallsInsideItsBucketBounds() {
+        List<Long> values = new ArrayList<>();
+        for (long v = 0; v < 200; v++) {
+            values.add(v);
+        }
+        // Octave edges, where the exponent and the bucket width change
+        for (int bit = 5; bit < 63; bit++) {
+            long edge = 1L << bit;
+            values.add(edge - 1);
+            values.add(edge);
+            values.add(edge + 1);
+            values.add(edge + (edge >>> 1));
+        }
+        values.add(Long.MAX_VALUE - 1);
+        values.add(Long.MAX_VALUE);
+
+        for (long value : values) {
+            int index = LatencyHistogram.bucketIndex(value);
+            long lowest = LatencyHistogram.lowestEquivalentValue(index);
+            long highest = LatencyHistogram.highestEquivalentValue(index);
+            assertTrue(lowest <= value && value <= highest,
+                    value + " outside bucket " + index + " [" + lowest + ", " + highest + "]");
+            // Buckets stay within 1/32 of their lower bound
+            assertTrue(highest - lowest <= Math.max(0, lowest / 32), "bucket " + index + " too wide");
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestEquivalentValue(LatencyHistogram.bucketIndex(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void bucketsAreContiguous() {
+        int last = LatencyHistogram.bucketIndex(Long.MAX_VALUE);
+        for (int index = 0; index < last; index++) {
+            assertEquals(LatencyHistogram.highestEquivalentValue(index) + 1,
+                    LatencyHistogram.lowestEquivalentValue(index + 1), "gap after bucket " + index);
+            assertEquals(index, LatencyHistogram.bucketIndex(LatencyHistogram.lowestEquivalentValue(index)));
+        }
+    }
+
+    @Test
+    void reportsPercentilesOfAKnownDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 10_000; v++) {
+            histogram.record(v);
+        }
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000, histogram.getMax());
+        assertEquals(5_000.5, histogram.getMean(), 1e-9);
+        assertWithinBucket(5_000, histogram.getValueAtPercentile(50));
+        assertWithinBucket(9_000, histogram.getValueAtPercentile(90));
+        assertWithinBucket(9_900, histogram.getValueAtPercentile(99));
+        assertEquals(10_000, histogram.getValueAtPercentile(100));
+        assertEquals(1, histogram.getValueAtPercentile(0));
+
+        // Small values are counted exactly
+        LatencyHistogram small = new LatencyHistogram();
+        for (long v = 1; v <= 20; v++) {
+            small.record(v);
+        }
+        small.record(-5);
+        assertEquals(0, small.getValueAtPercentile(1));
+        assertEquals(10, small.getValueAtPercentile(50));
+        assertEquals(19, small.getValueAtPercentile(95));
+    }
+
+    @Test
+    void resetDropsEverythingRecordedBefore() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_000);
+        histogram.record(7);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+
+        histogram.record(3);
+        assertEquals(1, histogram.getCount());
+        assertEquals(3, histogram.getMax());
+        assertEquals(3, histogram.getMean());
+        assertEquals(3, histogram.getValueAtPercentile(99));
+    }
+
+    private static void assertWithinBucket(long expected, long actual) {
+        int index = LatencyHistogram.bucketIndex(expected);
+        assertTrue(actual >= expected && actual <= LatencyHistogram.highestEquivalentValue(index),
+                "expected " + expected + " up to its bucket bound, got " + actual);
+    }
+}
@@ -0,0 +1,88 @@
+package org.kgames.snake.replay;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kgames.snake.game.Direction;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayArchiveTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysSurviveReopening() throws IOException {
+        try (ReplayArchive archive = new ReplayArchive(dir)) {
+            for (int i = 0; i < 500; i++) {
+                assertEquals(i, archive.append(replay(i, i % 3, i * 2)));
+            }
+            archive.flush();
+            assertEquals(500, archive.size());
+        }
+        try (ReplayArchive archive = new ReplayArchive(dir)) {
+            assertEquals(500, archive.size());
+            for (int i = 0; i < 500; i++) {
+                Replay replay = archive.read(i);
+                assertEquals(i, replay.getSeed());
+                assertEquals(i * 2, archive.getScore(i));
+                assertEquals(i % 3, archive.getDifficulty(i));
+            }
+            assertArrayEquals(new long[] {498, 495}, archive.topGames(0, 2));
+            assertEquals(500, archive.append(replay(500, 0, 0)));
+        }
+    }
+
+    @Test
+    void idsPastTheEndAreRejected() throws IOException {
+        try (ReplayArchive archive = new ReplayArchive(dir)) {
+            archive.append(replay(1, 0, 5));
+            archive.flush();
+            assertNull(archive.slice(1));
+            assertNull(archive.read(-1));
+            assertThrows(IndexOutOfBoundsException.class, () -> archive.getScore(1));
+            assertThrows(IndexOutOfBoundsException.class, () -> archive.getDifficulty(-1));
+        }
+    }
+
+    @Test
+    void unindexedSegmentBytesAreCutOff() throws IOException {
+        try (ReplayArchive archive = new ReplayArchive(dir)) {
+            archive.append(replay(1, 0, 5));
+        }
+        // Data of a batch whose index write never happened
+        try (FileChannel segment = FileChannel.open(dir.resolve("segment-00000.log"), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            segment.write(ByteBuffer.wrap(replay(2, 0, 9).encode()));
+        }
+        try (ReplayArchive archive = new ReplayArchive(dir)) {
+            assertEquals(1, archive.size());
+            assertEquals(1, archive.append(replay(3, 1, 7)));
+            archive.flush();
+            assertEquals(3, archive.read(1).getSeed());
+        }
+    }
+
+    @Test
+    void writeFailureFailsLaterCalls() throws Exception {
+        ReplayArchive archive = new ReplayArchive(dir);
+        Field segmentChannel = ReplayArchive.class.getDeclaredField("segmentChannel");
+        segmentChannel.setAccessible(true);
+        ((FileChannel) segmentChannel.get(archive)).close();
+
+        archive.append(replay(1, 0, 5));
+        assertThrows(IOException.class, archive::flush);
+        assertThrows(IOException.class, () -> archive.append(replay(2, 0, 5)));
+        assertThrows(IOException.class, archive::close);
+        assertEquals(0, archive.size());
+    }
+
+    private static Replay replay(long seed, int difficulty, int score) {
+        return new Replay(seed, difficulty, 20, 20, 0, new long[] {3, 10}, new Direction[] {Direction.UP, Direction.LEFT}, 40, score);
+    }
+}
@@ -0,0 +1,91 @@
+package org.kgames.snake.replay;
+
+import org.kgames.snake.game.Direction;
+import org.kgames.snake.game.GameEngine;
+import org.kgames.snake.util.Vector2;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayTest {
+    @Test
+    void encodeDecodeRoundTrip() throws IOException {
+        // Gaps of 0, 31, 32 and several million ticks cover one- to four-byte varints
+        long[] ticks = {0, 0, 31, 63, 64, 5_000_000};
+        Direction[] turns = {Direction.UP, Direction.LEFT, Direction.DOWN, Direction.RIGHT, Direction.UP, Direction.LEFT};
+        Replay replay = new Replay(-123456789L, 2, 300, 17, 1_700_000_000_000L, ticks, turns, 5_000_010, 321);
+
+        ByteBuffer buffer = ByteBuffer.wrap(replay.encode());
+        Replay decoded = Replay.decode(buffer);
+        assertFalse(buffer.hasRemaining());
+        assertEquals(replay.getSeed(), decoded.getSeed());
+        assertEquals(2, decoded.getDifficulty());
+        assertEquals(300, decoded.getBoardWidth());
+        assertEquals(17, decoded.getBoardHeight());
+        assertEquals(1_700_000_000_000L, decoded.getStartedAtMillis());
+        assertEquals(ticks.length, decoded.getTurnCount());
+        for (int i = 0; i < ticks.length; i++) {
+            assertEquals(ticks[i], decoded.getTurnTick(i));
+            assertEquals(turns[i], decoded.getTurn(i));
+        }
+        assertEquals(5_000_010, decoded.getFinalTick());
+        assertEquals(321, decoded.getScore());
+    }
+
+    @Test
+    void truncatedReplayIsRejected() {
+        byte[] bytes = new Replay(1, 0, 20, 20, 0, new long[] {5}, new Direction[] {Direction.UP}, 10, 0).encode();
+        for (int length = 0; length < bytes.length; length++) {
+            ByteBuffer truncated = ByteBuffer.wrap(bytes, 0, length);
+            assertThrows(IOException.class, () -> Replay.decode(truncated));
+        }
+    }
+
+    @Test
+    void gameThatFillsTheBoardVerifiesRepeatedly() {
+        // Verifying restarts the player's engine, which has just played a game past half the board
+        Replay replay = recordFullBoardGame(8, 99);
+        assertTrue(replay.getScore() > 8 * 8 / 2);
+        ReplayPlayer player = new ReplayPlayer(replay);
+        assertTrue(player.verify());
+        assertTrue(player.verify());
+        assertTrue(player.verify());
+    }
+
+    // Plays a game along a Hamiltonian cycle of the board, which never collides and so ends
+    // with the snake covering every cell
+    private static Replay recordFullBoardGame(int boardSize, long seed) {
+        GameEngine engine = new GameEngine(boardSize, 1);
+        engine.reset(seed);
+        ReplayRecorder recorder = new ReplayRecorder();
+        recorder.start(seed, 1, boardSize, boardSize);
+        Direction current = null;
+        while (!engine.isOver()) {
+            Vector2 head = engine.getSnake().getHead();
+            Direction next = cycleDirection(head.x, head.y, boardSize);
+            Direction turn = next != current ? next : null;
+            if (turn != null) {
+                recorder.record(engine.getTick(), turn);
+                current = turn;
+            }
+            engine.step(turn);
+        }
+        return recorder.finish(engine.getTick(), engine.score());
+    }
+
+    private static Direction cycleDirection(int x, int y, int boardSize) {
+        if (y == 0) {
+            return x < boardSize - 1 ? Direction.RIGHT : Direction.DOWN;
+        }
+        if (x == 0) {
+            return Direction.UP;
+        }
+        if ((y & 1) == 1) {
+            return x > 1 || y == boardSize - 1 ? Direction.LEFT : Direction.DOWN;
+        }
+        return x < boardSize - 1 ? Direction.RIGHT : Direction.DOWN;
+    }
+}
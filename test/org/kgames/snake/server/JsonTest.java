@@ -0,0 +1,45 @@
+package org.kgames.snake.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonTest {
+    @Test
+    void parsesScoreBatch() {
+        Object value = Json.parse(" [{\"name\":\"Ann\",\"score\":120,\"difficulty\":1,\"x\":[1.5,true,null]}] ");
+        Map<?, ?> entry = (Map<?, ?>) ((List<?>) value).get(0);
+        assertEquals("Ann", entry.get("name"));
+        assertEquals(120L, entry.get("score"));
+        assertEquals(List.of(1.5, true), ((List<?>) entry.get("x")).subList(0, 2));
+        assertNull(((List<?>) entry.get("x")).get(2));
+    }
+
+    @Test
+    void quoteRoundTrips() {
+        String text = "a\"b\\c\n\t\u0001\u00e9";
+        assertEquals(text, Json.parse(Json.quote(text)));
+    }
+
+    @Test
+    void acceptsNestingUpToTheLimit() {
+        String json = "[".repeat(Json.MAX_DEPTH) + "]".repeat(Json.MAX_DEPTH);
+        assertInstanceOf(List.class, Json.parse(json));
+    }
+
+    @Test
+    void rejectsDeeperNesting() {
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("[".repeat(Json.MAX_DEPTH + 1) + "]".repeat(Json.MAX_DEPTH + 1)));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("[{\"a\":".repeat(100_000)));
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        for (String json : new String[] {"", "[", "{\"a\"}", "[1,]", "\"\\x\"", "\"\\u12\"", "\"\\uzzzz\"", "tru", "[1] 2"}) {
+            assertThrows(IllegalArgumentException.class, () -> Json.parse(json), json);
+        }
+    }
+}
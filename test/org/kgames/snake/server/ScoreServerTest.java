@@ -0,0 +1,59 @@
+package org.kgames.snake.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreServerTest {
+    @TempDir
+    Path dir;
+
+    private ScoreServer server;
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new ScoreServer(0, dir.resolve("scores.log"));
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+
+    @Test
+    void deeplyNestedBodyIsRejected() throws Exception {
+        HttpResponse<String> response = post("[".repeat(100_000));
+        assertEquals(400, response.statusCode());
+        assertTrue(response.body().contains("Nested deeper"));
+    }
+
+    @Test
+    void acceptsAndRanksScores() throws Exception {
+        HttpResponse<String> response = post("[{\"name\":\"Ann\",\"score\":120,\"difficulty\":1},{\"name\":\"Bo\",\"score\":80,\"difficulty\":1}]");
+        assertEquals(200, response.statusCode());
+        assertEquals("{\"accepted\":2}", response.body());
+
+        ScoreClient client = new ScoreClient(URI.create("http://localhost:" + server.getPort()));
+        assertEquals(2, client.rank(1, 100));
+        assertEquals("Ann", client.top(1, 1).get(0).getName());
+    }
+
+    private HttpResponse<String> post(String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/scores"))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
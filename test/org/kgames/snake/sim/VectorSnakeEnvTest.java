@@ -0,0 +1,125 @@
+package org.kgames.snake.sim;
+
+import org.junit.jupiter.api.Test;
+import org.kgames.snake.game.Direction;
+import org.kgames.snake.game.GameEngine;
+import org.kgames.snake.game.SegmentView;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorSnakeEnvTest {
+    // More environments than one fork/join leaf takes, so the batch is split across tasks
+    private static final int ENVS = 40;
+    private static final int BOARD = 8;
+    private static final int CELLS = BOARD * BOARD;
+
+    @Test
+    void batchedStepMatchesIndependentEngines() {
+        VectorSnakeEnv env = new VectorSnakeEnv(ENVS, BOARD, 99);
+        GameEngine[] engines = new GameEngine[ENVS];
+        for (int i = 0; i < ENVS; i++) {
+            engines[i] = new GameEngine(BOARD, 1);
+            engines[i].reset(99 + i);
+            assertArrayEquals(board(engines[i]), observation(env, i), "initial board " + i);
+        }
+
+        Random random = new Random(4);
+        int[] actions = new int[ENVS];
+        int apples = 0;
+        int deaths = 0;
+        for (int step = 0; step < 3_000; step++) {
+            for (int i = 0; i < ENVS; i++) {
+                // NO_ACTION (-1) or one of the four Direction ordinals
+                actions[i] = random.nextInt(5) - 1;
+            }
+            env.step(actions);
+
+            for (int i = 0; i < ENVS; i++) {
+                GameEngine engine = engines[i];
+                Direction direction = actions[i] == VectorSnakeEnv.NO_ACTION ? null : Direction.values()[actions[i]];
+                int events = engine.step(direction);
+                String where = "env " + i + " at step " + step;
+
+                boolean died = (events & GameEngine.EVENT_DIED) != 0;
+                boolean ate = (events & GameEngine.EVENT_ATE) != 0;
+                assertEquals(engine.isOver(), env.getDones()[i], where);
+                assertEquals(died ? VectorSnakeEnv.REWARD_DEATH : ate ? VectorSnakeEnv.REWARD_APPLE : 0f,
+                        env.getRewards()[i], where);
+                if (engine.isOver()) {
+                    // The finished environment must already show the next episode's start
+                    deaths++;
+                    engine.reset(step);
+                    assertEquals(0, env.getScore(i), where);
+                    assertEquals(3, env.getLength(i), where);
+                    assertArrayEquals(board(engine), observation(env, i), where);
+                    continue;
+                }
+                if (ate) {
+                    // The two sides draw apples from different generators, so the engine takes the env's
+                    apples++;
+                    int appleCell = appleCell(env, i);
+                    engine.getApple().getPosition().x = appleCell % BOARD;
+                    engine.getApple().getPosition().y = appleCell / BOARD;
+                }
+                assertEquals(engine.score(), env.getScore(i), where);
+                assertEquals(engine.getSnake().getLength(), env.getLength(i), where);
+                assertArrayEquals(board(engine), observation(env, i), where);
+            }
+        }
+        assertTrue(apples > 0);
+        assertTrue(deaths > 0);
+    }
+
+    @Test
+    void finishedEnvironmentResetsOnItsOwn() {
+        VectorSnakeEnv env = new VectorSnakeEnv(2, BOARD, 5);
+        byte[] start = observation(env, 0);
+        int[] actions = {Direction.UP.ordinal(), VectorSnakeEnv.NO_ACTION};
+        for (int step = 0; step < BOARD / 2; step++) {
+            env.step(actions);
+            assertFalse(env.getDones()[0]);
+            assertFalse(env.getDones()[1]);
+        }
+
+        // The next move up leaves the board; the idle environment is untouched
+        env.step(actions);
+        assertTrue(env.getDones()[0]);
+        assertEquals(VectorSnakeEnv.REWARD_DEATH, env.getRewards()[0]);
+        assertFalse(env.getDones()[1]);
+        assertArrayEquals(start, observation(env, 0));
+        assertArrayEquals(start, observation(env, 1));
+
+        // The done flag and reward last for one step only
+        env.step(new int[] {VectorSnakeEnv.NO_ACTION, VectorSnakeEnv.NO_ACTION});
+        assertFalse(env.getDones()[0]);
+        assertEquals(0f, env.getRewards()[0]);
+    }
+
+    private static byte[] observation(VectorSnakeEnv env, int i) {
+        return Arrays.copyOfRange(env.getObservations(), i * CELLS, (i + 1) * CELLS);
+    }
+
+    private static int appleCell(VectorSnakeEnv env, int i) {
+        byte[] board = observation(env, i);
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (board[cell] == VectorSnakeEnv.CELL_APPLE) {
+                return cell;
+            }
+        }
+        throw new AssertionError("No apple on board " + i);
+    }
+
+    // The observation the engine's state should produce
+    private static byte[] board(GameEngine engine) {
+        byte[] board = new byte[CELLS];
+        SegmentView body = engine.getSnake().getBody();
+        for (int i = 0; i < body.size(); i++) {
+            board[body.getCell(i)] = i == 0 ? VectorSnakeEnv.CELL_HEAD : VectorSnakeEnv.CELL_BODY;
+        }
+        board[engine.getApple().getPosition().y * BOARD + engine.getApple().getPosition().x] = VectorSnakeEnv.CELL_APPLE;
+        return board;
+    }
+}